@@ -0,0 +1,48 @@
+package com.zzj.myapplication.db;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * 数据库层的设备端测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseHelperTest {
+
+    private Context getContext() {
+        return InstrumentationRegistry.getInstrumentation().getTargetContext();
+    }
+
+    @Test
+    public void sharedConnection_isOpenedOnceAcrossScreenLoad() {
+        Context context = getContext();
+        assertSame(DatabaseHelper.getInstance(context), DatabaseHelper.getInstance(context));
+
+        // 先触发一次打开，之后的所有 DAO 调用都不应再重新打开数据库
+        DatabaseHelper.getInstance(context).getReadableDatabase();
+        int opened = DatabaseHelper.getOpenCount();
+
+        // 模拟首页 + 账单页 + 物品页一次完整加载
+        AccountDao accountDao = new AccountDao(context);
+        RecordDao recordDao = new RecordDao(context);
+        CategoryDao categoryDao = new CategoryDao(context);
+        ItemDao itemDao = new ItemDao(context);
+        accountDao.getAllAccounts();
+        recordDao.getAllRecords();
+        recordDao.getRecordsByDateRange(0, System.currentTimeMillis());
+        categoryDao.getAllCategories();
+        categoryDao.getCategoriesByType(0);
+        itemDao.getAllItems();
+
+        assertEquals(opened, DatabaseHelper.getOpenCount());
+        assertTrue(DatabaseHelper.getInstance(context).getReadableDatabase().isOpen());
+        assertTrue(DatabaseHelper.getInstance(context).getReadableDatabase().isWriteAheadLoggingEnabled());
+    }
+}
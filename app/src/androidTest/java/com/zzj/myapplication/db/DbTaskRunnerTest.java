@@ -0,0 +1,100 @@
+package com.zzj.myapplication.db;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 严格模式测试：开启后主线程访问数据库必须失败，后台线程不受影响；
+ * 以及任务失败时错误回调在主线程交付
+ */
+@RunWith(AndroidJUnit4.class)
+public class DbTaskRunnerTest {
+
+    private Instrumentation instrumentation;
+    private Context context;
+
+    @Before
+    public void setUp() {
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        context = instrumentation.getTargetContext();
+        instrumentation.runOnMainSync(DbTaskRunner::enableStrictMode);
+    }
+
+    @After
+    public void tearDown() {
+        instrumentation.runOnMainSync(DbTaskRunner::disableStrictMode);
+    }
+
+    @Test
+    public void strictMode_rejectsDaoOnMainThread() {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        instrumentation.runOnMainSync(() -> {
+            try {
+                new RecordDao(context).getAllRecords();
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        });
+        assertTrue(error.get() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void strictMode_allowsDaoOffMainThread() {
+        // 测试线程本身不是主线程
+        assertNotNull(new CategoryDao(context).getAllCategories());
+    }
+
+    @Test
+    public void run_deliversErrorOnMainThread() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        AtomicBoolean onMainThread = new AtomicBoolean();
+        AtomicBoolean resultDelivered = new AtomicBoolean();
+        instrumentation.runOnMainSync(() -> {
+            TestOwner owner = new TestOwner();
+            owner.registry.setCurrentState(Lifecycle.State.RESUMED);
+            DbTaskRunner.run(owner, () -> {
+                throw new IllegalStateException("boom");
+            }, result -> resultDelivered.set(true), e -> {
+                onMainThread.set(Looper.myLooper() == Looper.getMainLooper());
+                error.set(e);
+                done.countDown();
+            });
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof IllegalStateException);
+        assertTrue(onMainThread.get());
+        assertFalse(resultDelivered.get());
+    }
+
+    private static final class TestOwner implements LifecycleOwner {
+        final LifecycleRegistry registry = new LifecycleRegistry(this);
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return registry;
+        }
+    }
+}
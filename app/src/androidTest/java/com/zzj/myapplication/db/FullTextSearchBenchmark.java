@@ -0,0 +1,59 @@
+package com.zzj.myapplication.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * 全文检索基准：50 万条备注上前缀检索与 LIKE '%x%' 的耗时对比，结果写入日志
+ * (耗时与设备有关，不随测试运行；需要时去掉 @Ignore 手动运行)
+ */
+@Ignore("基准测试，手动运行")
+@RunWith(AndroidJUnit4.class)
+public class FullTextSearchBenchmark {
+
+    private static final String TAG = "FullTextSearchBenchmark";
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = SQLiteDatabase.create(null);
+        DatabaseHelper.createBaseSchema(db);
+        Migrations.migrate(db, Migrations.BASE_VERSION, Migrations.latestVersion());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void prefixSearchVsLikeOn500kNotes() {
+        FullTextSearchTest.insertRecords(db, 500_000);
+
+        String[] terms = {"no12345", "no4999", "zebr"};
+        for (String term : terms) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            int ftsRows = FullTextSearchTest.rows(db, FullTextSearchTest.SEARCH_SQL, SearchIndex.toMatchQuery(term));
+            long ftsNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+            start = SystemClock.elapsedRealtimeNanos();
+            int likeRows = FullTextSearchTest.rows(db, FullTextSearchTest.LIKE_SQL, "%" + term + "%");
+            long likeNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+            Log.i(TAG, term + ": fts " + ftsNanos / 1000 + "us, like " + likeNanos / 1000 + "us");
+            assertEquals(term, likeRows, ftsRows);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.zzj.myapplication.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 全文索引测试
+ * 检查触发器同步，并确认前缀检索走全文索引而不扫描记录表，结果与 LIKE '%x%' 一致
+ * (50 万条备注上的耗时对比见 {@link FullTextSearchBenchmark})
+ */
+@RunWith(AndroidJUnit4.class)
+public class FullTextSearchTest {
+
+    private static final String[] WORDS = {"lunch", "coffee", "taxi", "metro", "groceries", "movie", "rent", "books",
+            "午饭", "咖啡", "打车", "超市"};
+
+    static final String SEARCH_SQL = "SELECT " + DatabaseHelper.COLUMN_ID + " FROM " + DatabaseHelper.TABLE_RECORDS
+            + " WHERE " + DatabaseHelper.COLUMN_ID + " IN (" + SearchIndex.RECORDS_MATCH + ")"
+            + " ORDER BY date DESC, _id DESC LIMIT 50";
+    static final String LIKE_SQL = "SELECT " + DatabaseHelper.COLUMN_ID + " FROM " + DatabaseHelper.TABLE_RECORDS
+            + " WHERE note LIKE ? ORDER BY date DESC, _id DESC LIMIT 50";
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = SQLiteDatabase.create(null);
+        DatabaseHelper.createBaseSchema(db);
+        Migrations.migrate(db, Migrations.BASE_VERSION, Migrations.latestVersion());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void triggers_keepIndexInSync() {
+        insertRecords(db, 100);
+        db.execSQL("INSERT INTO items (name, status, record_id, purchase_date, price, photo_path) VALUES ('机械键盘', 0, 1, 0, 99, NULL)");
+
+        assertEquals(1, count("\"no42*\""));
+        db.execSQL("UPDATE records SET note = 'zebra crossing' WHERE _id = 42");
+        assertEquals(0, count("\"no42*\""));
+        assertEquals(1, count("\"zebr*\""));
+        db.execSQL("DELETE FROM records WHERE _id = 42");
+        assertEquals(0, count("\"zebr*\""));
+
+        // 只改金额时索引不变
+        db.execSQL("UPDATE records SET amount = amount + 1 WHERE _id = 7");
+        assertEquals(1, count("\"no7\""));
+
+        try (Cursor cursor = db.rawQuery(SearchIndex.ITEMS_MATCH, new String[]{SearchIndex.toMatchQuery("机械键盘")})) {
+            assertEquals(1, cursor.getCount());
+        }
+    }
+
+    @Test
+    public void prefixSearch_usesIndexInsteadOfScan() {
+        insertRecords(db, 20_000);
+
+        List<String> plan = queryPlan(SEARCH_SQL, SearchIndex.toMatchQuery("no12345"));
+        boolean usesFts = false;
+        for (String step : plan) {
+            assertFalse(plan.toString(), scansRecords(step));
+            if (step.contains(SearchIndex.TABLE_RECORDS_FTS + " VIRTUAL TABLE")) usesFts = true;
+        }
+        assertTrue(plan.toString(), usesFts);
+
+        // 对照：LIKE '%x%' 无法使用索引，只能扫描记录表
+        List<String> likePlan = queryPlan(LIKE_SQL, "%no12345%");
+        boolean likeScans = false;
+        for (String step : likePlan) {
+            if (scansRecords(step)) likeScans = true;
+        }
+        assertTrue(likePlan.toString(), likeScans);
+
+        String[] terms = {"no12345", "no4999", "coff", "zebr"};
+        for (String term : terms) {
+            assertEquals(term, rows(db, LIKE_SQL, "%" + term + "%"), rows(db, SEARCH_SQL, SearchIndex.toMatchQuery(term)));
+        }
+    }
+
+    /**
+     * EXPLAIN QUERY PLAN 输出的各个步骤
+     */
+    private List<String> queryPlan(String sql, String arg) {
+        List<String> steps = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, new String[]{arg})) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                steps.add(cursor.getString(detail));
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * 是否为逐行扫描记录表 (包括按索引顺序扫描全部行) 的步骤；旧版本 SQLite 的输出为 "SCAN TABLE records"
+     */
+    private static boolean scansRecords(String step) {
+        return step.matches("SCAN (TABLE )?" + DatabaseHelper.TABLE_RECORDS + "( .*)?");
+    }
+
+    /**
+     * 插入 count 条记录，备注为随机词语加唯一编号 "no{i}"
+     */
+    static void insertRecords(SQLiteDatabase db, int count) {
+        Random random = new Random(42);
+        SQLiteStatement insert = db.compileStatement("INSERT INTO records (amount, type, category_id, account_id, date, note)"
+                + " VALUES (1, 0, 1, 1, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 1; i <= count; i++) {
+                insert.bindLong(1, 1_700_000_000_000L + i * 60_000L);
+                insert.bindString(2, WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " no" + i);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    private int count(String match) {
+        return rows(db, SearchIndex.RECORDS_MATCH, match);
+    }
+
+    static int rows(SQLiteDatabase db, String sql, String arg) {
+        try (Cursor cursor = db.rawQuery(sql, new String[]{arg})) {
+            return cursor.getCount();
+        }
+    }
+}
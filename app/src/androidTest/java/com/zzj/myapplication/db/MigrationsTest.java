@@ -0,0 +1,114 @@
+package com.zzj.myapplication.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * 数据库迁移测试
+ * 在内存数据库上构造版本 1 的结构，执行迁移后检查数据是否保留、索引是否生效
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationsTest {
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = SQLiteDatabase.create(null);
+        DatabaseHelper.createBaseSchema(db);
+        db.execSQL("INSERT INTO accounts (name, type, balance) VALUES ('现金', 'Cash', 10)");
+        db.execSQL("INSERT INTO categories (name, type, icon_res) VALUES ('餐饮', 0, 'ic_food')");
+        for (int i = 0; i < 100; i++) {
+            db.execSQL("INSERT INTO records (amount, type, category_id, account_id, date, note) VALUES (?, 0, 1, 1, ?, ?)",
+                    new Object[]{i + 0.5, 1000L * i, "note " + i});
+        }
+        db.execSQL("INSERT INTO items (name, status, record_id, purchase_date, price, photo_path) VALUES ('键盘', 0, 1, 0, 99, NULL)");
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void migrateToLatest_preservesData() {
+        Migrations.migrate(db, Migrations.BASE_VERSION, Migrations.latestVersion());
+
+        assertEquals(100, count("SELECT COUNT(*) FROM records"));
+        assertEquals(1, count("SELECT COUNT(*) FROM items"));
+        assertEquals(1, count("SELECT COUNT(*) FROM accounts"));
+        assertEquals(1, count("SELECT COUNT(*) FROM categories"));
+    }
+
+    @Test
+    public void migrateToLatest_convertsMoneyToIntegerCents() {
+        Migrations.migrate(db, Migrations.BASE_VERSION, Migrations.latestVersion());
+
+        // 0.5 + 1.5 + ... + 99.5 = 5000 元
+        assertEquals(500_000, count("SELECT SUM(amount) FROM records"));
+        assertEquals(100, count("SELECT COUNT(*) FROM records WHERE typeof(amount) = 'integer' AND amount = (_id - 1) * 100 + 50"));
+        assertEquals(1000, count("SELECT balance FROM accounts"));
+        assertEquals(9900, count("SELECT price FROM items"));
+        assertEquals(500_000, count("SELECT SUM(total) FROM monthly_summary WHERE typeof(total) = 'integer'"));
+
+        // 重建后的表上触发器和自增计数都已恢复
+        db.execSQL("DELETE FROM records WHERE _id = 100");
+        db.execSQL("INSERT INTO records (amount, type, category_id, account_id, date, note) VALUES (1, 0, 1, 1, 0, 'new')");
+        assertEquals(101, count("SELECT MAX(_id) FROM records"));
+        assertEquals(0, MonthlySummaryDao.countMismatches(db));
+        assertEquals(1, count("SELECT COUNT(*) FROM records_fts WHERE records_fts MATCH 'new'"));
+        // 未开启增量备份时不记录变更日志
+        assertFalse(ChangeJournal.isEnabled(db));
+        assertEquals(0, count("SELECT COUNT(*) FROM change_journal"));
+    }
+
+    @Test
+    public void dateRangeQuery_usesDateIndex() {
+        Migrations.migrate(db, Migrations.BASE_VERSION, Migrations.latestVersion());
+
+        String plan = queryPlan("SELECT * FROM records WHERE date >= 0 AND date <= 50000 ORDER BY date DESC");
+        assertTrue(plan, plan.contains(Migrations.INDEX_RECORDS_DATE));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void categoryAndAccountQueries_useIndexes() {
+        Migrations.migrate(db, Migrations.BASE_VERSION, Migrations.latestVersion());
+
+        String byCategory = queryPlan("SELECT * FROM records WHERE category_id = 1 AND date >= 0 ORDER BY date DESC");
+        assertTrue(byCategory, byCategory.contains(Migrations.INDEX_RECORDS_CATEGORY_DATE));
+
+        String byAccount = queryPlan("SELECT * FROM records WHERE account_id = 1 AND date >= 0 ORDER BY date DESC");
+        assertTrue(byAccount, byAccount.contains(Migrations.INDEX_RECORDS_ACCOUNT_DATE));
+
+        String items = queryPlan("SELECT * FROM items WHERE record_id = 1");
+        assertTrue(items, items.contains(Migrations.INDEX_ITEMS_RECORD_ID));
+    }
+
+    private long count(String sql) {
+        try (Cursor cursor = db.rawQuery(sql, null)) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+
+    private String queryPlan(String sql) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, null)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
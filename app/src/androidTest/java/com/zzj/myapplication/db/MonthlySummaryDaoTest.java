@@ -0,0 +1,81 @@
+package com.zzj.myapplication.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.*;
+
+/**
+ * 月度汇总表触发器测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class MonthlySummaryDaoTest {
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = SQLiteDatabase.create(null);
+        DatabaseHelper.createBaseSchema(db);
+        Migrations.migrate(db, Migrations.BASE_VERSION, Migrations.latestVersion());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void triggers_keepSummaryInSyncWithRecords() {
+        long jan = millis(2024, Calendar.JANUARY, 15);
+        long feb = millis(2024, Calendar.FEBRUARY, 3);
+        for (int i = 0; i < 20; i++) {
+            insertRecord(10 + i, i % 2, 1 + i % 3, 1 + i % 2, i % 4 == 0 ? feb : jan);
+        }
+        assertEquals(0, MonthlySummaryDao.countMismatches(db));
+
+        db.execSQL("UPDATE records SET amount = amount * 2, date = ? WHERE _id % 3 = 0", new Object[]{feb});
+        assertEquals(0, MonthlySummaryDao.countMismatches(db));
+
+        db.execSQL("DELETE FROM records WHERE _id % 5 = 0");
+        assertEquals(0, MonthlySummaryDao.countMismatches(db));
+
+        db.execSQL("DELETE FROM records");
+        assertEquals(0, MonthlySummaryDao.countMismatches(db));
+        try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM monthly_summary", null)) {
+            cursor.moveToFirst();
+            assertEquals(0, cursor.getInt(0));
+        }
+    }
+
+    @Test
+    public void rebuild_repairsDrift() {
+        insertRecord(42, 0, 1, 1, millis(2024, Calendar.MARCH, 1));
+        db.execSQL("UPDATE monthly_summary SET total = total + 1");
+        assertEquals(1, MonthlySummaryDao.countMismatches(db));
+
+        MonthlySummaryDao.rebuild(db);
+        assertEquals(0, MonthlySummaryDao.countMismatches(db));
+    }
+
+    private void insertRecord(long amount, int type, int categoryId, int accountId, long date) {
+        db.execSQL("INSERT INTO records (amount, type, category_id, account_id, date, note) VALUES (?, ?, ?, ?, ?, NULL)",
+                new Object[]{amount, type, categoryId, accountId, date});
+    }
+
+    private static long millis(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, 12, 0);
+        return calendar.getTimeInMillis();
+    }
+}
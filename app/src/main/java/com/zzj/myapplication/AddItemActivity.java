@@ -4,6 +4,7 @@ import android.app.DatePickerDialog;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.util.Log;
 import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.Toast;
@@ -15,8 +16,10 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import androidx.appcompat.widget.Toolbar;
 import android.widget.EditText;
+import com.zzj.myapplication.db.DbTaskRunner;
 import com.zzj.myapplication.db.ItemDao;
 import com.zzj.myapplication.model.Item;
+import com.zzj.myapplication.model.Money;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -28,6 +31,8 @@ import java.util.Locale;
  */
 public class AddItemActivity extends AppCompatActivity {
 
+    private static final String TAG = "AddItemActivity";
+
     private EditText etName, etPrice, etDateDisplay;
     private ImageView ivPhoto;
     private android.view.View cardPhoto;
@@ -93,12 +98,7 @@ public class AddItemActivity extends AppCompatActivity {
             if (getSupportActionBar() != null) {
                 getSupportActionBar().setTitle("编辑物品");
             }
-            try {
-                loadItemData(editingItemId);
-            } catch (Exception e) {
-                e.printStackTrace();
-                Toast.makeText(this, "加载数据失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            }
+            loadItemData(editingItemId);
         } else {
             selectedDate = System.currentTimeMillis();
             updateDateDisplay(); // 初始化为今天
@@ -120,13 +120,28 @@ public class AddItemActivity extends AppCompatActivity {
      * @param id 物品ID
      */
     private void loadItemData(int id) {
-        editingItem = itemDao.getItem(id);
+        DbTaskRunner.run(this, () -> itemDao.getItem(id), item -> {
+            try {
+                showItemData(item);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to show item " + id, e);
+                Toast.makeText(this, "加载数据失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        }, e -> Toast.makeText(this, "加载数据失败", Toast.LENGTH_SHORT).show());
+    }
+
+    /**
+     * 将已有物品数据填充到表单
+     * @param item 物品对象，为 null 时不做处理
+     */
+    private void showItemData(Item item) {
+        editingItem = item;
         if (editingItem != null) {
             // 安全设置文本
             String name = editingItem.getName();
             etName.setText(name != null ? name : "");
             
-            etPrice.setText(String.valueOf(editingItem.getPrice()));
+            etPrice.setText(Money.format(editingItem.getPrice()));
             selectedDate = editingItem.getPurchaseDate();
             selectedPhotoPath = editingItem.getPhotoPath();
             
@@ -192,33 +207,55 @@ public class AddItemActivity extends AppCompatActivity {
             return;
         }
 
-        double price = 0;
+        long price = 0;
         if (!priceStr.isEmpty()) {
-            price = Double.parseDouble(priceStr);
+            try {
+                price = Money.parse(priceStr);
+            } catch (NumberFormatException e) {
+                Toast.makeText(this, "请输入有效的价格", Toast.LENGTH_SHORT).show();
+                return;
+            }
+        }
+
+        if (isEditMode && editingItem == null) {
+            // 待编辑的物品仍在后台加载
+            Toast.makeText(this, "数据加载中，请稍候", Toast.LENGTH_SHORT).show();
+            return;
         }
 
-        if (isEditMode && editingItem != null) {
+        if (isEditMode) {
             // 更新逻辑
             editingItem.setName(name);
             editingItem.setPrice(price);
             editingItem.setPurchaseDate(selectedDate);
             editingItem.setPhotoPath(selectedPhotoPath);
-            
-            itemDao.updateItem(editingItem);
-            // 提示框
-            Toast.makeText(this, "更新成功", Toast.LENGTH_SHORT).show();
+
+            Item item = editingItem;
+            btnSave.setEnabled(false);
+            DbTaskRunner.run(this, () -> itemDao.updateItem(item), rows -> {
+                // 提示框
+                Toast.makeText(this, "更新成功", Toast.LENGTH_SHORT).show();
+                finish();
+            }, e -> {
+                btnSave.setEnabled(true);
+                Toast.makeText(this, "更新失败", Toast.LENGTH_SHORT).show();
+            });
         } else {
             // 创建物品对象
             Item item = new Item(name, Item.STATUS_IN_USE, null, selectedDate, price, selectedPhotoPath);
-            long id = itemDao.addItem(item);
-    
-            if (id > 0) {
-                Toast.makeText(this, "保存成功", Toast.LENGTH_SHORT).show();
-            } else {
+            btnSave.setEnabled(false);
+            DbTaskRunner.run(this, () -> itemDao.addItem(item), id -> {
+                if (id > 0) {
+                    Toast.makeText(this, "保存成功", Toast.LENGTH_SHORT).show();
+                    finish();
+                } else {
+                    btnSave.setEnabled(true);
+                    Toast.makeText(this, "保存失败", Toast.LENGTH_SHORT).show();
+                }
+            }, e -> {
+                btnSave.setEnabled(true);
                 Toast.makeText(this, "保存失败", Toast.LENGTH_SHORT).show();
-                return;
-            }
+            });
         }
-        finish();
     }
 }
@@ -14,9 +14,12 @@ import android.widget.EditText;
 import android.widget.RadioGroup;
 import com.zzj.myapplication.db.AccountDao;
 import com.zzj.myapplication.db.CategoryDao;
+import com.zzj.myapplication.db.DbTaskRunner;
 import com.zzj.myapplication.db.RecordDao;
+import com.zzj.myapplication.db.ReferenceCache;
 import com.zzj.myapplication.model.Account;
 import com.zzj.myapplication.model.Category;
+import com.zzj.myapplication.model.Money;
 import com.zzj.myapplication.model.Record;
 
 import java.text.SimpleDateFormat;
@@ -43,8 +46,8 @@ public class AddRecordActivity extends AppCompatActivity {
     private CategoryDao categoryDao;
     private RecordDao recordDao;
 
-    private List<Account> accountList;
-    private List<Category> categoryList;
+    private List<Account> accountList = new ArrayList<>();
+    private List<Category> categoryList = new ArrayList<>();
     private int currentType = Record.TYPE_EXPENSE; // 默认为支出
     
     private int selectedCategoryIndex = -1;
@@ -151,20 +154,40 @@ public class AddRecordActivity extends AppCompatActivity {
      * 加载账户列表并填充账户下拉框
      */
     private void loadAccounts() {
-        accountList = accountDao.getAllAccounts();
-        List<String> accountNames = new ArrayList<>();
-        for (Account account : accountList) {
-            accountNames.add(account.getName());
-        }
-        ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_dropdown_item_1line, accountNames);
-        actvAccount.setAdapter(adapter);
+        DbTaskRunner.run(this, () -> accountDao.getAllAccounts(), accounts -> {
+            accountList = accounts;
+            List<String> accountNames = new ArrayList<>();
+            for (Account account : accountList) {
+                accountNames.add(account.getName());
+            }
+            ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_dropdown_item_1line, accountNames);
+            actvAccount.setAdapter(adapter);
+        }, e -> Toast.makeText(this, "加载账户失败", Toast.LENGTH_SHORT).show());
     }
 
     /**
      * 根据当前选中的收支类型加载分类列表
+     * 分类缓存已加载时直接从内存读取，切换收支类型不再查询数据库
      */
     private void loadCategories() {
-        categoryList = categoryDao.getCategoriesByType(currentType);
+        int type = currentType;
+        ReferenceCache.Index<Category> cached = ReferenceCache.peekCategories();
+        if (cached != null) {
+            showCategories(cached.ofType(type));
+            return;
+        }
+        DbTaskRunner.run(this, () -> categoryDao.getCategoriesByType(type), categories -> {
+            if (type != currentType) return; // 加载期间用户又切换了收支类型
+            showCategories(categories);
+        }, e -> Toast.makeText(this, "加载分类失败", Toast.LENGTH_SHORT).show());
+    }
+
+    /**
+     * 填充分类下拉框
+     * @param categories 当前收支类型下的分类
+     */
+    private void showCategories(List<Category> categories) {
+        categoryList = categories;
         List<String> categoryNames = new ArrayList<>();
         for (Category category : categoryList) {
             categoryNames.add(category.getName());
@@ -175,7 +198,7 @@ public class AddRecordActivity extends AppCompatActivity {
 
     /**
      * 保存记账记录到数据库
-     * 同时更新关联账户的余额
+     * 关联账户的余额由 RecordDao 在同一事务中更新
      */
     private void saveRecord() {
         String amountStr = etAmount.getText().toString();
@@ -186,7 +209,13 @@ public class AddRecordActivity extends AppCompatActivity {
             return;
         }
 
-        double amount = Double.parseDouble(amountStr);
+        long amount;
+        try {
+            amount = Money.parse(amountStr);
+        } catch (NumberFormatException e) {
+            Toast.makeText(this, "请输入有效的金额", Toast.LENGTH_SHORT).show();
+            return;
+        }
         
         // 验证分类和账户是否已选择
         // 注意：由于用户可能不通过点击 item，而是直接输入（虽然 inputType设为了none），
@@ -236,22 +265,19 @@ public class AddRecordActivity extends AppCompatActivity {
         record.setDate(selectedDate);
         record.setNote(note);
 
-        // 1. 保存记录
-        long recordId = recordDao.addRecord(record);
-
-        if (recordId > 0) {
-            // 2. 更新关联账户的余额
-            if (currentType == Record.TYPE_INCOME) {
-                selectedAccount.setBalance(selectedAccount.getBalance() + amount);
+        // 保存记录，账户余额在同一事务中更新
+        btnSave.setEnabled(false);
+        DbTaskRunner.run(this, () -> recordDao.addRecord(record), recordId -> {
+            if (recordId > 0) {
+                Toast.makeText(this, "记录保存成功", Toast.LENGTH_SHORT).show();
+                finish();
             } else {
-                selectedAccount.setBalance(selectedAccount.getBalance() - amount);
+                btnSave.setEnabled(true);
+                Toast.makeText(this, "保存失败", Toast.LENGTH_SHORT).show();
             }
-            accountDao.updateAccount(selectedAccount);
-
-            Toast.makeText(this, "记录保存成功", Toast.LENGTH_SHORT).show();
-            finish();
-        } else {
+        }, e -> {
+            btnSave.setEnabled(true);
             Toast.makeText(this, "保存失败", Toast.LENGTH_SHORT).show();
-        }
+        });
     }
 }
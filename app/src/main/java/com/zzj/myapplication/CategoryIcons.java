@@ -0,0 +1,105 @@
+package com.zzj.myapplication;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+
+import com.zzj.myapplication.model.Category;
+
+/**
+ * 分类图标缓存 (进程内共享)
+ * 分类的图标资源名 (Category.iconResName) 在分类创建后不再变化，每个分类只用 getIdentifier 解析一次，
+ * 结果存入以分类 id 为下标的数组；同一张表里还缓存图标 Drawable 的 ConstantState，
+ * 各行通过 newDrawable 共享同一份图形数据 (矢量图的光栅化缓存)，绑定时不再经过资源查找。
+ * 缓存表是静态的，所有列表和页面共用，重新创建页面或适配器后不必再次解析。
+ *
+ * 表项记录解析时对应的 Category 实例：ReferenceCache 重新加载分类后实例变化，该项在下一次使用时重新解析。
+ * 只在主线程使用 (列表绑定)。
+ */
+public final class CategoryIcons {
+
+    /**
+     * 没有图标或资源不存在时使用的图标
+     */
+    static final int FALLBACK_ICON = android.R.drawable.ic_menu_help;
+
+    // 分类 id 超过此值时不进入缓存表，直接解析
+    private static final int MAX_CACHED_ID = 1 << 16;
+
+    private static Category[] owners = new Category[0];
+    private static int[] resIds = new int[0];
+    private static Drawable.ConstantState[] states = new Drawable.ConstantState[0];
+    /**
+     * getIdentifier 的调用次数
+     */
+    static int lookups;
+
+    private CategoryIcons() {}
+
+    /**
+     * 分类图标的资源 id，没有图标或资源不存在时返回 {@link #FALLBACK_ICON}
+     */
+    public static int resId(Context context, Category category) {
+        int slot = slot(context, category);
+        return slot >= 0 ? resIds[slot] : resolve(context, category.getIconResName());
+    }
+
+    /**
+     * 分类图标 (每次返回新的 Drawable 实例，图形数据在各行之间共享)
+     * @param context 用于创建 Drawable (使用列表所在页面的 Context，保证主题一致)
+     */
+    public static Drawable drawable(Context context, Category category) {
+        int slot = slot(context, category);
+        if (slot < 0) return context.getDrawable(resolve(context, category.getIconResName()));
+
+        Drawable.ConstantState state = states[slot];
+        if (state != null) return state.newDrawable(context.getResources(), context.getTheme());
+        Drawable drawable = context.getDrawable(resIds[slot]);
+        if (drawable != null) states[slot] = drawable.getConstantState();
+        return drawable;
+    }
+
+    /**
+     * 清空缓存表 (测试用)
+     */
+    static void clear() {
+        owners = new Category[0];
+        resIds = new int[0];
+        states = new Drawable.ConstantState[0];
+        lookups = 0;
+    }
+
+    /**
+     * 分类在缓存表中的下标，必要时解析图标；不进入缓存的分类返回 -1
+     */
+    private static int slot(Context context, Category category) {
+        int id = category.getId();
+        if (id < 0 || id >= MAX_CACHED_ID) return -1;
+        if (id >= owners.length) grow(id);
+        if (owners[id] != category) {
+            owners[id] = category;
+            resIds[id] = resolve(context, category.getIconResName());
+            states[id] = null;
+        }
+        return id;
+    }
+
+    private static int resolve(Context context, String iconName) {
+        if (iconName == null || iconName.isEmpty()) return FALLBACK_ICON;
+        lookups++;
+        int resId = context.getResources().getIdentifier(iconName, "drawable", context.getPackageName());
+        return resId != 0 ? resId : FALLBACK_ICON;
+    }
+
+    private static void grow(int id) {
+        int length = Math.min(Math.max(id + 1, owners.length * 2), MAX_CACHED_ID);
+        Category[] newOwners = new Category[length];
+        int[] newResIds = new int[length];
+        Drawable.ConstantState[] newStates = new Drawable.ConstantState[length];
+        System.arraycopy(owners, 0, newOwners, 0, owners.length);
+        System.arraycopy(resIds, 0, newResIds, 0, resIds.length);
+        System.arraycopy(states, 0, newStates, 0, states.length);
+        owners = newOwners;
+        resIds = newResIds;
+        states = newStates;
+    }
+}
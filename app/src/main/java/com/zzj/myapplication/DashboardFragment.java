@@ -11,10 +11,16 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
 
 import com.zzj.myapplication.db.AccountDao;
-import com.zzj.myapplication.db.RecordDao;
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.db.DbTaskRunner;
+import com.zzj.myapplication.db.MonthlySummaryDao;
+import com.zzj.myapplication.db.TableVersions;
 import com.zzj.myapplication.model.Account;
+import com.zzj.myapplication.model.Money;
 import com.zzj.myapplication.model.Record;
 
 import java.util.Calendar;
@@ -35,7 +41,8 @@ public class DashboardFragment extends Fragment {
     private Button btnAddRecord;
 
     private AccountDao accountDao;
-    private RecordDao recordDao;
+    private MonthlySummaryDao monthlySummaryDao;
+    private DashboardState state;
 
     // 背景音乐
     private android.media.MediaPlayer mediaPlayer;
@@ -59,7 +66,12 @@ public class DashboardFragment extends Fragment {
 
         // 初始化数据访问对象
         accountDao = new AccountDao(getContext());
-        recordDao = new RecordDao(getContext());
+        monthlySummaryDao = new MonthlySummaryDao(getContext());
+
+        // 先显示缓存的数据 (如果有)，onResume 时再判断是否需要刷新
+        state = new ViewModelProvider(this).get(DashboardState.class);
+        showTotalBalance();
+        showMonthTotals();
 
         // 点击 "记一笔" 按钮跳转到记账页面
         btnAddRecord.setOnClickListener(v -> {
@@ -116,51 +128,85 @@ public class DashboardFragment extends Fragment {
 
     /**
      * Fragment 可见时回调
-     * 重新加载数据以刷新显示
+     * 仅在相关数据发生变化时重新加载
      */
     @Override
     public void onResume() {
         super.onResume();
-        // 每次页面可见时重新加载数据
         loadData();
     }
 
     /**
      * 加载并计算财务数据 (总资产、本月收支)
+     * 数据库读取在后台线程完成，结果回到主线程更新 UI；依赖的表没有变化时直接使用缓存
      */
     private void loadData() {
-        // 1. 计算所有账户的总资产
-        List<Account> accounts = accountDao.getAllAccounts();
-        double totalBalance = 0;
-        for (Account account : accounts) {
-            totalBalance += account.getBalance();
-        }
-        tvTotalBalance.setText(String.format("¥%.2f", totalBalance));
+        loadTotalBalance();
+        loadMonthTotals();
+    }
 
-        // 2. 计算本月收入和支出
-        List<Record> records = recordDao.getAllRecords();
-        double monthIncome = 0;
-        double monthExpense = 0;
+    /**
+     * 计算所有账户的总资产
+     */
+    private void loadTotalBalance() {
+        if (!state.balanceStamp.isStale()) return;
+        long[] versions = state.balanceStamp.snapshot();
+        DbTaskRunner.run(getViewLifecycleOwner(), () -> {
+            List<Account> accounts = accountDao.getAllAccounts();
+            long totalBalance = 0;
+            for (Account account : accounts) {
+                totalBalance += account.getBalance();
+            }
+            return totalBalance;
+        }, totalBalance -> {
+            state.balanceStamp.markSeen(versions);
+            state.totalBalance = totalBalance;
+            showTotalBalance();
+        });
+    }
 
-        // 获取当前时间
+    /**
+     * 本月收入和支出 (直接读取月度汇总表)
+     */
+    private void loadMonthTotals() {
         Calendar calendar = Calendar.getInstance();
-        int currentMonth = calendar.get(Calendar.MONTH);
-        int currentYear = calendar.get(Calendar.YEAR);
-
-        for (Record record : records) {
-            calendar.setTimeInMillis(record.getDate());
-            // 筛选当前年份和月份的记录
-            if (calendar.get(Calendar.MONTH) == currentMonth && calendar.get(Calendar.YEAR) == currentYear) {
-                if (record.getType() == Record.TYPE_INCOME) {
-                    monthIncome += record.getAmount();
-                } else {
-                    monthExpense += record.getAmount();
-                }
-            }
-        }
+        int year = calendar.get(Calendar.YEAR);
+        int month = calendar.get(Calendar.MONTH) + 1;
+        int yearMonth = year * 100 + month;
+        // 跨月后即使没有写入也需要重新查询
+        if (yearMonth == state.yearMonth && !state.monthStamp.isStale()) return;
+
+        long[] versions = state.monthStamp.snapshot();
+        DbTaskRunner.run(getViewLifecycleOwner(), () -> monthlySummaryDao.getMonthTotals(year, month), monthTotals -> {
+            state.monthStamp.markSeen(versions);
+            state.yearMonth = yearMonth;
+            state.monthTotals = monthTotals;
+            showMonthTotals();
+        });
+    }
 
+    private void showTotalBalance() {
+        if (state.totalBalance == null) return;
+        tvTotalBalance.setText("¥" + Money.format(state.totalBalance));
+    }
+
+    private void showMonthTotals() {
+        if (state.monthTotals == null) return;
         // 更新 UI 显示
-        tvMonthIncome.setText(String.format("¥%.2f", monthIncome));
-        tvMonthExpense.setText(String.format("¥%.2f", monthExpense));
+        tvMonthIncome.setText("¥" + Money.format(state.monthTotals[Record.TYPE_INCOME]));
+        tvMonthExpense.setText("¥" + Money.format(state.monthTotals[Record.TYPE_EXPENSE]));
+    }
+
+    /**
+     * 首页已加载的数据及其对应的表版本
+     * 保存在 ViewModel 中，切换底部标签后返回时可直接复用，无需重新查询
+     */
+    public static class DashboardState extends ViewModel {
+        final TableVersions.Stamp balanceStamp = new TableVersions.Stamp(DatabaseHelper.TABLE_ACCOUNTS);
+        final TableVersions.Stamp monthStamp = new TableVersions.Stamp(
+                DatabaseHelper.TABLE_RECORDS, DatabaseHelper.TABLE_MONTHLY_SUMMARY);
+        Long totalBalance; // 分，null 表示尚未加载
+        long[] monthTotals; // 分
+        int yearMonth; // monthTotals 对应的月份 (yyyyMM)
     }
 }
@@ -8,20 +8,50 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.zzj.myapplication.model.Item;
+import com.zzj.myapplication.model.Money;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 物品列表适配器
  * 负责绑定物品数据到 RecyclerView
+ * 列表更新时在后台线程计算差异 (DiffUtil)，只通知增删改的行；以物品 id 作为稳定 id
  */
 public class ItemAdapter extends RecyclerView.Adapter<ItemAdapter.ViewHolder> {
 
-    private List<Item> itemList;
+    /**
+     * 局部刷新：隐私模式切换，只重新绑定金额和日均成本
+     */
+    static final Object PAYLOAD_PRIVACY = new Object();
+
+    private static final DiffUtil.ItemCallback<Item> DIFF_CALLBACK = new DiffUtil.ItemCallback<Item>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && oldItem.getStatus() == newItem.getStatus()
+                    && Objects.equals(oldItem.getRecordId(), newItem.getRecordId())
+                    && oldItem.getPurchaseDate() == newItem.getPurchaseDate()
+                    && oldItem.getPrice() == newItem.getPrice()
+                    && Objects.equals(oldItem.getPhotoPath(), newItem.getPhotoPath());
+        }
+    };
+
+    private final AsyncListDiffer<Item> differ;
     private OnItemClickListener listener;
     private boolean isPrivacyMode = false; // 隐私模式状态
 
@@ -33,24 +63,38 @@ public class ItemAdapter extends RecyclerView.Adapter<ItemAdapter.ViewHolder> {
     }
 
     public ItemAdapter(List<Item> itemList, OnItemClickListener listener) {
-        this.itemList = itemList;
+        this(itemList, listener, null);
+    }
+
+    /**
+     * @param diffExecutor 计算差异的后台线程池，为 null 时使用 AsyncListDiffer 的默认线程池 (测试中传入同步执行器)
+     */
+    ItemAdapter(List<Item> itemList, OnItemClickListener listener, Executor diffExecutor) {
         this.listener = listener;
+        AsyncDifferConfig.Builder<Item> config = new AsyncDifferConfig.Builder<>(DIFF_CALLBACK);
+        if (diffExecutor != null) config.setBackgroundThreadExecutor(diffExecutor);
+        differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this), config.build());
+        setHasStableIds(true);
+        differ.submitList(itemList);
     }
 
     /**
      * 更新列表数据
+     * 在后台线程与当前列表比较，完成后在主线程只通知变化的行
+     * @param itemList 新的物品列表，提交后不应再修改
      */
     public void setItemList(List<Item> itemList) {
-        this.itemList = itemList;
-        notifyDataSetChanged();
+        differ.submitList(itemList);
     }
     
     /**
      * 设置隐私模式
+     * 只局部刷新各行的金额和日均成本
      */
     public void setPrivacyMode(boolean isPrivacyMode) {
+        if (isPrivacyMode == this.isPrivacyMode) return;
         this.isPrivacyMode = isPrivacyMode;
-        notifyDataSetChanged();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_PRIVACY);
     }
 
     @NonNull
@@ -67,43 +111,9 @@ public class ItemAdapter extends RecyclerView.Adapter<ItemAdapter.ViewHolder> {
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Item item = itemList.get(position);
+        Item item = differ.getCurrentList().get(position);
         holder.tvName.setText(item.getName());
-        
-        // 处理金额和日均成本显示
-        if (isPrivacyMode) {
-            holder.tvPrice.setText("****");
-            holder.tvDailyCost.setText("****");
-        } else {
-            holder.tvPrice.setText(String.format("¥%.2f", item.getPrice()));
-            
-            // 计算持有天数和日均成本 (需要去除时间部分，只比较日期)
-            long purchaseTime = item.getPurchaseDate();
-            long currentTime = System.currentTimeMillis();
-            
-            // 将两个时间戳转换为 Calendar，清除时分秒
-            java.util.Calendar cal1 = java.util.Calendar.getInstance();
-            cal1.setTimeInMillis(purchaseTime);
-            cal1.set(java.util.Calendar.HOUR_OF_DAY, 0);
-            cal1.set(java.util.Calendar.MINUTE, 0);
-            cal1.set(java.util.Calendar.SECOND, 0);
-            cal1.set(java.util.Calendar.MILLISECOND, 0);
-            
-            java.util.Calendar cal2 = java.util.Calendar.getInstance();
-            cal2.setTimeInMillis(currentTime);
-            cal2.set(java.util.Calendar.HOUR_OF_DAY, 0);
-            cal2.set(java.util.Calendar.MINUTE, 0);
-            cal2.set(java.util.Calendar.SECOND, 0);
-            cal2.set(java.util.Calendar.MILLISECOND, 0);
-            
-            long diffInMillis = cal2.getTimeInMillis() - cal1.getTimeInMillis();
-            long days = TimeUnit.MILLISECONDS.toDays(diffInMillis) + 1; // +1 包含起始日
-            
-            if (days < 1) days = 1; 
-            
-            double dailyCost = item.getPrice() / days;
-            holder.tvDailyCost.setText(String.format("持有%d天 · ¥%.2f/天", days, dailyCost));
-        }
+        bindPrice(holder, item);
         
         String statusText;
         int color;
@@ -146,9 +156,71 @@ public class ItemAdapter extends RecyclerView.Adapter<ItemAdapter.ViewHolder> {
         });
     }
 
+    /**
+     * 局部绑定：payload 只有隐私模式切换时不重新加载图片和设置点击事件
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_PRIVACY) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+        }
+        bindPrice(holder, differ.getCurrentList().get(position));
+    }
+
+    /**
+     * 处理金额和日均成本显示
+     */
+    private void bindPrice(@NonNull ViewHolder holder, Item item) {
+        if (isPrivacyMode) {
+            holder.tvPrice.setText("****");
+            holder.tvDailyCost.setText("****");
+        } else {
+            holder.tvPrice.setText("¥" + Money.format(item.getPrice()));
+            
+            // 计算持有天数和日均成本 (需要去除时间部分，只比较日期)
+            long purchaseTime = item.getPurchaseDate();
+            long currentTime = System.currentTimeMillis();
+            
+            // 将两个时间戳转换为 Calendar，清除时分秒
+            java.util.Calendar cal1 = java.util.Calendar.getInstance();
+            cal1.setTimeInMillis(purchaseTime);
+            cal1.set(java.util.Calendar.HOUR_OF_DAY, 0);
+            cal1.set(java.util.Calendar.MINUTE, 0);
+            cal1.set(java.util.Calendar.SECOND, 0);
+            cal1.set(java.util.Calendar.MILLISECOND, 0);
+            
+            java.util.Calendar cal2 = java.util.Calendar.getInstance();
+            cal2.setTimeInMillis(currentTime);
+            cal2.set(java.util.Calendar.HOUR_OF_DAY, 0);
+            cal2.set(java.util.Calendar.MINUTE, 0);
+            cal2.set(java.util.Calendar.SECOND, 0);
+            cal2.set(java.util.Calendar.MILLISECOND, 0);
+            
+            long diffInMillis = cal2.getTimeInMillis() - cal1.getTimeInMillis();
+            long days = TimeUnit.MILLISECONDS.toDays(diffInMillis) + 1; // +1 包含起始日
+            
+            if (days < 1) days = 1; 
+            
+            double dailyCost = Money.toYuan(item.getPrice()) / days;
+            holder.tvDailyCost.setText(String.format("持有%d天 · ¥%.2f/天", days, dailyCost));
+        }
+    }
+
     @Override
     public int getItemCount() {
-        return itemList.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -12,8 +12,12 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.db.DbTaskRunner;
 import com.zzj.myapplication.db.ItemDao;
+import com.zzj.myapplication.db.TableVersions;
 import com.zzj.myapplication.model.Item;
+import com.zzj.myapplication.model.Money;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -40,6 +44,9 @@ public class ItemDetailActivity extends AppCompatActivity {
     private Button btnUpdate;
     private ItemDao itemDao;
     private int itemId;
+    // 物品表版本，从编辑页或其他页面返回时只有数据变化才重新查询
+    private final TableVersions.Stamp itemStamp = new TableVersions.Stamp(DatabaseHelper.TABLE_ITEMS);
+    private boolean loadPending;
 
     /**
      * Activity 创建时回调
@@ -123,12 +130,29 @@ public class ItemDetailActivity extends AppCompatActivity {
      * 包括基本信息、持有天数计算和状态回显
      */
     private void loadData() {
-        if (itemId == -1) return;
-        Item item = itemDao.getItem(itemId);
+        if (itemId == -1 || loadPending || !itemStamp.isStale()) return;
+
+        long[] versions = itemStamp.snapshot();
+        loadPending = true;
+        DbTaskRunner.run(this, () -> itemDao.getItem(itemId), item -> {
+            loadPending = false;
+            itemStamp.markSeen(versions);
+            showItem(item);
+        }, e -> {
+            loadPending = false;
+            Toast.makeText(this, "加载数据失败", Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    /**
+     * 显示物品信息
+     * @param item 物品对象，为 null 时不做处理
+     */
+    private void showItem(Item item) {
         if (item == null) return;
-        
+
         tvName.setText(item.getName());
-        tvPrice.setText(String.format("¥%.2f", item.getPrice()));
+        tvPrice.setText("¥" + Money.format(item.getPrice()));
         
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
         tvDate.setText("购买日期: " + sdf.format(new Date(item.getPurchaseDate())));
@@ -178,8 +202,14 @@ public class ItemDetailActivity extends AppCompatActivity {
         else if (rbIdle.isChecked()) newStatus = Item.STATUS_IDLE;
         else if (rbLost.isChecked()) newStatus = Item.STATUS_LOST;
 
-        itemDao.updateItemStatus(itemId, newStatus);
-        Toast.makeText(this, "状态已更新", Toast.LENGTH_SHORT).show();
-        finish();
+        int status = newStatus;
+        btnUpdate.setEnabled(false);
+        DbTaskRunner.run(this, () -> itemDao.updateItemStatus(itemId, status), rows -> {
+            Toast.makeText(this, "状态已更新", Toast.LENGTH_SHORT).show();
+            finish();
+        }, e -> {
+            btnUpdate.setEnabled(true);
+            Toast.makeText(this, "更新失败", Toast.LENGTH_SHORT).show();
+        });
     }
 }
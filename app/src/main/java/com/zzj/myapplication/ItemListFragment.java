@@ -11,12 +11,18 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import android.widget.ImageButton;
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.db.DbTaskRunner;
 import com.zzj.myapplication.db.ItemDao;
+import com.zzj.myapplication.db.TableVersions;
 import com.zzj.myapplication.model.Item;
+import com.zzj.myapplication.model.Money;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -34,6 +40,8 @@ public class ItemListFragment extends Fragment {
     private ItemAdapter adapter;
     private ItemDao itemDao;
     private List<Item> itemList;
+    private ItemListState state;
+    private boolean itemsPending;
     
     // 汇总信息视图
     private TextView tvTotalItems, tvTotalCost;
@@ -60,7 +68,10 @@ public class ItemListFragment extends Fragment {
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         
         itemDao = new ItemDao(getContext());
-        itemList = new ArrayList<>();
+        // 先显示缓存的数据 (如果有)
+        state = new ViewModelProvider(this).get(ItemListState.class);
+        itemsPending = false;
+        itemList = state.items != null ? state.items : new ArrayList<>();
         
         // 初始化适配器并设置点击事件
         adapter = new ItemAdapter(itemList, item -> {
@@ -74,6 +85,7 @@ public class ItemListFragment extends Fragment {
             startActivity(intent);
         });
         recyclerView.setAdapter(adapter);
+        updateSummaryUI();
 
         // 点击悬浮按钮跳转到添加物品页面
         fabAddItem.setOnClickListener(v -> {
@@ -107,13 +119,31 @@ public class ItemListFragment extends Fragment {
     }
 
     /**
-     * 从数据库加载物品数据并更新列表
+     * 从数据库加载物品数据并更新列表 (后台读取，主线程刷新)
+     * 物品表没有变化时直接使用已加载的数据
      */
     private void loadItems() {
-        itemList = itemDao.getAllItems();
-        adapter.setItemList(itemList);
-        
-        calculateStats();
+        if (itemsPending || !state.itemsStamp.isStale()) return;
+
+        long[] versions = state.itemsStamp.snapshot();
+        itemsPending = true;
+        DbTaskRunner.run(getViewLifecycleOwner(), () -> itemDao.getAllItems(), items -> {
+            itemsPending = false;
+            state.itemsStamp.markSeen(versions);
+            state.items = items;
+            itemList = items;
+            adapter.setItemList(itemList);
+
+            calculateStats();
+        }, e -> itemsPending = false);
+    }
+
+    /**
+     * 物品页已加载的数据及其对应的表版本，切换底部标签后返回时可直接复用
+     */
+    public static class ItemListState extends ViewModel {
+        final TableVersions.Stamp itemsStamp = new TableVersions.Stamp(DatabaseHelper.TABLE_ITEMS);
+        List<Item> items;
     }
     
     /**
@@ -127,7 +157,7 @@ public class ItemListFragment extends Fragment {
         if (itemList == null) return;
 
         int totalCount = itemList.size();
-        double totalCost = 0;
+        long totalCost = 0;
         
         for (Item item : itemList) {
             totalCost += item.getPrice();
@@ -138,7 +168,7 @@ public class ItemListFragment extends Fragment {
         if (isPrivacyMode) {
             tvTotalCost.setText("****");
         } else {
-            tvTotalCost.setText(String.format("¥%.2f", totalCost));
+            tvTotalCost.setText("¥" + Money.format(totalCost));
         }
     }
 }
@@ -1,5 +1,6 @@
 package com.zzj.myapplication;
 
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 
 import androidx.activity.EdgeToEdge;
@@ -12,6 +13,8 @@ import androidx.navigation.NavController;
 import androidx.navigation.ui.NavigationUI;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.zzj.myapplication.db.DbTaskRunner;
+import com.zzj.myapplication.db.MonthlySummaryDao;
 
 /**
  * 主应用程序入口 Activity
@@ -22,6 +25,10 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // 调试版本开启严格模式：主线程访问数据库直接抛出异常
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            DbTaskRunner.enableStrictMode();
+        }
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_main);
         
@@ -46,5 +53,9 @@ public class MainActivity extends AppCompatActivity {
             // 配置底部导航栏与 NavController 联动
             NavigationUI.setupWithNavController(navView, navController);
         }
+
+        // 时区变化后月度汇总可能按旧时区划分月份，在后台检查并修复 (时区未变时不查询数据库)
+        MonthlySummaryDao monthlySummaryDao = new MonthlySummaryDao(this);
+        DbTaskRunner.run(this, monthlySummaryDao::checkAndRepairIfTimeZoneChanged, null);
     }
 }
\ No newline at end of file
@@ -6,25 +6,55 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.zzj.myapplication.db.ReferenceCache;
 import com.zzj.myapplication.model.Category;
+import com.zzj.myapplication.model.Money;
 import com.zzj.myapplication.model.Record;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * 账单列表适配器
  * 负责绑定账单记录数据到 RecyclerView
+ * 列表更新时在后台线程计算差异 (DiffUtil)，只通知增删改的行；以记录 id 作为稳定 id
  */
 public class RecordAdapter extends RecyclerView.Adapter<RecordAdapter.ViewHolder> {
 
-    private List<Record> recordList;
-    private Map<Integer, Category> categoryMap;
+    /**
+     * 局部刷新：分类索引变化，只重新绑定分类名称和图标
+     */
+    static final Object PAYLOAD_CATEGORY = new Object();
+
+    private static final DiffUtil.ItemCallback<Record> DIFF_CALLBACK = new DiffUtil.ItemCallback<Record>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Record oldItem, @NonNull Record newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Record oldItem, @NonNull Record newItem) {
+            return oldItem.getAmount() == newItem.getAmount()
+                    && oldItem.getType() == newItem.getType()
+                    && oldItem.getCategoryId() == newItem.getCategoryId()
+                    && oldItem.getAccountId() == newItem.getAccountId()
+                    && oldItem.getDate() == newItem.getDate()
+                    && Objects.equals(oldItem.getNote(), newItem.getNote());
+        }
+    };
+
+    private final AsyncListDiffer<Record> differ;
+    private ReferenceCache.Index<Category> categories; // 尚未加载时为 null
     private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
 
     private OnRecordDeleteListener deleteListener;
@@ -41,26 +71,38 @@ public class RecordAdapter extends RecyclerView.Adapter<RecordAdapter.ViewHolder
     }
 
     public RecordAdapter(List<Record> recordList) {
-        this.recordList = recordList;
-        this.categoryMap = new java.util.HashMap<>();
+        this(recordList, null);
+    }
+
+    /**
+     * @param diffExecutor 计算差异的后台线程池，为 null 时使用 AsyncListDiffer 的默认线程池 (测试中传入同步执行器)
+     */
+    RecordAdapter(List<Record> recordList, Executor diffExecutor) {
+        AsyncDifferConfig.Builder<Record> config = new AsyncDifferConfig.Builder<>(DIFF_CALLBACK);
+        if (diffExecutor != null) config.setBackgroundThreadExecutor(diffExecutor);
+        differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this), config.build());
+        setHasStableIds(true);
+        differ.submitList(recordList);
     }
 
     /**
-     * 设置分类映射表
-     * @param categoryMap 分类 ID 到 Category 对象的映射
+     * 设置分类索引 (来自 ReferenceCache，绑定时按 id 直接查找)
+     * 只局部刷新各行的分类名称和图标；索引没有变化时不刷新
+     * @param categories 分类索引
      */
-    public void setCategoryMap(Map<Integer, Category> categoryMap) {
-        this.categoryMap = categoryMap;
-        notifyDataSetChanged();
+    public void setCategories(ReferenceCache.Index<Category> categories) {
+        if (categories == this.categories) return;
+        this.categories = categories;
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_CATEGORY);
     }
 
     /**
-     * 更新列表数据
-     * @param recordList 新的记录列表
+     * 更新列表数据 (包括分页加载后的完整列表)
+     * 在后台线程与当前列表比较，完成后在主线程只通知变化的行；连续提交时以最后一次为准
+     * @param recordList 新的记录列表，提交后不应再修改
      */
     public void setRecordList(List<Record> recordList) {
-        this.recordList = recordList;
-        notifyDataSetChanged();
+        differ.submitList(recordList);
     }
 
     @NonNull
@@ -77,32 +119,11 @@ public class RecordAdapter extends RecyclerView.Adapter<RecordAdapter.ViewHolder
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Record record = recordList.get(position);
-        
-        com.zzj.myapplication.model.Category category = categoryMap.get(record.getCategoryId());
-        String categoryName = "未知分类";
-        if (category != null) {
-            categoryName = category.getName();
-
-            // Load Icon
-            String iconName = category.getIconResName();
-            if (iconName != null && !iconName.isEmpty()) {
-                int resId = holder.itemView.getContext().getResources().getIdentifier(
-                        iconName, "drawable", holder.itemView.getContext().getPackageName());
-                if (resId != 0) {
-                    holder.ivIcon.setImageResource(resId);
-                } else {
-                    holder.ivIcon.setImageResource(android.R.drawable.ic_menu_help);
-                }
-            } else {
-                holder.ivIcon.setImageResource(android.R.drawable.ic_menu_help);
-            }
-        }
-
-        holder.tvCategory.setText(categoryName);
+        Record record = differ.getCurrentList().get(position);
+        bindCategory(holder, record);
         holder.tvNote.setText(record.getNote());
         
-        String amountText = String.format("¥%.2f", record.getAmount());
+        String amountText = "¥" + Money.format(record.getAmount());
         
         // 根据收支类型显示不同颜色和符号
         if (record.getType() == Record.TYPE_EXPENSE) {
@@ -122,9 +143,56 @@ public class RecordAdapter extends RecyclerView.Adapter<RecordAdapter.ViewHolder
         });
     }
 
+    /**
+     * 局部绑定：payload 只有分类变化时不重新设置金额、日期和点击事件
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_CATEGORY) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+        }
+        bindCategory(holder, differ.getCurrentList().get(position));
+    }
+
+    /**
+     * 绑定分类名称和图标
+     * 图标资源 id 和 Drawable 来自进程内共享的 {@link CategoryIcons}，每个分类只解析一次；与当前显示的图标相同时不重新设置
+     */
+    private void bindCategory(@NonNull ViewHolder holder, Record record) {
+        Category category = categories != null ? categories.get(record.getCategoryId()) : null;
+        String categoryName = "未知分类";
+        int resId = CategoryIcons.FALLBACK_ICON;
+        if (category != null) {
+            categoryName = category.getName();
+            resId = CategoryIcons.resId(holder.itemView.getContext(), category);
+        }
+
+        if (holder.iconResId != resId) {
+            if (category != null) {
+                holder.ivIcon.setImageDrawable(CategoryIcons.drawable(holder.itemView.getContext(), category));
+            } else {
+                holder.ivIcon.setImageResource(resId);
+            }
+            holder.iconResId = resId;
+        }
+        holder.tvCategory.setText(categoryName);
+    }
+
     @Override
     public int getItemCount() {
-        return recordList.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -134,6 +202,7 @@ public class RecordAdapter extends RecyclerView.Adapter<RecordAdapter.ViewHolder
         public TextView tvAmount;
         public TextView tvDate;
         public android.widget.ImageButton btnDelete;
+        int iconResId; // 当前显示的图标资源 id，0 表示布局中的默认图标
 
         public ViewHolder(View view) {
             super(view);
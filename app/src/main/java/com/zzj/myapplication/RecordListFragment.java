@@ -9,10 +9,13 @@ import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.Spinner;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -23,17 +26,24 @@ import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
 import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
 import com.zzj.myapplication.db.CategoryDao;
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.db.DbTaskRunner;
 import com.zzj.myapplication.db.RecordDao;
+import com.zzj.myapplication.db.ReferenceCache;
+import com.zzj.myapplication.db.TableVersions;
 import com.zzj.myapplication.model.Category;
+import com.zzj.myapplication.model.Money;
 import com.zzj.myapplication.model.Record;
+import com.zzj.myapplication.stats.Downsampler;
+import com.zzj.myapplication.stats.LedgerStats;
+import com.zzj.myapplication.stats.TimeSeries;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 账单列表 Fragment
@@ -46,16 +56,51 @@ public class RecordListFragment extends Fragment {
     private RecyclerView recyclerView;
     private RecordAdapter adapter;
     private RecordDao recordDao;
+    private LedgerStats ledgerStats;
     private CategoryDao categoryDao;
-    private List<Record> recordList;
+    private RecordListState state;
 
     // UI 控件
     private Spinner spinnerTimeScope;
     private TextView tvSummaryIncome, tvSummaryExpense;
     private LineChart statsChart;
 
-    // 0: 本周, 1: 本月
-    private int currentTimeScope = 1;
+    // 分页加载：每页条数，以及距离列表末尾多少条时预加载下一页
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 10;
+    // 图表序列最多的桶数：时间跨度更大时自动按周/月/年汇总；绘制前再按图表的像素宽度压缩点数
+    private static final int MAX_SERIES_POINTS = 2000;
+    private boolean pageLoadPending;
+    // 正在加载的时间范围，避免重复发起相同的查询
+    private long[] pendingRange;
+    private boolean categoriesPending;
+    // 每次重新加载递增，用于丢弃过期的异步结果
+    private int loadGeneration;
+
+    /**
+     * 后台加载得到的统计数据
+     */
+    private static class StatsResult {
+        long[] totals;
+        TimeSeries series;
+    }
+
+    /**
+     * 账单页已加载的数据及其对应的表版本
+     * 保存在 ViewModel 中，切换底部标签或从其他页面返回时，若记录和分类都没有变化则不再查询
+     */
+    public static class RecordListState extends ViewModel {
+        final TableVersions.Stamp recordsStamp = new TableVersions.Stamp(DatabaseHelper.TABLE_RECORDS);
+        // 0: 本周, 1: 本月, 2: 全部
+        int timeScope = 0;
+        long[] range; // records 对应的时间范围
+        List<Record> records = new ArrayList<>();
+        boolean hasMoreRecords;
+        long[] statsRange; // totals 和 series 对应的时间范围，统计尚未加载完成时为 null
+        long[] totals; // 按类型的收支合计
+        TimeSeries series; // 图表序列
+        ReferenceCache.Index<Category> categories;
+    }
 
     /**
      * 创建 Fragment 视图
@@ -75,19 +120,32 @@ public class RecordListFragment extends Fragment {
 
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
 
-        // 初始化 DAO 和 适配器
+        // 初始化 DAO 和 适配器 (先显示缓存的数据)
         recordDao = new RecordDao(getContext());
+        ledgerStats = LedgerStats.getInstance(getContext());
         categoryDao = new CategoryDao(getContext());
-        recordList = new ArrayList<>();
-        adapter = new RecordAdapter(recordList);
+        state = new ViewModelProvider(this).get(RecordListState.class);
+        pendingRange = null;
+        categoriesPending = false;
+        pageLoadPending = false;
+        adapter = new RecordAdapter(state.records);
+        adapter.setCategories(state.categories);
 
         adapter.setOnDeleteListener(record -> {
             new androidx.appcompat.app.AlertDialog.Builder(getContext())
                 .setTitle("删除记录")
                 .setMessage("确定要删除这条记录吗？")
                 .setPositiveButton("删除", (dialog, which) -> {
-                    recordDao.deleteRecord(record);
-                    loadData();
+                    boolean wasFresh = !state.recordsStamp.isStale();
+                    long[] before = state.recordsStamp.snapshot();
+                    DbTaskRunner.run(getViewLifecycleOwner(), () -> {
+                        recordDao.deleteRecord(record);
+                        return state.recordsStamp.snapshot();
+                    }, versions -> {
+                        // 期间没有其他写入时列表与数据库一致，返回页面时不必重新加载
+                        if (wasFresh && versions[0] == before[0] + 1) state.recordsStamp.markSeen(versions);
+                        removeFromList(record.getId());
+                    }, e -> Toast.makeText(getContext(), "删除失败", Toast.LENGTH_SHORT).show());
                 })
                 .setNegativeButton("取消", null)
                 .show();
@@ -96,11 +154,25 @@ public class RecordListFragment extends Fragment {
         // recyclerView 绑定 Adapter
         recyclerView.setAdapter(adapter);
 
+        // 滚动到接近末尾时加载下一页
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0 || !state.hasMoreRecords || pageLoadPending) return;
+                LinearLayoutManager layoutManager = (LinearLayoutManager) rv.getLayoutManager();
+                if (layoutManager != null
+                        && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    pageLoadPending = true;
+                    loadNextPage();
+                }
+            }
+        });
+
         // 监听筛选变化
         spinnerTimeScope.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                currentTimeScope = position;
+                state.timeScope = position;
                 loadData();
             }
 
@@ -116,8 +188,11 @@ public class RecordListFragment extends Fragment {
             startActivity(intent);
         });
 
-        // 默认选中 "本周" (index 0)
-        spinnerTimeScope.setSelection(0);
+        // 默认选中 "本周" (index 0)，返回页面时恢复之前的选择
+        spinnerTimeScope.setSelection(state.timeScope);
+        if (state.series != null) {
+            calculateAndDisplayStats(state.totals, state.series);
+        }
 
         return view;
     }
@@ -130,88 +205,172 @@ public class RecordListFragment extends Fragment {
 
     /**
      * 根据当前筛选加载数据、更新列表和图表
+     * 列表只加载第一页，其余在滚动时按需加载；时间范围和相关表都没有变化时不做任何查询。
+     * 第一页和统计分成两个任务：冷启动时统计需要先读取整张记录表，列表不等待它
      */
     private void loadData() {
-        long[] range = getDateRange(currentTimeScope);
-        recordList = recordDao.getRecordsByDateRange(range[0], range[1]);
-
-        List<Category> categories = categoryDao.getAllCategories();
-        Map<Integer, Category> categoryMap = new HashMap<>();
-        // ui，图标
-        for (Category c : categories) categoryMap.put(c.getId(), c);
-
-        adapter.setCategoryMap(categoryMap);
-        adapter.setRecordList(recordList);
-
-        calculateAndDisplayStats(recordList);
+        loadCategories();
+
+        long[] range = getDateRange(state.timeScope);
+        if (Arrays.equals(range, pendingRange)) return;
+        if (Arrays.equals(range, state.range) && Arrays.equals(range, state.statsRange)
+                && !state.recordsStamp.isStale()) return;
+
+        long[] versions = state.recordsStamp.snapshot();
+        int generation = ++loadGeneration;
+        pendingRange = range;
+        state.statsRange = null;
+        DbTaskRunner.run(getViewLifecycleOwner(),
+                () -> recordDao.getRecordsPage(range[0], range[1], null, PAGE_SIZE),
+                firstPage -> {
+                    if (generation != loadGeneration) return; // 已有更新的加载请求
+
+                    pendingRange = null;
+                    pageLoadPending = false;
+                    state.recordsStamp.markSeen(versions);
+                    state.range = range;
+                    state.records = firstPage;
+                    state.hasMoreRecords = firstPage.size() == PAGE_SIZE;
+                    adapter.setRecordList(state.records);
+                }, e -> {
+                    // 下次回到页面时重试
+                    if (generation == loadGeneration) pendingRange = null;
+                });
+        loadStats(range, generation);
     }
 
     /**
-     * 计算并显示统计数据 (图表和总收支)
-     * @param records 记录列表
+     * 从当前列表中移除一条已删除的记录并重新计算统计
+     * 只提交去掉该行的新列表，已加载的后续页和滚动位置保持不变
      */
-    private void calculateAndDisplayStats(List<Record> records) {
-        double totalIncome = 0;
-        double totalExpense = 0;
+    private void removeFromList(int recordId) {
+        List<Record> records = new ArrayList<>(state.records);
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).getId() == recordId) {
+                records.remove(i);
+                break;
+            }
+        }
+        state.records = records;
+        adapter.setRecordList(records);
 
-        // 按日期聚合数据用于图表显示
-        // Map<时间戳, 金额> - 使用 TreeMap 确保按日期正确排序，有序
-        java.util.TreeMap<Long, Double> dailyExpenseMap = new java.util.TreeMap<>();
-        java.util.TreeMap<Long, Double> dailyIncomeMap = new java.util.TreeMap<>();
+        // 只刷新合计和图表；已有加载正在进行时不覆盖它的结果 (其版本快照早于删除，下次 loadData 会再加载)
+        if (pendingRange == null && state.range != null) {
+            state.statsRange = null;
+            loadStats(state.range, loadGeneration);
+        }
+    }
 
-        // 收集所有唯一日期以确保 X 轴对齐
-        java.util.TreeSet<Long> allDates = new java.util.TreeSet<>();
+    /**
+     * 加载时间范围内的收支合计和图表序列 (来自内存中的统计索引)
+     */
+    private void loadStats(long[] range, int generation) {
+        DbTaskRunner.run(getViewLifecycleOwner(), () -> {
+            StatsResult result = new StatsResult();
+            result.totals = ledgerStats.typeTotals(range[0], range[1]);
+            result.series = ledgerStats.series(range[0], range[1], MAX_SERIES_POINTS);
+            return result;
+        }, result -> {
+            if (generation != loadGeneration) return;
+
+            state.statsRange = range;
+            state.totals = result.totals;
+            state.series = result.series;
+            calculateAndDisplayStats(state.totals, state.series);
+        });
+    }
 
-        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("MM-dd", java.util.Locale.getDefault());
-        Calendar cal = Calendar.getInstance();
+    /**
+     * 加载分类索引 (用于显示分类名称和图标)
+     * 分类没有变化时跳过；进程内缓存已是最新时直接使用，不切换线程
+     */
+    private void loadCategories() {
+        if (categoriesPending || (state.categories != null && state.categories.isCurrent())) return;
 
-        for (Record r : records) {
-            // 将日期标准化为午夜 (00:00:00)
-            cal.setTimeInMillis(r.getDate());
-            cal.set(Calendar.HOUR_OF_DAY, 0);
-            cal.set(Calendar.MINUTE, 0);
-            cal.set(Calendar.SECOND, 0);
-            cal.set(Calendar.MILLISECOND, 0);
-            long dateKey = cal.getTimeInMillis();
-            allDates.add(dateKey);
-
-            if (r.getType() == Record.TYPE_INCOME) {
-                totalIncome += r.getAmount();
-                dailyIncomeMap.put(dateKey, dailyIncomeMap.getOrDefault(dateKey, 0.0) + r.getAmount());
-            } else {
-                totalExpense += r.getAmount();
-                dailyExpenseMap.put(dateKey, dailyExpenseMap.getOrDefault(dateKey, 0.0) + r.getAmount());
-            }
+        ReferenceCache.Index<Category> cached = ReferenceCache.peekCategories();
+        if (cached != null) {
+            showCategories(cached);
+            return;
         }
 
-        // 更新文本
-        tvSummaryIncome.setText(String.format("收入: ¥%.2f", totalIncome));
-        tvSummaryExpense.setText(String.format("支出: ¥%.2f", totalExpense));
+        categoriesPending = true;
+        DbTaskRunner.run(getViewLifecycleOwner(), () -> categoryDao.getCategoryIndex(), categories -> {
+            categoriesPending = false;
+            showCategories(categories);
+        }, e -> categoriesPending = false);
+    }
 
-        // 准备图表数据
-        List<Entry> expenseEntries = new ArrayList<>();
-        List<Entry> incomeEntries = new ArrayList<>();
-        List<String> xLabels = new ArrayList<>();
+    private void showCategories(ReferenceCache.Index<Category> categories) {
+        state.categories = categories;
+        adapter.setCategories(categories);
+    }
 
-        int index = 0;
-        for (Long date : allDates) {
-            xLabels.add(sdf.format(new java.util.Date(date)));
+    /**
+     * 以当前列表最后一条记录为游标加载下一页
+     */
+    private void loadNextPage() {
+        if (!state.hasMoreRecords || state.records.isEmpty() || state.range == null) {
+            pageLoadPending = false;
+            return;
+        }
 
-            // 如果该日期无数据，则补 0
-            float expenseVal = dailyExpenseMap.getOrDefault(date, 0.0).floatValue();
-            float incomeVal = dailyIncomeMap.getOrDefault(date, 0.0).floatValue();
+        long[] range = state.range;
+        Record last = state.records.get(state.records.size() - 1);
+        int generation = loadGeneration;
+        DbTaskRunner.run(getViewLifecycleOwner(),
+                () -> recordDao.getRecordsPage(range[0], range[1], last, PAGE_SIZE),
+                page -> {
+                    if (generation != loadGeneration) return;
+                    pageLoadPending = false;
+                    state.hasMoreRecords = page.size() == PAGE_SIZE;
+                    if (page.isEmpty()) return;
+                    // 提交新的列表，已提交给适配器的列表不再修改
+                    List<Record> records = new ArrayList<>(state.records.size() + page.size());
+                    records.addAll(state.records);
+                    records.addAll(page);
+                    state.records = records;
+                    adapter.setRecordList(records);
+                }, e -> {
+                    if (generation == loadGeneration) pageLoadPending = false;
+                });
+    }
 
-            expenseEntries.add(new Entry(index, expenseVal));
-            incomeEntries.add(new Entry(index, incomeVal));
-            index++;
-        }
+    /**
+     * 显示统计数据 (图表和总收支)
+     * @param totals 按类型的收支合计 (来自内存中的前缀和索引)
+     * @param series 按天/周/月/年汇总的收支，桶数不超过 {@link #MAX_SERIES_POINTS}
+     */
+    private void calculateAndDisplayStats(long[] totals, TimeSeries series) {
+        // 更新文本
+        tvSummaryIncome.setText("收入: ¥" + Money.format(totals[Record.TYPE_INCOME]));
+        tvSummaryExpense.setText("支出: ¥" + Money.format(totals[Record.TYPE_EXPENSE]));
 
-        if (allDates.isEmpty()) {
+        if (series.isEmpty()) {
             statsChart.clear();
             statsChart.setNoDataText("暂无数据");
             return;
         }
 
+        // 准备图表数据，每个有记录的时间桶对应一个点；
+        // 点数超过图表的像素宽度时按最小/最大值压缩，峰值和谷值都会保留
+        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat(labelPattern(series.resolution), java.util.Locale.getDefault());
+        int size = series.size();
+        double[] expenseValues = new double[size];
+        double[] incomeValues = new double[size];
+        List<String> xLabels = new ArrayList<>(size);
+
+        java.util.Date date = new java.util.Date();
+        for (int i = 0; i < size; i++) {
+            date.setTime(series.starts[i]);
+            xLabels.add(sdf.format(date));
+
+            expenseValues[i] = Money.toYuan(series.expense[i]);
+            incomeValues[i] = Money.toYuan(series.income[i]);
+        }
+        int targetPoints = chartPixelWidth();
+        List<Entry> expenseEntries = toEntries(expenseValues, Downsampler.minMax(expenseValues, targetPoints));
+        List<Entry> incomeEntries = toEntries(incomeValues, Downsampler.minMax(incomeValues, targetPoints));
+
         LineDataSet setExpense = new LineDataSet(expenseEntries, "支出");
         setExpense.setColor(android.graphics.Color.RED);
         setExpense.setValueTextColor(android.graphics.Color.RED);
@@ -247,6 +406,39 @@ public class RecordListFragment extends Fragment {
         statsChart.invalidate(); // 刷新
     }
 
+    /**
+     * 把压缩后保留的点转换为图表数据，横坐标仍为原序列中的下标 (与横轴标签对应)
+     */
+    private static List<Entry> toEntries(double[] values, int[] indices) {
+        List<Entry> entries = new ArrayList<>(indices.length);
+        for (int i : indices) {
+            entries.add(new Entry(i, (float) values[i]));
+        }
+        return entries;
+    }
+
+    /**
+     * 图表绘制区域的像素宽度，尚未完成布局时使用屏幕宽度
+     */
+    private int chartPixelWidth() {
+        int width = statsChart.getWidth() - statsChart.getPaddingLeft() - statsChart.getPaddingRight();
+        return width > 0 ? width : getResources().getDisplayMetrics().widthPixels;
+    }
+
+    /**
+     * 横轴标签格式：按天/周显示日期，按月显示年月，按年显示年份
+     */
+    private static String labelPattern(TimeSeries.Resolution resolution) {
+        switch (resolution) {
+            case MONTH:
+                return "yyyy-MM";
+            case YEAR:
+                return "yyyy";
+            default:
+                return "MM-dd";
+        }
+    }
+
     /**
      * 获取时间范围 [start, end]
      * @param scopeIndex 时间范围索引 (0:周, 1:月，2全部)
@@ -267,14 +459,18 @@ public class RecordListFragment extends Fragment {
         endCal.set(Calendar.HOUR_OF_DAY, 23);
         endCal.set(Calendar.MINUTE, 59);
         endCal.set(Calendar.SECOND, 59);
+        endCal.set(Calendar.MILLISECOND, 999);
         end = endCal.getTimeInMillis();
 
+        // 起点对齐到当天 00:00，区间由整天组成 (统计索引按天汇总)
         switch (scopeIndex) {
-            case 0: // 本周 - 过去 7 天
-                start = end - (7L * 24 * 60 * 60 * 1000);
+            case 0: // 本周 - 含今天在内的过去 7 天
+                cal.add(Calendar.DAY_OF_MONTH, -6);
+                start = cal.getTimeInMillis();
                 break;
-            case 1: // 本月 - 过去 30 天
-                start = end - (30L * 24 * 60 * 60 * 1000);
+            case 1: // 本月 - 含今天在内的过去 30 天
+                cal.add(Calendar.DAY_OF_MONTH, -29);
+                start = cal.getTimeInMillis();
                 break;
             case 2: // 全部 - 所有时间
                 start = 0;
@@ -0,0 +1,265 @@
+package com.zzj.myapplication.backup;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.zzj.myapplication.db.ChangeJournal;
+import com.zzj.myapplication.db.DatabaseHelper;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于变更日志 ({@link ChangeJournal}) 的增量备份
+ * 备份目录中是一个全量快照 base-&lt;截止序号&gt;.lsnp 和其后的一串增量快照 delta-&lt;起始序号&gt;-&lt;截止序号&gt;.lsnp。
+ * 每次 {@link #run()} 只写出上一个文件之后日志中出现过的行 (同一行多次修改只写一次最新内容) 和被删除行的 id，
+ * 写完后删除已备份的日志，因此一次备份的耗时和文件大小只与两次备份之间的修改量有关。
+ * 增量累计过多、过大，或日志不连续 (数据被恢复、日志被清理) 时改写一个新的全量快照并删除旧文件。
+ * 第一次 {@link #run()} 开启变更日志，此前数据库不为备份记录任何日志；关闭备份时调用 {@link #stop()}。
+ *
+ * 所有方法都需在后台线程调用，同一目录同一时刻只应有一个实例在运行。
+ */
+public class IncrementalBackup {
+
+    private static final String TAG = "IncrementalBackup";
+
+    /**
+     * 增量文件数达到该值时改写全量快照
+     */
+    static final int MAX_DELTAS = 14;
+
+    private static final String BASE_PREFIX = "base-";
+    private static final String DELTA_PREFIX = "delta-";
+    private static final String SUFFIX = ".lsnp";
+
+    private final LedgerBackup ledgerBackup;
+    private final DatabaseHelper dbHelper;
+    private final File directory;
+
+    /**
+     * @param directory 备份目录，不存在时自动创建；目录中的其他文件不受影响
+     */
+    public IncrementalBackup(Context context, File directory) {
+        ledgerBackup = new LedgerBackup(context);
+        dbHelper = DatabaseHelper.getInstance(context);
+        this.directory = directory;
+    }
+
+    /**
+     * 执行一次备份
+     * @return 新写出的文件；自上次备份以来没有任何修改时返回 null
+     * @throws IOException 写入失败 (此时日志不会被删除，下次备份会重新写出这些修改)
+     */
+    public File run() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Cannot create " + directory);
+        Chain chain = Chain.scan(directory);
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        File written;
+        boolean compacted;
+        // 读取数据、写文件和删除日志在同一个事务中完成，期间其他写入会等待，保证文件与日志一致
+        db.beginTransactionNonExclusive();
+        try {
+            ChangeJournal.enable(db);
+            long sequence = ChangeJournal.currentSequence(db);
+            compacted = needsCompaction(db, chain, sequence);
+            if (compacted) {
+                written = write(db, baseName(sequence), SnapshotFormat.KIND_BASE, 0, sequence);
+            } else if (sequence == chain.toSeq) {
+                written = null;
+            } else {
+                written = write(db, deltaName(chain.toSeq, sequence), SnapshotFormat.KIND_DELTA, chain.toSeq, sequence);
+            }
+            ChangeJournal.prune(db, sequence);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        if (compacted) {
+            for (File file : chain.files()) {
+                if (!file.equals(written) && !file.delete()) Log.w(TAG, "Failed to delete " + file);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 停止记录变更日志 (关闭备份时调用)，已写出的备份文件保留
+     * 之后再次 {@link #run()} 时重新开启日志并改写全量快照
+     */
+    public void stop() {
+        ChangeJournal.disable(dbHelper.getWritableDatabase());
+    }
+
+    /**
+     * 用目录中最新的全量快照及其后的增量快照恢复全部数据
+     * @throws IOException 目录中没有可用的备份，或文件损坏 (此时数据库不会被修改)
+     */
+    public void restoreLatest() throws IOException {
+        Chain chain = Chain.scan(directory);
+        if (chain.base == null) throw new IOException("No backup in " + directory);
+        ledgerBackup.restore(chain.base, chain.deltas);
+    }
+
+    /**
+     * 是否应改写全量快照而不是追加增量
+     */
+    private static boolean needsCompaction(SQLiteDatabase db, Chain chain, long sequence) {
+        if (chain.base == null) return true;
+        // 序号回退：数据库被重建过 (如重新安装后恢复)
+        if (sequence < chain.toSeq) return true;
+        if (sequence == chain.toSeq) return false;
+        if (chain.deltas.size() >= MAX_DELTAS) return true;
+        long deltaBytes = 0;
+        for (File delta : chain.deltas) deltaBytes += delta.length();
+        if (deltaBytes * 2 >= chain.base.length()) return true;
+        // 上次备份之后的日志必须完整：第一条日志紧接在检查点之后，且其间没有整体恢复
+        long oldest = ChangeJournal.oldestSequence(db);
+        if (oldest == 0 || oldest > chain.toSeq + 1) return true;
+        return ChangeJournal.hasReset(db, chain.toSeq, sequence);
+    }
+
+    private File write(SQLiteDatabase db, String name, byte kind, long fromSeq, long toSeq) throws IOException {
+        File file = new File(directory, name);
+        File temp = new File(directory, name + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            SnapshotWriter writer = new SnapshotWriter(new BufferedOutputStream(out, 64 * 1024), kind, fromSeq, toSeq);
+            if (kind == SnapshotFormat.KIND_BASE) {
+                LedgerBackup.writeBase(db, writer);
+            } else {
+                writeChanges(db, writer, fromSeq, toSeq);
+            }
+            writer.finish();
+            out.getFD().sync();
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        }
+        // 先写临时文件再改名，中途失败时目录中不会留下不完整的快照
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Cannot rename " + temp + " to " + file);
+        }
+        return file;
+    }
+
+    /**
+     * 写出 (fromSeq, toSeq] 之间日志涉及的行：仍存在的写最新内容，已不存在的写入删除段
+     */
+    private static void writeChanges(SQLiteDatabase db, SnapshotWriter writer, long fromSeq, long toSeq) throws IOException {
+        byte[] sections = {SnapshotFormat.SECTION_ACCOUNTS, SnapshotFormat.SECTION_CATEGORIES,
+                SnapshotFormat.SECTION_RECORDS, SnapshotFormat.SECTION_ITEMS};
+        int[] tableIds = {ChangeJournal.TABLE_ACCOUNTS, ChangeJournal.TABLE_CATEGORIES,
+                ChangeJournal.TABLE_RECORDS, ChangeJournal.TABLE_ITEMS};
+        String[] args = new String[3];
+        args[1] = String.valueOf(fromSeq);
+        args[2] = String.valueOf(toSeq);
+        for (int i = 0; i < sections.length; i++) {
+            args[0] = String.valueOf(tableIds[i]);
+            String changed = "SELECT " + ChangeJournal.COLUMN_ROW_ID + " FROM " + ChangeJournal.TABLE
+                    + " WHERE " + ChangeJournal.COLUMN_TABLE_ID + " = ?"
+                    + " AND " + ChangeJournal.COLUMN_SEQ + " > ? AND " + ChangeJournal.COLUMN_SEQ + " <= ?";
+            LedgerBackup.writeSection(db, writer, sections[i],
+                    DatabaseHelper.COLUMN_ID + " IN (" + changed + ")", args);
+
+            String table = ChangeJournal.tableName(tableIds[i]);
+            writer.beginSection(SnapshotFormat.deletionsOf(sections[i]));
+            Cursor cursor = db.rawQuery("SELECT DISTINCT " + ChangeJournal.COLUMN_ROW_ID + " FROM (" + changed + ") j"
+                    + " WHERE NOT EXISTS (SELECT 1 FROM " + table
+                    + " WHERE " + table + "." + DatabaseHelper.COLUMN_ID + " = j." + ChangeJournal.COLUMN_ROW_ID + ")"
+                    + " ORDER BY " + ChangeJournal.COLUMN_ROW_ID, args);
+            try {
+                while (cursor.moveToNext()) {
+                    writer.deleted(cursor.getInt(0));
+                }
+            } finally {
+                cursor.close();
+            }
+            writer.endSection();
+        }
+    }
+
+    private static String baseName(long toSeq) {
+        return BASE_PREFIX + toSeq + SUFFIX;
+    }
+
+    private static String deltaName(long fromSeq, long toSeq) {
+        return DELTA_PREFIX + fromSeq + "-" + toSeq + SUFFIX;
+    }
+
+    /**
+     * 目录中的备份链：序号最大的全量快照，以及从它开始首尾相接的增量快照
+     */
+    static final class Chain {
+        File base;
+        final List<File> deltas = new ArrayList<>();
+        /**
+         * 链上最后一个文件的截止序号 (即上次备份的检查点)
+         */
+        long toSeq;
+        private final List<File> all = new ArrayList<>();
+
+        static Chain scan(File directory) {
+            Chain chain = new Chain();
+            File[] files = directory.listFiles();
+            if (files == null) return chain;
+
+            List<File> deltas = new ArrayList<>();
+            List<long[]> ranges = new ArrayList<>();
+            for (File file : files) {
+                String name = file.getName();
+                if (!name.endsWith(SUFFIX)) continue;
+                String body = name.substring(0, name.length() - SUFFIX.length());
+                try {
+                    if (name.startsWith(BASE_PREFIX)) {
+                        long seq = Long.parseLong(body.substring(BASE_PREFIX.length()));
+                        chain.all.add(file);
+                        if (chain.base == null || seq > chain.toSeq) {
+                            chain.base = file;
+                            chain.toSeq = seq;
+                        }
+                    } else if (name.startsWith(DELTA_PREFIX)) {
+                        String[] parts = body.substring(DELTA_PREFIX.length()).split("-");
+                        if (parts.length != 2) continue;
+                        ranges.add(new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])});
+                        deltas.add(file);
+                        chain.all.add(file);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // 不是本类写出的文件
+                }
+            }
+            if (chain.base == null) return chain;
+
+            // 从全量快照的序号开始逐个接上增量
+            boolean extended = true;
+            while (extended) {
+                extended = false;
+                for (int i = 0; i < deltas.size(); i++) {
+                    long[] range = ranges.get(i);
+                    if (range[0] == chain.toSeq && range[1] > range[0]) {
+                        chain.deltas.add(deltas.get(i));
+                        chain.toSeq = range[1];
+                        extended = true;
+                        break;
+                    }
+                }
+            }
+            return chain;
+        }
+
+        /**
+         * 目录中本类写出的全部快照文件 (包括不在链上的)
+         */
+        List<File> files() {
+            return all;
+        }
+    }
+}
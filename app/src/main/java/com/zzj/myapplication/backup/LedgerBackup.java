@@ -0,0 +1,246 @@
+package com.zzj.myapplication.backup;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.zzj.myapplication.db.BulkImport;
+import com.zzj.myapplication.db.ChangeJournal;
+import com.zzj.myapplication.db.DatabaseHelper;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 应用内备份与恢复
+ * 备份把账户、分类、记录和物品写成紧凑的二进制快照 (格式见 {@link SnapshotFormat})，
+ * 月度汇总和全文索引属于派生数据，不写入快照，恢复时重建。
+ * 恢复先校验整个文件，再在一个事务中整体替换现有数据。
+ * 增量备份 (只写出变更日志中修改过的行) 见 {@link IncrementalBackup}，恢复时在全量快照之上依次叠加。
+ *
+ * 备份和恢复方法都需在后台线程调用。
+ */
+public class LedgerBackup {
+
+    private static final int CHUNK_ROWS = 1000;
+
+    private final Context context;
+    private final DatabaseHelper dbHelper;
+
+    public LedgerBackup(Context context) {
+        this.context = context.getApplicationContext();
+        dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * 将当前数据写入快照文件
+     * @param file 目标文件，已存在时覆盖
+     * @throws IOException 写入失败
+     */
+    public void backup(File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            backup(out);
+        }
+    }
+
+    /**
+     * 将当前数据写入输出流 (不关闭输出流)
+     */
+    public void backup(OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SnapshotWriter writer;
+        // 在一个事务中读取所有表，保证账户余额与记录一致；期间其他写入会等待
+        db.beginTransactionNonExclusive();
+        try {
+            writer = new SnapshotWriter(buffered, SnapshotFormat.KIND_BASE, 0, ChangeJournal.currentSequence(db));
+            writeBase(db, writer);
+        } finally {
+            db.endTransaction();
+        }
+        writer.finish();
+    }
+
+    /**
+     * 用快照文件替换当前全部数据
+     * @param file 由 {@link #backup(File)} 生成的快照
+     * @throws IOException 文件无法读取或已损坏 (此时数据库不会被修改)
+     */
+    public void restore(File file) throws IOException {
+        restore(file, Collections.<File>emptyList());
+    }
+
+    /**
+     * 用全量快照及其后的增量快照替换当前全部数据
+     * @param base 全量快照
+     * @param deltas 按序号顺序排列的增量快照，每个文件的起始序号必须等于前一个文件的截止序号
+     * @throws IOException 任一文件无法读取、已损坏或序号不连续 (此时数据库不会被修改)
+     */
+    public void restore(File base, List<File> deltas) throws IOException {
+        List<SnapshotReader> readers = new ArrayList<>(deltas.size() + 1);
+        SnapshotReader baseReader = SnapshotReader.map(base);
+        baseReader.verify();
+        if (baseReader.kind() != SnapshotFormat.KIND_BASE) throw new IOException(base + " is not a base snapshot");
+        readers.add(baseReader);
+        long seq = baseReader.toSeq();
+        for (File delta : deltas) {
+            SnapshotReader reader = SnapshotReader.map(delta);
+            reader.verify();
+            if (reader.kind() != SnapshotFormat.KIND_DELTA) throw new IOException(delta + " is not a delta snapshot");
+            if (reader.fromSeq() != seq) {
+                throw new IOException(delta + " starts at " + reader.fromSeq() + ", expected " + seq);
+            }
+            seq = reader.toSeq();
+            readers.add(reader);
+        }
+
+        try (BulkImport bulk = BulkImport.begin(context)) {
+            SnapshotReader.Visitor visitor = new SnapshotReader.Visitor() {
+                @Override
+                public void account(int id, String name, String type, long balanceCents) {
+                    bulk.account(id, name, type, balanceCents);
+                }
+
+                @Override
+                public void category(int id, String name, int type, String iconResName) {
+                    bulk.category(id, name, type, iconResName);
+                }
+
+                @Override
+                public void record(int id, long amountCents, int type, int categoryId, int accountId, long date, String note) {
+                    bulk.record(id, amountCents, type, categoryId, accountId, date, note);
+                }
+
+                @Override
+                public void item(int id, String name, int status, int recordId, long purchaseDate, long priceCents, String photoPath) {
+                    bulk.item(id, name, status, recordId, purchaseDate, priceCents, photoPath);
+                }
+
+                @Override
+                public void deleted(byte section, int id) {
+                    bulk.delete(tableOf(section), id);
+                }
+            };
+            for (SnapshotReader reader : readers) {
+                reader.read(visitor);
+            }
+            bulk.commit();
+        }
+    }
+
+    /**
+     * 写出全部四个数据段
+     */
+    static void writeBase(SQLiteDatabase db, SnapshotWriter writer) throws IOException {
+        writeSection(db, writer, SnapshotFormat.SECTION_ACCOUNTS, null, null);
+        writeSection(db, writer, SnapshotFormat.SECTION_CATEGORIES, null, null);
+        writeSection(db, writer, SnapshotFormat.SECTION_RECORDS, null, null);
+        writeSection(db, writer, SnapshotFormat.SECTION_ITEMS, null, null);
+    }
+
+    /**
+     * 写出一个数据段
+     * @param filter 附加的筛选条件 (可为 null)，与按主键分段的条件用 AND 连接
+     * @param filterArgs filter 中的参数
+     */
+    static void writeSection(SQLiteDatabase db, SnapshotWriter writer, byte section,
+                             String filter, String[] filterArgs) throws IOException {
+        writer.beginSection(section);
+        switch (section) {
+            case SnapshotFormat.SECTION_ACCOUNTS:
+                forEachChunk(db, DatabaseHelper.TABLE_ACCOUNTS, new String[]{
+                        DatabaseHelper.COLUMN_NAME, DatabaseHelper.COLUMN_ACCOUNT_TYPE, DatabaseHelper.COLUMN_ACCOUNT_BALANCE},
+                        filter, filterArgs,
+                        cursor -> writer.account(cursor.getInt(0), cursor.getString(1), cursor.getString(2),
+                                cursor.getLong(3)));
+                break;
+            case SnapshotFormat.SECTION_CATEGORIES:
+                forEachChunk(db, DatabaseHelper.TABLE_CATEGORIES, new String[]{
+                        DatabaseHelper.COLUMN_NAME, DatabaseHelper.COLUMN_CATEGORY_TYPE, DatabaseHelper.COLUMN_CATEGORY_ICON},
+                        filter, filterArgs,
+                        cursor -> writer.category(cursor.getInt(0), cursor.getString(1), cursor.getInt(2), cursor.getString(3)));
+                break;
+            case SnapshotFormat.SECTION_RECORDS:
+                forEachChunk(db, DatabaseHelper.TABLE_RECORDS, new String[]{
+                        DatabaseHelper.COLUMN_RECORD_AMOUNT, DatabaseHelper.COLUMN_RECORD_TYPE,
+                        DatabaseHelper.COLUMN_RECORD_CATEGORY_ID, DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID,
+                        DatabaseHelper.COLUMN_RECORD_DATE, DatabaseHelper.COLUMN_RECORD_NOTE},
+                        filter, filterArgs,
+                        cursor -> writer.record(cursor.getInt(0), cursor.getLong(1), cursor.getInt(2),
+                                nullableId(cursor, 3), nullableId(cursor, 4), cursor.getLong(5), cursor.getString(6)));
+                break;
+            case SnapshotFormat.SECTION_ITEMS:
+                forEachChunk(db, DatabaseHelper.TABLE_ITEMS, new String[]{
+                        DatabaseHelper.COLUMN_NAME, DatabaseHelper.COLUMN_ITEM_STATUS, DatabaseHelper.COLUMN_ITEM_RECORD_ID,
+                        DatabaseHelper.COLUMN_ITEM_PURCHASE_DATE, DatabaseHelper.COLUMN_ITEM_PRICE, DatabaseHelper.COLUMN_ITEM_PHOTO_PATH},
+                        filter, filterArgs,
+                        cursor -> writer.item(cursor.getInt(0), cursor.getString(1), cursor.getInt(2), nullableId(cursor, 3),
+                                cursor.getLong(4), cursor.getLong(5), cursor.getString(6)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown section " + section);
+        }
+        writer.endSection();
+    }
+
+    /**
+     * 数据段对应的表名
+     */
+    static String tableOf(byte section) {
+        switch (section) {
+            case SnapshotFormat.SECTION_ACCOUNTS: return DatabaseHelper.TABLE_ACCOUNTS;
+            case SnapshotFormat.SECTION_CATEGORIES: return DatabaseHelper.TABLE_CATEGORIES;
+            case SnapshotFormat.SECTION_RECORDS: return DatabaseHelper.TABLE_RECORDS;
+            case SnapshotFormat.SECTION_ITEMS: return DatabaseHelper.TABLE_ITEMS;
+            default: throw new IllegalArgumentException("Unknown section " + section);
+        }
+    }
+
+    private interface RowConsumer {
+        void accept(Cursor cursor) throws IOException;
+    }
+
+    /**
+     * 按主键分段读取整张表 (或其中满足 filter 的行)，游标第 0 列为 _id，之后依次为 columns
+     */
+    private static void forEachChunk(SQLiteDatabase db, String table, String[] columns,
+                                     String filter, String[] filterArgs, RowConsumer consumer) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(DatabaseHelper.COLUMN_ID);
+        for (String column : columns) sql.append(", ").append(column);
+        sql.append(" FROM ").append(table)
+                .append(" WHERE ").append(DatabaseHelper.COLUMN_ID).append(" > ?");
+        if (filter != null) sql.append(" AND (").append(filter).append(')');
+        sql.append(" ORDER BY ").append(DatabaseHelper.COLUMN_ID)
+                .append(" LIMIT ").append(CHUNK_ROWS);
+        String query = sql.toString();
+
+        long lastId = 0;
+        String[] args = new String[1 + (filterArgs != null ? filterArgs.length : 0)];
+        if (filterArgs != null) System.arraycopy(filterArgs, 0, args, 1, filterArgs.length);
+        while (true) {
+            args[0] = String.valueOf(lastId);
+            Cursor cursor = db.rawQuery(query, args);
+            int rows = 0;
+            try {
+                while (cursor.moveToNext()) {
+                    lastId = cursor.getLong(0);
+                    consumer.accept(cursor);
+                    rows++;
+                }
+            } finally {
+                cursor.close();
+            }
+            if (rows < CHUNK_ROWS) return;
+        }
+    }
+
+    private static int nullableId(Cursor cursor, int column) {
+        return cursor.isNull(column) ? BulkImport.NULL_ID : cursor.getInt(column);
+    }
+}
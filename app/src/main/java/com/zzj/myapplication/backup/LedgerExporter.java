@@ -0,0 +1,317 @@
+package com.zzj.myapplication.backup;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.model.Money;
+import com.zzj.myapplication.model.Record;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 账单导出器
+ * 按主键分段 (每段 {@link #CHUNK_ROWS} 行) 从数据库读取记录并直接写入 Writer，
+ * 任何时刻内存中只有一段游标数据和分类/账户名称表，与记录总数无关。
+ * 不使用一个覆盖全表的游标：Android 的 CursorWindow 每次换窗都会重新执行查询并跳过前面的行，
+ * 数百万行时总耗时会变成平方级。
+ *
+ * 需在后台线程调用；导出过程中可以从其他线程调用 {@link #cancel()}。
+ */
+public class LedgerExporter {
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        CSV,
+        JSON
+    }
+
+    /**
+     * 导出进度回调 (在导出线程上调用)
+     */
+    public interface ProgressListener {
+        /**
+         * @param exported 已写出的记录数
+         * @param total 开始导出时的记录总数
+         */
+        void onProgress(long exported, long total);
+    }
+
+    static final int CHUNK_ROWS = 1000;
+
+    private static final String SELECT_CHUNK = "SELECT "
+            + DatabaseHelper.COLUMN_ID + ", "
+            + DatabaseHelper.COLUMN_RECORD_DATE + ", "
+            + DatabaseHelper.COLUMN_RECORD_TYPE + ", "
+            + DatabaseHelper.COLUMN_RECORD_AMOUNT + ", "
+            + DatabaseHelper.COLUMN_RECORD_CATEGORY_ID + ", "
+            + DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID + ", "
+            + DatabaseHelper.COLUMN_RECORD_NOTE
+            + " FROM " + DatabaseHelper.TABLE_RECORDS
+            + " WHERE " + DatabaseHelper.COLUMN_ID + " > ?"
+            + " ORDER BY " + DatabaseHelper.COLUMN_ID
+            + " LIMIT " + CHUNK_ROWS;
+
+    private final DatabaseHelper dbHelper;
+    private volatile boolean cancelled;
+
+    public LedgerExporter(Context context) {
+        dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * 请求取消正在进行的导出，导出方法会在当前段结束后抛出 {@link CancellationException}
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 导出全部记录
+     * @param out 输出目标 (建议使用 BufferedWriter，本方法不会关闭它)
+     * @param format 导出格式
+     * @param listener 进度回调，每写完一段调用一次，可为 null
+     * @return 导出的记录数
+     * @throws IOException 写入失败
+     * @throws CancellationException 导出被取消，out 中只有部分内容，调用方应丢弃
+     */
+    public long export(Writer out, Format format, ProgressListener listener) throws IOException {
+        cancelled = false;
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        String[] categoryNames = loadNames(db, DatabaseHelper.TABLE_CATEGORIES);
+        String[] accountNames = loadNames(db, DatabaseHelper.TABLE_ACCOUNTS);
+        long total = countRecords(db);
+
+        RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new JsonRowWriter(out);
+        writer.begin();
+        long exported = 0;
+        long lastId = 0; // 主键从 1 开始
+        String[] args = new String[1];
+        while (true) {
+            if (cancelled) throw new CancellationException("Export cancelled");
+
+            args[0] = String.valueOf(lastId);
+            Cursor cursor = db.rawQuery(SELECT_CHUNK, args);
+            int rows = 0;
+            try {
+                while (cursor.moveToNext()) {
+                    lastId = cursor.getLong(0);
+                    writer.row(lastId,
+                            cursor.getLong(1),
+                            cursor.getInt(2),
+                            cursor.getLong(3),
+                            lookup(categoryNames, cursor, 4),
+                            lookup(accountNames, cursor, 5),
+                            cursor.getString(6));
+                    rows++;
+                }
+            } finally {
+                cursor.close();
+            }
+
+            exported += rows;
+            if (listener != null) listener.onProgress(exported, Math.max(total, exported));
+            if (rows < CHUNK_ROWS) break;
+        }
+        writer.end();
+        out.flush();
+        return exported;
+    }
+
+    /**
+     * 读取分类或账户的 id -> 名称表 (两张表都很小，按 id 直接下标访问)
+     */
+    private static String[] loadNames(SQLiteDatabase db, String table) {
+        Cursor cursor = db.rawQuery("SELECT " + DatabaseHelper.COLUMN_ID + ", " + DatabaseHelper.COLUMN_NAME
+                + " FROM " + table + " ORDER BY " + DatabaseHelper.COLUMN_ID + " DESC", null);
+        try {
+            String[] names = null;
+            while (cursor.moveToNext()) {
+                int id = cursor.getInt(0);
+                if (id < 0) continue;
+                if (names == null) names = new String[id + 1]; // 降序读取，第一行就是最大 id
+                names[id] = cursor.getString(1);
+            }
+            return names != null ? names : new String[0];
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static String lookup(String[] names, Cursor cursor, int column) {
+        if (cursor.isNull(column)) return "";
+        int id = cursor.getInt(column);
+        String name = id >= 0 && id < names.length ? names[id] : null;
+        return name != null ? name : "";
+    }
+
+    private static long countRecords(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_RECORDS, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static String typeName(int type) {
+        return type == Record.TYPE_INCOME ? "income" : "expense";
+    }
+
+    /**
+     * 逐行写出记录的格式化器
+     */
+    abstract static class RowWriter {
+        final Writer out;
+
+        RowWriter(Writer out) {
+            this.out = out;
+        }
+
+        abstract void begin() throws IOException;
+
+        abstract void row(long id, long date, int type, long amount,
+                          String category, String account, String note) throws IOException;
+
+        abstract void end() throws IOException;
+    }
+
+    /**
+     * CSV (RFC 4180)：含逗号、引号或换行的字段用双引号包围，内部引号写两次。
+     * 开头写入 UTF-8 BOM，便于 Excel 正确识别中文。日期为本地时间 yyyy-MM-dd HH:mm:ss。
+     */
+    static final class CsvRowWriter extends RowWriter {
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.ROOT);
+        private final Date date = new Date();
+
+        CsvRowWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin() throws IOException {
+            out.write('\uFEFF');
+            out.write("id,date,type,amount,category,account,note\r\n");
+        }
+
+        @Override
+        void row(long id, long time, int type, long amount,
+                 String category, String account, String note) throws IOException {
+            date.setTime(time);
+            out.write(Long.toString(id));
+            out.write(',');
+            out.write(dateFormat.format(date));
+            out.write(',');
+            out.write(typeName(type));
+            out.write(',');
+            out.write(Money.format(amount));
+            out.write(',');
+            writeField(category);
+            out.write(',');
+            writeField(account);
+            out.write(',');
+            writeField(note);
+            out.write("\r\n");
+        }
+
+        @Override
+        void end() {
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) return;
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') out.write('"');
+                out.write(c);
+            }
+            out.write('"');
+        }
+    }
+
+    /**
+     * JSON：{"records":[{...}, ...]}，日期为毫秒时间戳，金额保留两位小数
+     */
+    static final class JsonRowWriter extends RowWriter {
+        private boolean first = true;
+
+        JsonRowWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin() throws IOException {
+            out.write("{\"records\":[");
+        }
+
+        @Override
+        void row(long id, long date, int type, long amount,
+                 String category, String account, String note) throws IOException {
+            out.write(first ? "\n" : ",\n");
+            first = false;
+            out.write("{\"id\":");
+            out.write(Long.toString(id));
+            out.write(",\"date\":");
+            out.write(Long.toString(date));
+            out.write(",\"type\":\"");
+            out.write(typeName(type));
+            out.write("\",\"amount\":");
+            out.write(Money.format(amount));
+            out.write(",\"category\":");
+            writeString(category);
+            out.write(",\"account\":");
+            writeString(account);
+            out.write(",\"note\":");
+            writeString(note);
+            out.write('}');
+        }
+
+        @Override
+        void end() throws IOException {
+            out.write("\n]}\n");
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.write("null");
+                return;
+            }
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': out.write("\\\""); break;
+                    case '\\': out.write("\\\\"); break;
+                    case '\n': out.write("\\n"); break;
+                    case '\r': out.write("\\r"); break;
+                    case '\t': out.write("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            out.write(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                        } else {
+                            out.write(c);
+                        }
+                }
+            }
+            out.write('"');
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.zzj.myapplication.backup;
+
+/**
+ * 二进制快照格式
+ * <pre>
+ * 文件   = MAGIC(4) 格式版本(varint) 类型(1) 起始序号(varint) 截止序号(varint) 段* END(1) CRC32(4, 大端，覆盖之前的全部字节)
+ * 段     = 标记(1) 行* 0(varint)
+ * 行     = id 增量(varint, >= 1) 各列...
+ * 删除段 = 小写标记(1) id 增量* 0(varint)
+ * </pre>
+ * 每段的行按 id 升序写出，id 存与上一行的差值，因此 0 可以作为段结束标记。
+ * 类型为 {@link #KIND_BASE} 时文件包含全部数据，起始序号为 0；
+ * 为 {@link #KIND_DELTA} 时只包含变更日志中 (起始序号, 截止序号] 之间被修改过的行 (写入的是行的最新内容)
+ * 和被删除行的 id，需按序号依次叠加在对应的全量快照之上。
+ * 版本 1 的文件没有类型和序号，按起止序号均为 0 的全量快照读取。
+ * 列编码：
+ * <ul>
+ *     <li>整数：varint (小端 7 位一组，最高位为续位)；有符号数先做 zigzag 变换</li>
+ *     <li>日期：与本段上一行日期的差值 (zigzag varint)，记录基本按时间顺序写入，差值通常只占 2~4 字节</li>
+ *     <li>金额：以分为单位的整数 (zigzag varint)</li>
+ *     <li>可空 id：id + 1，0 表示 NULL</li>
+ *     <li>字符串：UTF-8 字节数 + 1 (varint) 后跟字节，0 表示 NULL</li>
+ * </ul>
+ */
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = {'L', 'S', 'N', 'P'};
+    static final int VERSION = 2;
+
+    static final byte KIND_BASE = 'B';
+    static final byte KIND_DELTA = 'D';
+
+    static final byte SECTION_ACCOUNTS = 'A';
+    static final byte SECTION_CATEGORIES = 'C';
+    static final byte SECTION_RECORDS = 'R';
+    static final byte SECTION_ITEMS = 'I';
+    // 删除段 (只出现在增量快照中) 的标记为对应数据段标记的小写形式
+    static final byte DELETED_ACCOUNTS = 'a';
+    static final byte DELETED_CATEGORIES = 'c';
+    static final byte DELETED_RECORDS = 'r';
+    static final byte DELETED_ITEMS = 'i';
+    static final byte END = 'E';
+
+    static byte deletionsOf(byte section) {
+        return (byte) (section | 0x20);
+    }
+
+    private SnapshotFormat() {}
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,248 @@
+package com.zzj.myapplication.backup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * 快照读取器 (格式见 {@link SnapshotFormat})
+ * 直接在 ByteBuffer 上解码，文件通过 FileChannel.map 映射到内存，不需要先整体读入堆中。
+ */
+final class SnapshotReader {
+
+    /**
+     * 逐行接收解码结果
+     */
+    interface Visitor {
+        void account(int id, String name, String type, long balanceCents);
+
+        void category(int id, String name, int type, String iconResName);
+
+        /**
+         * @param categoryId 分类 id，-1 表示 NULL
+         * @param accountId 账户 id，-1 表示 NULL
+         */
+        void record(int id, long amountCents, int type, int categoryId, int accountId, long date, String note);
+
+        /**
+         * @param recordId 关联记录 id，-1 表示 NULL
+         */
+        void item(int id, String name, int status, int recordId, long purchaseDate, long priceCents, String photoPath);
+
+        /**
+         * 增量快照中被删除的行
+         * @param section 所属数据段的标记 ({@link SnapshotFormat#SECTION_ACCOUNTS} 等)
+         */
+        void deleted(byte section, int id);
+    }
+
+    private final ByteBuffer buffer;
+    private byte[] scratch = new byte[256];
+
+    private byte kind;
+    private long fromSeq;
+    private long toSeq;
+
+    private long previousId;
+    private long previousDate;
+
+    SnapshotReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * 以只读方式映射快照文件
+     */
+    static SnapshotReader map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // 映射在通道关闭后依然有效
+            return new SnapshotReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 文件类型，{@link #verify()} 之后有效
+     * @return {@link SnapshotFormat#KIND_BASE} 或 {@link SnapshotFormat#KIND_DELTA}
+     */
+    byte kind() {
+        return kind;
+    }
+
+    /**
+     * 起始序号 (不含)，{@link #verify()} 之后有效
+     */
+    long fromSeq() {
+        return fromSeq;
+    }
+
+    /**
+     * 截止序号 (含)，{@link #verify()} 之后有效
+     */
+    long toSeq() {
+        return toSeq;
+    }
+
+    /**
+     * 检查文件头和校验和并读取类型与序号，在修改数据库之前调用
+     * @throws IOException 不是快照文件、版本不支持或内容损坏
+     */
+    void verify() throws IOException {
+        int length = buffer.limit();
+        if (length < SnapshotFormat.MAGIC.length + 2 + 4) throw new IOException("Snapshot too short");
+        for (int i = 0; i < SnapshotFormat.MAGIC.length; i++) {
+            if (buffer.get(i) != SnapshotFormat.MAGIC[i]) throw new IOException("Not a ledger snapshot");
+        }
+
+        // CRC32.update(ByteBuffer) 需要 API 26，这里分块复制计算
+        CRC32 crc = new CRC32();
+        ByteBuffer view = buffer.duplicate();
+        view.position(0).limit(length - 4);
+        byte[] chunk = new byte[64 * 1024];
+        while (view.hasRemaining()) {
+            int n = Math.min(chunk.length, view.remaining());
+            view.get(chunk, 0, n);
+            crc.update(chunk, 0, n);
+        }
+        long stored = ((buffer.get(length - 4) & 0xFFL) << 24) | ((buffer.get(length - 3) & 0xFFL) << 16)
+                | ((buffer.get(length - 2) & 0xFFL) << 8) | (buffer.get(length - 1) & 0xFFL);
+        if (stored != crc.getValue()) throw new IOException("Snapshot checksum mismatch");
+
+        try {
+            readHeader();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated snapshot", e);
+        }
+    }
+
+    /**
+     * 解码全部内容
+     * @throws IOException 格式错误
+     */
+    void read(Visitor visitor) throws IOException {
+        try {
+            readHeader();
+            while (true) {
+                byte tag = buffer.get();
+                if (tag == SnapshotFormat.END) return;
+                previousId = 0;
+                previousDate = 0;
+                switch (tag) {
+                    case SnapshotFormat.SECTION_ACCOUNTS:
+                        for (int id; (id = readId()) != 0; ) {
+                            visitor.account(id, readString(), readString(), readSigned());
+                        }
+                        break;
+                    case SnapshotFormat.SECTION_CATEGORIES:
+                        for (int id; (id = readId()) != 0; ) {
+                            visitor.category(id, readString(), (int) readSigned(), readString());
+                        }
+                        break;
+                    case SnapshotFormat.SECTION_RECORDS:
+                        for (int id; (id = readId()) != 0; ) {
+                            long amount = readSigned();
+                            int type = (int) readSigned();
+                            int categoryId = readNullableId();
+                            int accountId = readNullableId();
+                            long date = readDate();
+                            visitor.record(id, amount, type, categoryId, accountId, date, readString());
+                        }
+                        break;
+                    case SnapshotFormat.SECTION_ITEMS:
+                        for (int id; (id = readId()) != 0; ) {
+                            String name = readString();
+                            int status = (int) readSigned();
+                            int recordId = readNullableId();
+                            long purchaseDate = readDate();
+                            long price = readSigned();
+                            visitor.item(id, name, status, recordId, purchaseDate, price, readString());
+                        }
+                        break;
+                    case SnapshotFormat.DELETED_ACCOUNTS:
+                    case SnapshotFormat.DELETED_CATEGORIES:
+                    case SnapshotFormat.DELETED_RECORDS:
+                    case SnapshotFormat.DELETED_ITEMS:
+                        if (kind != SnapshotFormat.KIND_DELTA) throw new IOException("Deletions in a base snapshot");
+                        byte section = (byte) (tag & ~0x20);
+                        for (int id; (id = readId()) != 0; ) {
+                            visitor.deleted(section, id);
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unknown snapshot section " + tag);
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated snapshot", e);
+        }
+    }
+
+    private void readHeader() throws IOException {
+        buffer.position(SnapshotFormat.MAGIC.length);
+        long version = readVarint();
+        if (version == 1) {
+            kind = SnapshotFormat.KIND_BASE;
+            fromSeq = 0;
+            toSeq = 0;
+            return;
+        }
+        if (version != SnapshotFormat.VERSION) throw new IOException("Unsupported snapshot version " + version);
+        kind = buffer.get();
+        if (kind != SnapshotFormat.KIND_BASE && kind != SnapshotFormat.KIND_DELTA) {
+            throw new IOException("Unknown snapshot kind " + kind);
+        }
+        fromSeq = readVarint();
+        toSeq = readVarint();
+        if (toSeq < fromSeq) throw new IOException("Invalid snapshot sequence range");
+    }
+
+    /**
+     * @return 行 id，0 表示本段结束
+     */
+    private int readId() throws IOException {
+        long delta = readVarint();
+        if (delta == 0) return 0;
+        previousId += delta;
+        if (previousId > Integer.MAX_VALUE) throw new IOException("Row id out of range");
+        return (int) previousId;
+    }
+
+    private int readNullableId() throws IOException {
+        return (int) (readVarint() - 1);
+    }
+
+    private long readDate() throws IOException {
+        previousDate += readSigned();
+        return previousDate;
+    }
+
+    private long readSigned() throws IOException {
+        return SnapshotFormat.unzigzag(readVarint());
+    }
+
+    private long readVarint() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return result;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private String readString() throws IOException {
+        long encoded = readVarint();
+        if (encoded == 0) return null;
+        long length = encoded - 1;
+        if (length > buffer.remaining()) throw new IOException("Truncated snapshot");
+        int n = (int) length;
+        if (n > scratch.length) scratch = new byte[Math.max(n, scratch.length * 2)];
+        buffer.get(scratch, 0, n);
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,173 @@
+package com.zzj.myapplication.backup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * 快照写入器 (格式见 {@link SnapshotFormat})
+ * 自带写缓冲，逐行编码后直接写入输出流，不在内存中保留已写出的行。
+ * 调用顺序：每个段 beginSection、若干行 (删除段为若干 deleted)、endSection，最后 finish。
+ */
+final class SnapshotWriter {
+
+    private final OutputStream out;
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[64 * 1024];
+    private int position;
+
+    private long previousId;
+    private long previousDate;
+
+    SnapshotWriter(OutputStream out) throws IOException {
+        this(out, SnapshotFormat.KIND_BASE, 0, 0);
+    }
+
+    /**
+     * @param kind {@link SnapshotFormat#KIND_BASE} 或 {@link SnapshotFormat#KIND_DELTA}
+     * @param fromSeq 起始序号 (不含)，全量快照为 0
+     * @param toSeq 截止序号 (含)
+     */
+    SnapshotWriter(OutputStream out, byte kind, long fromSeq, long toSeq) throws IOException {
+        this.out = out;
+        writeBytes(SnapshotFormat.MAGIC, 0, SnapshotFormat.MAGIC.length);
+        writeVarint(SnapshotFormat.VERSION);
+        writeByte(kind);
+        writeVarint(fromSeq);
+        writeVarint(toSeq);
+    }
+
+    void beginSection(byte tag) throws IOException {
+        writeByte(tag);
+        previousId = 0;
+        previousDate = 0;
+    }
+
+    void endSection() throws IOException {
+        writeVarint(0);
+    }
+
+    void account(int id, String name, String type, long balanceCents) throws IOException {
+        writeId(id);
+        writeString(name);
+        writeString(type);
+        writeVarint(SnapshotFormat.zigzag(balanceCents));
+    }
+
+    void category(int id, String name, int type, String iconResName) throws IOException {
+        writeId(id);
+        writeString(name);
+        writeVarint(SnapshotFormat.zigzag(type));
+        writeString(iconResName);
+    }
+
+    /**
+     * @param categoryId 分类 id，为负数表示 NULL
+     * @param accountId 账户 id，为负数表示 NULL
+     */
+    void record(int id, long amountCents, int type, int categoryId, int accountId, long date, String note) throws IOException {
+        writeId(id);
+        writeVarint(SnapshotFormat.zigzag(amountCents));
+        writeVarint(SnapshotFormat.zigzag(type));
+        writeNullableId(categoryId);
+        writeNullableId(accountId);
+        writeDate(date);
+        writeString(note);
+    }
+
+    /**
+     * @param recordId 关联记录 id，为负数表示 NULL
+     */
+    void item(int id, String name, int status, int recordId, long purchaseDate, long priceCents, String photoPath) throws IOException {
+        writeId(id);
+        writeString(name);
+        writeVarint(SnapshotFormat.zigzag(status));
+        writeNullableId(recordId);
+        writeDate(purchaseDate);
+        writeVarint(SnapshotFormat.zigzag(priceCents));
+        writeString(photoPath);
+    }
+
+    /**
+     * 删除段中的一行
+     */
+    void deleted(int id) throws IOException {
+        writeId(id);
+    }
+
+    /**
+     * 写入结束标记和校验和并刷新 (不关闭输出流)
+     */
+    void finish() throws IOException {
+        writeByte(SnapshotFormat.END);
+        flushBuffer();
+        long value = crc.getValue();
+        out.write((int) (value >>> 24));
+        out.write((int) (value >>> 16));
+        out.write((int) (value >>> 8));
+        out.write((int) value);
+        out.flush();
+    }
+
+    private void writeId(int id) throws IOException {
+        if (id <= previousId) {
+            throw new IllegalArgumentException("Rows must be written in ascending id order: " + id + " after " + previousId);
+        }
+        writeVarint(id - previousId);
+        previousId = id;
+    }
+
+    private void writeNullableId(int id) throws IOException {
+        writeVarint(id < 0 ? 0 : (long) id + 1);
+    }
+
+    private void writeDate(long date) throws IOException {
+        writeVarint(SnapshotFormat.zigzag(date - previousDate));
+        previousDate = date;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint((long) bytes.length + 1);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        if (buffer.length - position < 10) flushBuffer();
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeByte(byte value) throws IOException {
+        if (position == buffer.length) flushBuffer();
+        buffer[position++] = value;
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (length > buffer.length - position) {
+            flushBuffer();
+            if (length > buffer.length) {
+                crc.update(bytes, offset, length);
+                out.write(bytes, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position == 0) return;
+        crc.update(buffer, 0, position);
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
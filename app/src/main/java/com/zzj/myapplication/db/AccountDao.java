@@ -2,12 +2,10 @@ package com.zzj.myapplication.db;
 
 import android.content.ContentValues;
 import android.content.Context;
-import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
 import com.zzj.myapplication.model.Account;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -18,7 +16,7 @@ public class AccountDao {
     private DatabaseHelper dbHelper;
 
     public AccountDao(Context context) {
-        dbHelper = new DatabaseHelper(context);
+        dbHelper = DatabaseHelper.getInstance(context);
     }
 
     /**
@@ -34,7 +32,7 @@ public class AccountDao {
         values.put(DatabaseHelper.COLUMN_ACCOUNT_BALANCE, account.getBalance());
 
         long id = db.insert(DatabaseHelper.TABLE_ACCOUNTS, null, values);
-        db.close();
+        TableVersions.bump(DatabaseHelper.TABLE_ACCOUNTS);
         return id;
     }
 
@@ -44,53 +42,24 @@ public class AccountDao {
      * @return 账户对象，如果未找到则返回 null
      */
     public Account getAccount(int id) {
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.query(DatabaseHelper.TABLE_ACCOUNTS, null,
-                DatabaseHelper.COLUMN_ID + "=?", new String[]{String.valueOf(id)},
-                null, null, null);
-
-        if (cursor != null)
-            cursor.moveToFirst();
+        return getAccountIndex().get(id);
+    }
 
-        Account account = null;
-        if (cursor != null && cursor.getCount() > 0) {
-            account = new Account(
-                    cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID)),
-                    cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NAME)),
-                    cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ACCOUNT_TYPE)),
-                    cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ACCOUNT_BALANCE))
-            );
-            cursor.close();
-        }
-        db.close();
-        return account;
+    /**
+     * 获取按 id 和类型索引的账户快照 (缓存命中时不访问数据库)
+     * 记账、删账会改变余额并使缓存失效
+     * @return 账户索引
+     */
+    public ReferenceCache.Index<Account> getAccountIndex() {
+        return ReferenceCache.accounts(dbHelper);
     }
 
     /**
-     * 获取所有账户列表
+     * 获取所有账户列表 (只读，来自缓存)
      * @return 账户对象列表
      */
     public List<Account> getAllAccounts() {
-        List<Account> accountList = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + DatabaseHelper.TABLE_ACCOUNTS;
-
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
-
-        if (cursor.moveToFirst()) {
-            do {
-                Account account = new Account(
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NAME)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ACCOUNT_TYPE)),
-                        cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ACCOUNT_BALANCE))
-                );
-                accountList.add(account);
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-        db.close();
-        return accountList;
+        return getAccountIndex().all();
     }
 
     /**
@@ -108,7 +77,7 @@ public class AccountDao {
         int result = db.update(DatabaseHelper.TABLE_ACCOUNTS, values,
                 DatabaseHelper.COLUMN_ID + " = ?",
                 new String[]{String.valueOf(account.getId())});
-        db.close();
+        TableVersions.bump(DatabaseHelper.TABLE_ACCOUNTS);
         return result;
     }
 
@@ -120,6 +89,6 @@ public class AccountDao {
         SQLiteDatabase db = dbHelper.getWritableDatabase();
         db.delete(DatabaseHelper.TABLE_ACCOUNTS, DatabaseHelper.COLUMN_ID + " = ?",
                 new String[]{String.valueOf(account.getId())});
-        db.close();
+        TableVersions.bump(DatabaseHelper.TABLE_ACCOUNTS);
     }
 }
@@ -0,0 +1,203 @@
+package com.zzj.myapplication.db;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.io.Closeable;
+
+/**
+ * 批量导入 (用于从备份恢复)
+ * 在一个事务中清空账户、分类、记录和物品表，再用预编译语句按原 id 逐行写入；
+ * 同一 id 再次写入时覆盖 (用于在全量快照之上叠加增量)，也可以按 id 删除。
+ * 导入期间临时删除月度汇总和全文索引的触发器，提交前各重建一次，避免每行都触发额外写入；
+ * 变更日志的触发器同样暂停，导入完成后日志中只有一条重置记录 (此前的增量备份不再适用)；
+ * 未开启变更日志时导入后也不开启。
+ * 提交后通过 {@link RecordChanges} 通知记录表已被整体替换，内存中的统计索引随之重建。
+ * 未调用 {@link #commit()} 就 {@link #close()} 时整个事务回滚，原数据和触发器都保持不变。
+ *
+ * 用法：
+ * <pre>
+ * try (BulkImport bulk = BulkImport.begin(context)) {
+ *     bulk.account(...); bulk.record(...); ...
+ *     bulk.commit();
+ * }
+ * </pre>
+ * 金额、价格和余额的单位均为分。
+ * 需在后台线程调用，且 begin 到 close 之间只在同一线程上使用。
+ */
+public final class BulkImport implements Closeable {
+
+    /**
+     * 可空的 id 列取该值时写入 NULL
+     */
+    public static final int NULL_ID = -1;
+
+    private final SQLiteDatabase db;
+    private final SQLiteStatement insertAccount;
+    private final SQLiteStatement insertCategory;
+    private final SQLiteStatement insertRecord;
+    private final SQLiteStatement insertItem;
+    // 导入前是否在记录变更日志
+    private final boolean journaled;
+    private boolean finished;
+
+    private BulkImport(SQLiteDatabase db, boolean journaled) {
+        this.db = db;
+        this.journaled = journaled;
+        insertAccount = db.compileStatement("INSERT OR REPLACE INTO " + DatabaseHelper.TABLE_ACCOUNTS + " ("
+                + DatabaseHelper.COLUMN_ID + ", " + DatabaseHelper.COLUMN_NAME + ", "
+                + DatabaseHelper.COLUMN_ACCOUNT_TYPE + ", " + DatabaseHelper.COLUMN_ACCOUNT_BALANCE
+                + ") VALUES (?, ?, ?, ?)");
+        insertCategory = db.compileStatement("INSERT OR REPLACE INTO " + DatabaseHelper.TABLE_CATEGORIES + " ("
+                + DatabaseHelper.COLUMN_ID + ", " + DatabaseHelper.COLUMN_NAME + ", "
+                + DatabaseHelper.COLUMN_CATEGORY_TYPE + ", " + DatabaseHelper.COLUMN_CATEGORY_ICON
+                + ") VALUES (?, ?, ?, ?)");
+        insertRecord = db.compileStatement("INSERT OR REPLACE INTO " + DatabaseHelper.TABLE_RECORDS + " ("
+                + DatabaseHelper.COLUMN_ID + ", " + DatabaseHelper.COLUMN_RECORD_AMOUNT + ", "
+                + DatabaseHelper.COLUMN_RECORD_TYPE + ", " + DatabaseHelper.COLUMN_RECORD_CATEGORY_ID + ", "
+                + DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID + ", " + DatabaseHelper.COLUMN_RECORD_DATE + ", "
+                + DatabaseHelper.COLUMN_RECORD_NOTE
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+        insertItem = db.compileStatement("INSERT OR REPLACE INTO " + DatabaseHelper.TABLE_ITEMS + " ("
+                + DatabaseHelper.COLUMN_ID + ", " + DatabaseHelper.COLUMN_NAME + ", "
+                + DatabaseHelper.COLUMN_ITEM_STATUS + ", " + DatabaseHelper.COLUMN_ITEM_RECORD_ID + ", "
+                + DatabaseHelper.COLUMN_ITEM_PURCHASE_DATE + ", " + DatabaseHelper.COLUMN_ITEM_PRICE + ", "
+                + DatabaseHelper.COLUMN_ITEM_PHOTO_PATH
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    /**
+     * 开始导入：开启事务并清空现有数据
+     */
+    public static BulkImport begin(Context context) {
+        SQLiteDatabase db = DatabaseHelper.getInstance(context).getWritableDatabase();
+        db.beginTransaction();
+        try {
+            boolean journaled = ChangeJournal.isEnabled(db);
+            MonthlySummaryDao.dropTriggers(db);
+            SearchIndex.dropTriggers(db);
+            ChangeJournal.dropTriggers(db);
+            // 没有触发器时 SQLite 可以直接截断整表
+            db.execSQL("DELETE FROM " + DatabaseHelper.TABLE_ITEMS);
+            db.execSQL("DELETE FROM " + DatabaseHelper.TABLE_RECORDS);
+            db.execSQL("DELETE FROM " + DatabaseHelper.TABLE_CATEGORIES);
+            db.execSQL("DELETE FROM " + DatabaseHelper.TABLE_ACCOUNTS);
+            db.execSQL("DELETE FROM " + ChangeJournal.TABLE);
+            return new BulkImport(db, journaled);
+        } catch (RuntimeException e) {
+            db.endTransaction();
+            throw e;
+        }
+    }
+
+    public void account(int id, String name, String type, long balance) {
+        insertAccount.bindLong(1, id);
+        bindString(insertAccount, 2, name);
+        bindString(insertAccount, 3, type);
+        insertAccount.bindLong(4, balance);
+        insertAccount.executeInsert();
+    }
+
+    public void category(int id, String name, int type, String iconResName) {
+        insertCategory.bindLong(1, id);
+        bindString(insertCategory, 2, name);
+        insertCategory.bindLong(3, type);
+        bindString(insertCategory, 4, iconResName);
+        insertCategory.executeInsert();
+    }
+
+    /**
+     * @param categoryId 分类 id，{@link #NULL_ID} 表示 NULL
+     * @param accountId 账户 id，{@link #NULL_ID} 表示 NULL
+     */
+    public void record(int id, long amount, int type, int categoryId, int accountId, long date, String note) {
+        insertRecord.bindLong(1, id);
+        insertRecord.bindLong(2, amount);
+        insertRecord.bindLong(3, type);
+        bindId(insertRecord, 4, categoryId);
+        bindId(insertRecord, 5, accountId);
+        insertRecord.bindLong(6, date);
+        bindString(insertRecord, 7, note);
+        insertRecord.executeInsert();
+    }
+
+    /**
+     * @param recordId 关联记录 id，{@link #NULL_ID} 表示 NULL
+     */
+    public void item(int id, String name, int status, int recordId, long purchaseDate, long price, String photoPath) {
+        insertItem.bindLong(1, id);
+        bindString(insertItem, 2, name);
+        insertItem.bindLong(3, status);
+        bindId(insertItem, 4, recordId);
+        insertItem.bindLong(5, purchaseDate);
+        insertItem.bindLong(6, price);
+        bindString(insertItem, 7, photoPath);
+        insertItem.executeInsert();
+    }
+
+    /**
+     * 删除一行 (增量备份中记录的删除)
+     * @param table 账户、分类、记录或物品表的表名
+     */
+    public void delete(String table, int id) {
+        if (!DatabaseHelper.TABLE_ACCOUNTS.equals(table) && !DatabaseHelper.TABLE_CATEGORIES.equals(table)
+                && !DatabaseHelper.TABLE_RECORDS.equals(table) && !DatabaseHelper.TABLE_ITEMS.equals(table)) {
+            throw new IllegalArgumentException("Unknown table " + table);
+        }
+        db.delete(table, DatabaseHelper.COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
+    }
+
+    /**
+     * 重建派生数据、恢复触发器并提交事务
+     */
+    public void commit() {
+        if (finished) throw new IllegalStateException("Import already finished");
+        MonthlySummaryDao.rebuild(db);
+        SearchIndex.rebuild(db);
+        MonthlySummaryDao.createTriggers(db);
+        SearchIndex.createTriggers(db);
+        if (journaled) {
+            ChangeJournal.createTriggers(db);
+            ChangeJournal.markReset(db);
+        }
+        db.setTransactionSuccessful();
+        finish();
+        RecordChanges.replaced();
+        TableVersions.bump(DatabaseHelper.TABLE_ACCOUNTS, DatabaseHelper.TABLE_CATEGORIES,
+                DatabaseHelper.TABLE_RECORDS, DatabaseHelper.TABLE_ITEMS, DatabaseHelper.TABLE_MONTHLY_SUMMARY);
+    }
+
+    /**
+     * 结束导入；尚未提交时回滚
+     */
+    @Override
+    public void close() {
+        if (!finished) finish();
+    }
+
+    private void finish() {
+        finished = true;
+        insertAccount.close();
+        insertCategory.close();
+        insertRecord.close();
+        insertItem.close();
+        db.endTransaction();
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static void bindId(SQLiteStatement statement, int index, int id) {
+        if (id == NULL_ID) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, id);
+        }
+    }
+}
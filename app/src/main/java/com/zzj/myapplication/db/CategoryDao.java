@@ -2,12 +2,10 @@ package com.zzj.myapplication.db;
 
 import android.content.ContentValues;
 import android.content.Context;
-import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
 import com.zzj.myapplication.model.Category;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -18,7 +16,7 @@ public class CategoryDao {
     private DatabaseHelper dbHelper;
 
     public CategoryDao(Context context) {
-        dbHelper = new DatabaseHelper(context);
+        dbHelper = DatabaseHelper.getInstance(context);
     }
 
     /**
@@ -34,61 +32,41 @@ public class CategoryDao {
         values.put(DatabaseHelper.COLUMN_CATEGORY_ICON, category.getIconResName());
 
         long id = db.insert(DatabaseHelper.TABLE_CATEGORIES, null, values);
-        db.close();
+        TableVersions.bump(DatabaseHelper.TABLE_CATEGORIES);
         return id;
     }
 
     /**
-     * 获取所有分类列表
+     * 获取按 id 和类型索引的分类快照 (缓存命中时不访问数据库)
+     * @return 分类索引
+     */
+    public ReferenceCache.Index<Category> getCategoryIndex() {
+        return ReferenceCache.categories(dbHelper);
+    }
+
+    /**
+     * 根据 ID 获取分类
+     * @param id 分类ID
+     * @return 分类对象，如果未找到则返回 null
+     */
+    public Category getCategory(int id) {
+        return getCategoryIndex().get(id);
+    }
+
+    /**
+     * 获取所有分类列表 (只读，来自缓存)
      * @return 分类对象列表
      */
     public List<Category> getAllCategories() {
-        List<Category> categoryList = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + DatabaseHelper.TABLE_CATEGORIES;
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
-
-        if (cursor.moveToFirst()) {
-            do {
-                Category category = new Category(
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NAME)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_CATEGORY_TYPE)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_CATEGORY_ICON))
-                );
-                categoryList.add(category);
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-        db.close();
-        return categoryList;
+        return getCategoryIndex().all();
     }
     
     /**
-     * 根据类型 (收入/支出) 获取分类列表
+     * 根据类型 (收入/支出) 获取分类列表 (只读，来自缓存)
      * @param type 收支类型 (0: 支出, 1: 收入)
      * @return 分类对象列表
      */
     public List<Category> getCategoriesByType(int type) {
-        List<Category> categoryList = new ArrayList<>();
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.query(DatabaseHelper.TABLE_CATEGORIES, null,
-                DatabaseHelper.COLUMN_CATEGORY_TYPE + "=?", new String[]{String.valueOf(type)},
-                null, null, null);
-
-        if (cursor.moveToFirst()) {
-            do {
-                Category category = new Category(
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NAME)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_CATEGORY_TYPE)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_CATEGORY_ICON))
-                );
-                categoryList.add(category);
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-        db.close();
-        return categoryList;
+        return getCategoryIndex().ofType(type);
     }
 }
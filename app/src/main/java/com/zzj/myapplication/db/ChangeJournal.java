@@ -0,0 +1,189 @@
+package com.zzj.myapplication.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * 变更日志
+ * change_journal 表记录账户、分类、记录和物品表的每一次插入、更新和删除，
+ * 序号 (seq) 为 AUTOINCREMENT 主键，只增不减、删除后也不会复用。
+ * 日志由各表上的触发器写入，因此所有 DAO 写入路径 (包括批量插入和余额更新) 都会被记录。
+ * 增量备份读取某个检查点之后的日志，备份写出后再删除已备份的部分，日志大小只与两次备份之间的修改量有关。
+ *
+ * 触发器只在开启增量备份后存在 ({@link #enable})：没有备份读取日志时，每次写入不产生额外的日志行，
+ * 日志表保持为空。关闭备份时 ({@link #disable}) 删除触发器并清空日志。
+ */
+public final class ChangeJournal {
+
+    public static final String TABLE = "change_journal";
+    public static final String COLUMN_SEQ = "seq";
+    public static final String COLUMN_TABLE_ID = "table_id";
+    public static final String COLUMN_ROW_ID = "row_id";
+    public static final String COLUMN_OP = "op";
+
+    // table_id 的取值
+    public static final int TABLE_ACCOUNTS = 1;
+    public static final int TABLE_CATEGORIES = 2;
+    public static final int TABLE_RECORDS = 3;
+    public static final int TABLE_ITEMS = 4;
+
+    // op 的取值
+    public static final int OP_INSERT = 1;
+    public static final int OP_UPDATE = 2;
+    public static final int OP_DELETE = 3;
+    /**
+     * 全部数据被整体替换 (从备份恢复)，table_id 和 row_id 为 0；此前的增量都不再适用
+     */
+    public static final int OP_RESET = 4;
+
+    private static final String[] TABLES = {
+            DatabaseHelper.TABLE_ACCOUNTS, DatabaseHelper.TABLE_CATEGORIES,
+            DatabaseHelper.TABLE_RECORDS, DatabaseHelper.TABLE_ITEMS};
+
+    private ChangeJournal() {}
+
+    /**
+     * 日志中对应的表名
+     * @param tableId {@link #TABLE_ACCOUNTS} 等
+     */
+    public static String tableName(int tableId) {
+        return TABLES[tableId - 1];
+    }
+
+    /**
+     * 是否正在记录日志 (各表上的触发器已建立)
+     */
+    public static boolean isEnabled(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT 1 FROM sqlite_master WHERE type = 'trigger' AND name = ?",
+                new String[]{triggerName(DatabaseHelper.TABLE_RECORDS, "insert")});
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * 开始记录日志
+     * 同时写入一条 {@link #OP_RESET} 记录：未记录日志期间的修改无法增量备份，下一次备份改写全量快照。
+     * 已开启时不做任何事。
+     */
+    public static void enable(SQLiteDatabase db) {
+        if (isEnabled(db)) return;
+        createTriggers(db);
+        markReset(db);
+    }
+
+    /**
+     * 停止记录日志：删除触发器和现有日志 (序号仍然单调递增)
+     */
+    public static void disable(SQLiteDatabase db) {
+        dropTriggers(db);
+        db.execSQL("DELETE FROM " + TABLE);
+    }
+
+    /**
+     * 最近一次分配的序号 (日志被清空后依然有效)，没有任何日志时为 0
+     */
+    public static long currentSequence(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT seq FROM sqlite_sequence WHERE name = ?", new String[]{TABLE});
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * 当前日志中最小的序号，日志为空时返回 0
+     */
+    public static long oldestSequence(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT IFNULL(MIN(" + COLUMN_SEQ + "), 0) FROM " + TABLE, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * 删除序号不大于 seq 的日志 (这些修改已写入备份)
+     */
+    public static void prune(SQLiteDatabase db, long seq) {
+        db.execSQL("DELETE FROM " + TABLE + " WHERE " + COLUMN_SEQ + " <= ?", new Object[]{seq});
+    }
+
+    /**
+     * 是否在 (fromSeq, toSeq] 之间有 {@link #OP_RESET} 记录
+     */
+    public static boolean hasReset(SQLiteDatabase db, long fromSeq, long toSeq) {
+        Cursor cursor = db.rawQuery("SELECT 1 FROM " + TABLE + " WHERE " + COLUMN_OP + " = " + OP_RESET
+                + " AND " + COLUMN_SEQ + " > ? AND " + COLUMN_SEQ + " <= ? LIMIT 1",
+                new String[]{String.valueOf(fromSeq), String.valueOf(toSeq)});
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * 写入一条 {@link #OP_RESET} 记录
+     */
+    static void markReset(SQLiteDatabase db) {
+        db.execSQL("INSERT INTO " + TABLE + " (" + COLUMN_TABLE_ID + ", " + COLUMN_ROW_ID + ", " + COLUMN_OP
+                + ") VALUES (0, 0, " + OP_RESET + ")");
+    }
+
+    /**
+     * 建立日志表及写入日志的触发器 (版本 5 引入；版本 7 起触发器改为在开启备份时建立)
+     */
+    static void createSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                + COLUMN_SEQ + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COLUMN_TABLE_ID + " INTEGER NOT NULL, "
+                + COLUMN_ROW_ID + " INTEGER NOT NULL, "
+                + COLUMN_OP + " INTEGER NOT NULL"
+                + ")");
+        createTriggers(db);
+    }
+
+    /**
+     * 建立各表上写入日志的触发器 (表重建后需要重新调用)
+     */
+    static void createTriggers(SQLiteDatabase db) {
+        for (int i = 0; i < TABLES.length; i++) {
+            String table = TABLES[i];
+            int tableId = i + 1;
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS " + triggerName(table, "insert") + " AFTER INSERT ON " + table + " BEGIN "
+                    + journal(tableId, "NEW", OP_INSERT)
+                    + "END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS " + triggerName(table, "update") + " AFTER UPDATE ON " + table + " BEGIN "
+                    + journal(tableId, "NEW", OP_UPDATE)
+                    + "END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS " + triggerName(table, "delete") + " AFTER DELETE ON " + table + " BEGIN "
+                    + journal(tableId, "OLD", OP_DELETE)
+                    + "END");
+        }
+    }
+
+    /**
+     * 删除写入日志的触发器 (批量恢复期间不记录日志)
+     */
+    static void dropTriggers(SQLiteDatabase db) {
+        for (String table : TABLES) {
+            db.execSQL("DROP TRIGGER IF EXISTS " + triggerName(table, "insert"));
+            db.execSQL("DROP TRIGGER IF EXISTS " + triggerName(table, "update"));
+            db.execSQL("DROP TRIGGER IF EXISTS " + triggerName(table, "delete"));
+        }
+    }
+
+    private static String triggerName(String table, String op) {
+        return "trg_journal_" + table + "_" + op;
+    }
+
+    private static String journal(int tableId, String row, int op) {
+        return "INSERT INTO " + TABLE + " (" + COLUMN_TABLE_ID + ", " + COLUMN_ROW_ID + ", " + COLUMN_OP + ") VALUES ("
+                + tableId + ", " + row + "." + DatabaseHelper.COLUMN_ID + ", " + op + "); ";
+    }
+}
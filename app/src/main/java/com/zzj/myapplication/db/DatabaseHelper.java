@@ -1,24 +1,33 @@
 package com.zzj.myapplication.db;
 
 import android.content.Context;
+import android.os.Looper;
+import android.database.sqlite.SQLiteCursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * 数据库帮助类
  * 负责创建数据库、升级数据库以及初始化默认数据
  * 管理 Accounts, Categories, Records, Items 四张表
+ *
+ * 整个进程共享一个实例 (见 {@link #getInstance(Context)})，连接在首次使用时打开并一直保持到进程结束，
+ * DAO 不应再自行关闭数据库。
  */
 public class DatabaseHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "accounting_app.db";
-    private static final int DATABASE_VERSION = 1;
+    // 每新增一个迁移 (见 Migrations) 需要同步提升该版本号
+    private static final int DATABASE_VERSION = 7;
 
     // 表名常量
     public static final String TABLE_ACCOUNTS = "accounts";
     public static final String TABLE_CATEGORIES = "categories";
     public static final String TABLE_RECORDS = "records";
     public static final String TABLE_ITEMS = "items";
+    public static final String TABLE_MONTHLY_SUMMARY = "monthly_summary";
 
     // 通用列名
     public static final String COLUMN_ID = "_id";
@@ -47,8 +56,13 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public static final String COLUMN_ITEM_PRICE = "price";
     public static final String COLUMN_ITEM_PHOTO_PATH = "photo_path";
 
+    // 月度汇总表列名 (账户、分类、类型列与记录表同名)
+    public static final String COLUMN_SUMMARY_MONTH = "month"; // yyyyMM (本地时区)
+    public static final String COLUMN_SUMMARY_TOTAL = "total";
+    public static final String COLUMN_SUMMARY_COUNT = "count";
+
 
-    // 建表语句
+    // 版本 1 的建表语句 (之后的结构变更见 Migrations；自版本 6 起金额、价格和余额为以分为单位的 INTEGER)
     private static final String CREATE_TABLE_ACCOUNTS = "CREATE TABLE " + TABLE_ACCOUNTS + "("
             + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
             + COLUMN_NAME + " TEXT, "
@@ -87,38 +101,142 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             + ")";
 
 
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    private static volatile DatabaseHelper instance;
+
+    // 连接实际被打开的次数，正常情况下整个进程生命周期内应为 1
+    private static final AtomicInteger openCount = new AtomicInteger();
+
+    // 累计发起的查询次数 (每个返回 Cursor 的查询计一次)，用于验证页面在数据未变化时不再查询
+    private static final AtomicInteger queryCount = new AtomicInteger();
+
+    private static final SQLiteDatabase.CursorFactory COUNTING_CURSOR_FACTORY = (db, driver, editTable, query) -> {
+        queryCount.incrementAndGet();
+        return new SQLiteCursor(driver, editTable, query);
+    };
+
+    /**
+     * 获取进程内共享的数据库帮助类
+     * @param context 任意 Context，内部只持有 ApplicationContext
+     * @return 单例 DatabaseHelper
+     */
+    public static DatabaseHelper getInstance(Context context) {
+        DatabaseHelper helper = instance;
+        if (helper == null) {
+            synchronized (DatabaseHelper.class) {
+                helper = instance;
+                if (helper == null) {
+                    helper = new DatabaseHelper(context.getApplicationContext());
+                    instance = helper;
+                }
+            }
+        }
+        return helper;
+    }
+
+    /**
+     * 关闭共享连接并丢弃单例 (仅用于测试或整体替换数据库文件等场景)
+     * 之后再调用 {@link #getInstance(Context)} 会重新打开数据库
+     */
+    public static void closeInstance() {
+        synchronized (DatabaseHelper.class) {
+            if (instance != null) {
+                instance.close();
+                instance = null;
+            }
+        }
+    }
+
+    // 为 false 时禁止在主线程访问数据库 (见 DbTaskRunner#enableStrictMode)
+    private static volatile boolean mainThreadAccessAllowed = true;
+
+    static void setMainThreadAccessAllowed(boolean allowed) {
+        mainThreadAccessAllowed = allowed;
+    }
+
+    private static void checkThread() {
+        if (!mainThreadAccessAllowed && Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException("Database accessed on the main thread; use DbTaskRunner");
+        }
+    }
+
+    @Override
+    public SQLiteDatabase getWritableDatabase() {
+        checkThread();
+        return super.getWritableDatabase();
+    }
+
+    @Override
+    public SQLiteDatabase getReadableDatabase() {
+        checkThread();
+        return super.getReadableDatabase();
+    }
+
+    /**
+     * 获取数据库连接被打开的累计次数
+     */
+    public static int getOpenCount() {
+        return openCount.get();
+    }
+
+    /**
+     * 获取进程内累计发起的查询次数
+     */
+    public static int getQueryCount() {
+        return queryCount.get();
+    }
+
+    private DatabaseHelper(Context context) {
+        super(context, DATABASE_NAME, COUNTING_CURSOR_FACTORY, DATABASE_VERSION);
+        if (Migrations.latestVersion() != DATABASE_VERSION) {
+            throw new IllegalStateException("DATABASE_VERSION does not match the latest migration");
+        }
+    }
+
+    /**
+     * 连接配置回调
+     * 开启 WAL 日志模式，读操作不会被写操作阻塞，单次提交也更轻量
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        openCount.incrementAndGet();
     }
 
     /**
      * 数据库创建回调
-     * 创建 Accounts, Categories, Records, Items 表并插入默认数据
+     * 先建立版本 1 的基础表并插入默认数据，再依次执行全部迁移，保证新安装与升级得到相同的结构
      */
     @Override
     public void onCreate(SQLiteDatabase db) {
-        db.execSQL(CREATE_TABLE_ACCOUNTS);
-        db.execSQL(CREATE_TABLE_CATEGORIES);
-        db.execSQL(CREATE_TABLE_RECORDS);
-        db.execSQL(CREATE_TABLE_ITEMS);
-
+        createBaseSchema(db);
         insertDefaultData(db);
+
+        Migrations.migrate(db, Migrations.BASE_VERSION, DATABASE_VERSION);
     }
 
     /**
      * 数据库升级回调
-     * 删除旧表并重新创建
+     * 按版本顺序逐步执行迁移，保留用户数据
      */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // 如果存在旧表则删除
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ACCOUNTS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_CATEGORIES);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_RECORDS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ITEMS);
-
-        // 重新创建表
-        onCreate(db);
+        Migrations.migrate(db, oldVersion, newVersion);
+    }
+
+    /**
+     * 创建版本 1 的 Accounts, Categories, Records, Items 表
+     */
+    static void createBaseSchema(SQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE_ACCOUNTS);
+        db.execSQL(CREATE_TABLE_CATEGORIES);
+        db.execSQL(CREATE_TABLE_RECORDS);
+        db.execSQL(CREATE_TABLE_ITEMS);
     }
 
     /**
@@ -0,0 +1,192 @@
+package com.zzj.myapplication.db;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.StrictMode;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 数据访问调度器
+ * 所有 DAO 调用都应通过这里在后台线程执行，结果回到主线程交付。
+ * 任务与 LifecycleOwner (Activity 或 Fragment 的 ViewLifecycleOwner) 绑定，
+ * 宿主销毁时自动取消，回调不会在页面销毁后触发。
+ * 任务抛出异常时记录日志并在主线程调用错误回调，调用方在其中恢复界面状态 (如重新启用按钮、清除加载中标记)。
+ *
+ * 注意：先写后读的操作 (如删除后刷新) 应放在同一个任务中，或在写任务的回调里再发起读任务，
+ * 不同任务之间不保证执行顺序。
+ */
+public final class DbTaskRunner {
+
+    private static final String TAG = "DbTaskRunner";
+
+    // 后台线程数上限；SQLite 写操作本身是串行的，更多线程只会增加争用
+    private static final int THREADS = 2;
+
+    private static final Executor EXECUTOR;
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    static {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread thread = new Thread(r, "db-worker-" + threadCount.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        EXECUTOR = executor;
+    }
+
+    // 实际执行任务的线程池，测试中可替换
+    private static volatile Executor executor = EXECUTOR;
+
+    /**
+     * 主线程结果回调
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * 主线程错误回调
+     */
+    public interface ErrorCallback {
+        void onError(Exception error);
+    }
+
+    /**
+     * 已提交的任务，可手动取消
+     */
+    public static final class Task {
+        private volatile boolean cancelled;
+        private Future<?> future;
+        private Runnable onFinish;
+
+        /**
+         * 取消任务：尚未执行的任务不再执行，已完成的结果不再回调
+         */
+        public void cancel() {
+            cancelled = true;
+            if (future != null) future.cancel(false);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private DbTaskRunner() {}
+
+    /**
+     * 在后台线程执行数据库操作，并在主线程回调结果；失败时只记录日志
+     * 必须在主线程调用
+     * @param owner 任务所属的生命周期，销毁时自动取消
+     * @param work 后台执行的数据库操作
+     * @param callback 主线程回调，可为 null
+     * @return 任务句柄
+     */
+    public static <T> Task run(@NonNull LifecycleOwner owner, @NonNull Callable<T> work, Callback<T> callback) {
+        return run(owner, work, callback, null);
+    }
+
+    /**
+     * 在后台线程执行数据库操作，并在主线程回调结果或错误
+     * 必须在主线程调用
+     * @param owner 任务所属的生命周期，销毁时自动取消
+     * @param work 后台执行的数据库操作
+     * @param callback 主线程回调，可为 null
+     * @param onError 操作抛出异常时的主线程回调，可为 null；任务取消后不再回调
+     * @return 任务句柄
+     */
+    public static <T> Task run(@NonNull LifecycleOwner owner, @NonNull Callable<T> work, Callback<T> callback,
+                               ErrorCallback onError) {
+        Task task = new Task();
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            task.cancelled = true;
+            return task;
+        }
+
+        LifecycleEventObserver observer = (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) task.cancel();
+        };
+        lifecycle.addObserver(observer);
+        task.onFinish = () -> lifecycle.removeObserver(observer);
+
+        FutureTask<Void> future = new FutureTask<>(() -> {
+            if (task.cancelled) {
+                MAIN_HANDLER.post(task.onFinish);
+                return;
+            }
+            T result;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Database task failed", e);
+                MAIN_HANDLER.post(() -> {
+                    task.onFinish.run();
+                    if (!task.cancelled && onError != null) {
+                        onError.onError(e);
+                    }
+                });
+                return;
+            }
+            MAIN_HANDLER.post(() -> {
+                task.onFinish.run();
+                if (!task.cancelled && callback != null) {
+                    callback.onResult(result);
+                }
+            });
+        }, null);
+        task.future = future;
+        executor.execute(future);
+        return task;
+    }
+
+    /**
+     * 替换执行任务的线程池，传入 null 时恢复默认线程池
+     * 测试用：换成可以确定何时执行完毕的线程池后，不必轮询等待后台任务
+     */
+    @VisibleForTesting
+    public static void setExecutorForTesting(Executor testExecutor) {
+        executor = testExecutor != null ? testExecutor : EXECUTOR;
+    }
+
+    /**
+     * 开启严格模式 (用于测试和调试版本，见 MainActivity)
+     * 主线程上任何 DAO 访问数据库都会直接抛出异常，其他磁盘读写由 StrictMode 记录到日志
+     */
+    public static void enableStrictMode() {
+        DatabaseHelper.setMainThreadAccessAllowed(false);
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .penaltyLog()
+                .build());
+    }
+
+    /**
+     * 关闭严格模式
+     */
+    public static void disableStrictMode() {
+        DatabaseHelper.setMainThreadAccessAllowed(true);
+        StrictMode.setThreadPolicy(StrictMode.ThreadPolicy.LAX);
+    }
+}
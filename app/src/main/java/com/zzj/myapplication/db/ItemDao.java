@@ -18,7 +18,7 @@ public class ItemDao {
     private DatabaseHelper dbHelper;
 
     public ItemDao(Context context) {
-        dbHelper = new DatabaseHelper(context);
+        dbHelper = DatabaseHelper.getInstance(context);
     }
 
     /**
@@ -39,7 +39,7 @@ public class ItemDao {
         values.put(DatabaseHelper.COLUMN_ITEM_PHOTO_PATH, item.getPhotoPath());
 
         long id = db.insert(DatabaseHelper.TABLE_ITEMS, null, values);
-        db.close();
+        TableVersions.bump(DatabaseHelper.TABLE_ITEMS);
         return id;
     }
 
@@ -48,28 +48,41 @@ public class ItemDao {
      * @return 物品对象列表
      */
     public List<Item> getAllItems() {
-        List<Item> itemList = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + DatabaseHelper.TABLE_ITEMS + " ORDER BY " + DatabaseHelper.COLUMN_ID + " DESC";
         SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
+        Cursor cursor = db.query(DatabaseHelper.TABLE_ITEMS, RowMappers.ITEM.projection(),
+                null, null, null, null, DatabaseHelper.COLUMN_ID + " DESC");
+        return RowMappers.ITEM.mapAll(cursor);
+    }
+
+    /**
+     * 按名称全文检索物品，结果按 (购买日期降序, ID 降序) 键集分页
+     * 每个输入词按前缀匹配，多个词需同时命中
+     * @param query 用户输入的检索词
+     * @param after 上一页的最后一个物品，为 null 时返回第一页
+     * @param limit 每页条数
+     * @return 本页物品，没有可检索的词时返回空列表
+     */
+    public List<Item> searchItems(String query, Item after, int limit) {
+        String match = SearchIndex.toMatchQuery(query);
+        if (match == null) return new ArrayList<>();
 
-        if (cursor.moveToFirst()) {
-            do {
-                Item item = new Item(
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NAME)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_STATUS)),
-                        cursor.isNull(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_RECORD_ID)) ? null : cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_RECORD_ID)),
-                        cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_PURCHASE_DATE)),
-                        cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_PRICE)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_PHOTO_PATH))
-                );
-                itemList.add(item);
-            } while (cursor.moveToNext());
+        String selection = DatabaseHelper.COLUMN_ID + " IN (" + SearchIndex.ITEMS_MATCH + ")";
+        String[] args;
+        if (after == null) {
+            args = new String[]{match};
+        } else {
+            selection += " AND (" + DatabaseHelper.COLUMN_ITEM_PURCHASE_DATE + " < ? OR ("
+                    + DatabaseHelper.COLUMN_ITEM_PURCHASE_DATE + " = ? AND " + DatabaseHelper.COLUMN_ID + " < ?))";
+            String afterDate = String.valueOf(after.getPurchaseDate());
+            args = new String[]{match, afterDate, afterDate, String.valueOf(after.getId())};
         }
-        cursor.close();
-        db.close();
-        return itemList;
+
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.query(DatabaseHelper.TABLE_ITEMS, RowMappers.ITEM.projection(),
+                selection, args, null, null,
+                DatabaseHelper.COLUMN_ITEM_PURCHASE_DATE + " DESC, " + DatabaseHelper.COLUMN_ID + " DESC",
+                String.valueOf(limit));
+        return RowMappers.ITEM.mapAll(cursor);
     }
 
     /**
@@ -79,27 +92,10 @@ public class ItemDao {
      */
     public Item getItem(int id) {
         SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.query(DatabaseHelper.TABLE_ITEMS, null,
+        Cursor cursor = db.query(DatabaseHelper.TABLE_ITEMS, RowMappers.ITEM.projection(),
                 DatabaseHelper.COLUMN_ID + "=?", new String[]{String.valueOf(id)},
                 null, null, null);
-
-        Item item = null;
-        if (cursor != null) {
-            if (cursor.moveToFirst()) {
-                item = new Item(
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NAME)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_STATUS)),
-                        cursor.isNull(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_RECORD_ID)) ? null : cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_RECORD_ID)),
-                        cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_PURCHASE_DATE)),
-                        cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_PRICE)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ITEM_PHOTO_PATH))
-                );
-            }
-            cursor.close();
-        }
-        db.close();
-        return item;
+        return RowMappers.ITEM.mapFirst(cursor);
     }
 
     /**
@@ -118,7 +114,7 @@ public class ItemDao {
         
         int rows = db.update(DatabaseHelper.TABLE_ITEMS, values,
                 DatabaseHelper.COLUMN_ID + "=?", new String[]{String.valueOf(item.getId())});
-        db.close();
+        TableVersions.bump(DatabaseHelper.TABLE_ITEMS);
         return rows;
     }
 
@@ -136,7 +132,7 @@ public class ItemDao {
         
         int rows = db.update(DatabaseHelper.TABLE_ITEMS, values, 
                 DatabaseHelper.COLUMN_ID + "=?", new String[]{String.valueOf(itemId)});
-        db.close();
+        TableVersions.bump(DatabaseHelper.TABLE_ITEMS);
         return rows;
     }
 
@@ -148,6 +144,6 @@ public class ItemDao {
         SQLiteDatabase db = dbHelper.getWritableDatabase();
         db.delete(DatabaseHelper.TABLE_ITEMS, DatabaseHelper.COLUMN_ID + " = ?",
                 new String[]{String.valueOf(item.getId())});
-        db.close();
+        TableVersions.bump(DatabaseHelper.TABLE_ITEMS);
     }
 }
@@ -0,0 +1,20 @@
+package com.zzj.myapplication.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * 单步数据库迁移
+ * 每个迁移负责把数据库从 toVersion - 1 升级到 toVersion，只做增量修改，不能丢弃用户数据
+ */
+abstract class Migration {
+    final int toVersion;
+
+    Migration(int toVersion) {
+        this.toVersion = toVersion;
+    }
+
+    /**
+     * 执行迁移 (调用方已开启事务)
+     */
+    abstract void migrate(SQLiteDatabase db);
+}
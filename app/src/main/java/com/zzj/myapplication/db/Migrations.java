@@ -0,0 +1,195 @@
+package com.zzj.myapplication.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * 数据库迁移列表
+ * 版本 1 为 {@link DatabaseHelper} 中的基础建表语句，之后的每次结构变更都在这里追加一个迁移，
+ * 并同步提升 DatabaseHelper.DATABASE_VERSION。已发布的迁移不要再修改。
+ */
+final class Migrations {
+
+    static final int BASE_VERSION = 1;
+
+    // 索引名称
+    static final String INDEX_RECORDS_DATE = "idx_records_date";
+    static final String INDEX_RECORDS_CATEGORY_DATE = "idx_records_category_date";
+    static final String INDEX_RECORDS_ACCOUNT_DATE = "idx_records_account_date";
+    static final String INDEX_ITEMS_RECORD_ID = "idx_items_record_id";
+
+    /**
+     * 按版本号升序排列的迁移
+     */
+    private static final Migration[] MIGRATIONS = {
+            // 2: 为记录表和物品表的高频查询列建立索引
+            new Migration(2) {
+                @Override
+                void migrate(SQLiteDatabase db) {
+                    createIndexes(db);
+                }
+            },
+            // 3: 月度汇总表，由触发器随记录表增量维护
+            new Migration(3) {
+                @Override
+                void migrate(SQLiteDatabase db) {
+                    MonthlySummaryDao.createSchema(db);
+                    MonthlySummaryDao.rebuild(db);
+                }
+            },
+            // 4: 记录备注和物品名称的全文索引
+            new Migration(4) {
+                @Override
+                void migrate(SQLiteDatabase db) {
+                    SearchIndex.createSchema(db);
+                    SearchIndex.rebuild(db);
+                }
+            },
+            // 5: 变更日志 (增量备份)
+            new Migration(5) {
+                @Override
+                void migrate(SQLiteDatabase db) {
+                    ChangeJournal.createSchema(db);
+                }
+            },
+            // 6: 金额、价格、余额和月度汇总改为以分为单位的 INTEGER
+            new Migration(6) {
+                @Override
+                void migrate(SQLiteDatabase db) {
+                    migrateToCents(db);
+                }
+            },
+            // 7: 变更日志只在开启增量备份后记录，删除默认建立的触发器和没有被备份读取的日志
+            new Migration(7) {
+                @Override
+                void migrate(SQLiteDatabase db) {
+                    ChangeJournal.disable(db);
+                }
+            },
+    };
+
+    private Migrations() {}
+
+    /**
+     * 记录表和物品表的索引 (版本 2 引入；重建表后需要重新建立)
+     */
+    private static void createIndexes(SQLiteDatabase db) {
+        // 时间范围查询 / 按日期排序；带上 type 和 amount 使汇总查询无需回表
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_RECORDS_DATE + " ON " + DatabaseHelper.TABLE_RECORDS + "("
+                + DatabaseHelper.COLUMN_RECORD_DATE + ", "
+                + DatabaseHelper.COLUMN_RECORD_TYPE + ", "
+                + DatabaseHelper.COLUMN_RECORD_AMOUNT + ")");
+        // 按分类 / 账户筛选并按日期排序
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_RECORDS_CATEGORY_DATE + " ON " + DatabaseHelper.TABLE_RECORDS + "("
+                + DatabaseHelper.COLUMN_RECORD_CATEGORY_ID + ", "
+                + DatabaseHelper.COLUMN_RECORD_DATE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_RECORDS_ACCOUNT_DATE + " ON " + DatabaseHelper.TABLE_RECORDS + "("
+                + DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID + ", "
+                + DatabaseHelper.COLUMN_RECORD_DATE + ")");
+        // 物品关联记录
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_ITEMS_RECORD_ID + " ON " + DatabaseHelper.TABLE_ITEMS + "("
+                + DatabaseHelper.COLUMN_ITEM_RECORD_ID + ")");
+    }
+
+    /**
+     * SQLite 不能修改列类型，按 "新建表、复制、删除旧表、改名" 的方式重建账户、记录和物品表。
+     * 旧表上的索引和触发器随旧表一起删除，重建后重新建立；全文索引的 rowid 与内容都不变，只需恢复触发器。
+     */
+    private static void migrateToCents(SQLiteDatabase db) {
+        MonthlySummaryDao.dropTriggers(db);
+        SearchIndex.dropTriggers(db);
+        ChangeJournal.dropTriggers(db);
+
+        rebuildTable(db, DatabaseHelper.TABLE_ACCOUNTS,
+                DatabaseHelper.COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                        + DatabaseHelper.COLUMN_NAME + " TEXT, "
+                        + DatabaseHelper.COLUMN_ACCOUNT_TYPE + " TEXT, "
+                        + DatabaseHelper.COLUMN_ACCOUNT_BALANCE + " INTEGER NOT NULL DEFAULT 0",
+                new String[]{DatabaseHelper.COLUMN_ID, DatabaseHelper.COLUMN_NAME, DatabaseHelper.COLUMN_ACCOUNT_TYPE},
+                DatabaseHelper.COLUMN_ACCOUNT_BALANCE);
+        rebuildTable(db, DatabaseHelper.TABLE_RECORDS,
+                DatabaseHelper.COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                        + DatabaseHelper.COLUMN_RECORD_AMOUNT + " INTEGER NOT NULL DEFAULT 0, "
+                        + DatabaseHelper.COLUMN_RECORD_TYPE + " INTEGER, "
+                        + DatabaseHelper.COLUMN_RECORD_CATEGORY_ID + " INTEGER, "
+                        + DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID + " INTEGER, "
+                        + DatabaseHelper.COLUMN_RECORD_DATE + " INTEGER, "
+                        + DatabaseHelper.COLUMN_RECORD_NOTE + " TEXT, "
+                        + "FOREIGN KEY(" + DatabaseHelper.COLUMN_RECORD_CATEGORY_ID + ") REFERENCES "
+                        + DatabaseHelper.TABLE_CATEGORIES + "(" + DatabaseHelper.COLUMN_ID + "), "
+                        + "FOREIGN KEY(" + DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID + ") REFERENCES "
+                        + DatabaseHelper.TABLE_ACCOUNTS + "(" + DatabaseHelper.COLUMN_ID + ")",
+                new String[]{DatabaseHelper.COLUMN_ID, DatabaseHelper.COLUMN_RECORD_TYPE,
+                        DatabaseHelper.COLUMN_RECORD_CATEGORY_ID, DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID,
+                        DatabaseHelper.COLUMN_RECORD_DATE, DatabaseHelper.COLUMN_RECORD_NOTE},
+                DatabaseHelper.COLUMN_RECORD_AMOUNT);
+        rebuildTable(db, DatabaseHelper.TABLE_ITEMS,
+                DatabaseHelper.COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                        + DatabaseHelper.COLUMN_NAME + " TEXT, "
+                        + DatabaseHelper.COLUMN_ITEM_STATUS + " INTEGER, "
+                        + DatabaseHelper.COLUMN_ITEM_RECORD_ID + " INTEGER, "
+                        + DatabaseHelper.COLUMN_ITEM_PURCHASE_DATE + " INTEGER, "
+                        + DatabaseHelper.COLUMN_ITEM_PRICE + " INTEGER NOT NULL DEFAULT 0, "
+                        + DatabaseHelper.COLUMN_ITEM_PHOTO_PATH + " TEXT, "
+                        + "FOREIGN KEY(" + DatabaseHelper.COLUMN_ITEM_RECORD_ID + ") REFERENCES "
+                        + DatabaseHelper.TABLE_RECORDS + "(" + DatabaseHelper.COLUMN_ID + ")",
+                new String[]{DatabaseHelper.COLUMN_ID, DatabaseHelper.COLUMN_NAME, DatabaseHelper.COLUMN_ITEM_STATUS,
+                        DatabaseHelper.COLUMN_ITEM_RECORD_ID, DatabaseHelper.COLUMN_ITEM_PURCHASE_DATE,
+                        DatabaseHelper.COLUMN_ITEM_PHOTO_PATH},
+                DatabaseHelper.COLUMN_ITEM_PRICE);
+        createIndexes(db);
+
+        // 汇总表的合计列同样改为 INTEGER，直接按新数据重算
+        db.execSQL("DROP TABLE IF EXISTS " + DatabaseHelper.TABLE_MONTHLY_SUMMARY);
+        MonthlySummaryDao.createSchema(db);
+        MonthlySummaryDao.rebuild(db);
+        SearchIndex.createTriggers(db);
+        ChangeJournal.createTriggers(db);
+    }
+
+    /**
+     * 用新的列定义重建一张表，moneyColumn 由元换算为分 (四舍五入)，其余列原样复制
+     */
+    private static void rebuildTable(SQLiteDatabase db, String table, String columnDefinitions,
+                                     String[] copiedColumns, String moneyColumn) {
+        String temp = table + "_new";
+        StringBuilder columns = new StringBuilder();
+        for (String column : copiedColumns) columns.append(column).append(", ");
+        db.execSQL("CREATE TABLE " + temp + " (" + columnDefinitions + ")");
+        db.execSQL("INSERT INTO " + temp + " (" + columns + moneyColumn + ")"
+                + " SELECT " + columns + "CAST(ROUND(IFNULL(" + moneyColumn + ", 0) * 100) AS INTEGER) FROM " + table);
+        // 沿用旧表的 AUTOINCREMENT 计数，已删除行的 id 不会被复用
+        db.execSQL("DELETE FROM sqlite_sequence WHERE name = ?", new Object[]{temp});
+        db.execSQL("INSERT INTO sqlite_sequence (name, seq) SELECT ?, seq FROM sqlite_sequence WHERE name = ?",
+                new Object[]{temp, table});
+        db.execSQL("DROP TABLE " + table);
+        db.execSQL("ALTER TABLE " + temp + " RENAME TO " + table);
+    }
+
+    /**
+     * 最新的数据库版本
+     */
+    static int latestVersion() {
+        return MIGRATIONS.length == 0 ? BASE_VERSION : MIGRATIONS[MIGRATIONS.length - 1].toVersion;
+    }
+
+    /**
+     * 依次执行 (fromVersion, toVersion] 区间内的所有迁移
+     * @param db 数据库 (调用方负责事务，SQLiteOpenHelper 的 onCreate / onUpgrade 本身已在事务中)
+     * @param fromVersion 当前版本
+     * @param toVersion 目标版本
+     */
+    static void migrate(SQLiteDatabase db, int fromVersion, int toVersion) {
+        int version = fromVersion;
+        for (Migration migration : MIGRATIONS) {
+            if (migration.toVersion <= fromVersion || migration.toVersion > toVersion) continue;
+            if (migration.toVersion != version + 1) {
+                throw new IllegalStateException("Missing migration " + version + " -> " + (version + 1));
+            }
+            migration.migrate(db);
+            version = migration.toVersion;
+        }
+        if (version != toVersion) {
+            throw new IllegalStateException("Missing migration " + version + " -> " + toVersion);
+        }
+    }
+}
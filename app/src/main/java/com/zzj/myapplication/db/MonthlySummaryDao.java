@@ -0,0 +1,229 @@
+package com.zzj.myapplication.db;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.zzj.myapplication.model.Record;
+
+import java.util.TimeZone;
+
+/**
+ * 月度汇总数据访问对象 (DAO)
+ * monthly_summary 表按 (月份, 账户, 分类, 类型) 保存金额合计与笔数，
+ * 由 records 表上的触发器在每次增删改时同步维护，因此任意月份的收支合计只需读取少量汇总行。
+ *
+ * 月份按写入时的本地时区计算；切换时区后月初月末附近的记录可能落在不同的月份。
+ * 应用启动时 (见 MainActivity) 在后台调用 {@link #checkAndRepairIfTimeZoneChanged()}，
+ * 时区与上次检查时不同才用 {@link #checkAndRepair()} 检查并重建。
+ * 迁移和恢复备份后汇总表整体重建，不需要额外检查。
+ */
+public class MonthlySummaryDao {
+
+    private static final String T = DatabaseHelper.TABLE_MONTHLY_SUMMARY;
+    private static final String MONTH = DatabaseHelper.COLUMN_SUMMARY_MONTH;
+    private static final String ACCOUNT = DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID;
+    private static final String CATEGORY = DatabaseHelper.COLUMN_RECORD_CATEGORY_ID;
+    private static final String TYPE = DatabaseHelper.COLUMN_RECORD_TYPE;
+    private static final String TOTAL = DatabaseHelper.COLUMN_SUMMARY_TOTAL;
+    private static final String COUNT = DatabaseHelper.COLUMN_SUMMARY_COUNT;
+
+    // 记录上次检查汇总表时所用时区的偏好设置
+    private static final String PREFS_NAME = "monthly_summary";
+    private static final String KEY_CHECKED_TIME_ZONE = "checked_time_zone";
+
+    private DatabaseHelper dbHelper;
+    private Context context;
+
+    public MonthlySummaryDao(Context context) {
+        this.context = context.getApplicationContext();
+        dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * 获取某个月的收入和支出合计
+     * @param year 年份，如 2024
+     * @param month 月份 (1 - 12)
+     * @return 长度为 2 的数组 (分)，下标为记录类型 ({@link Record#TYPE_EXPENSE} / {@link Record#TYPE_INCOME})
+     */
+    public long[] getMonthTotals(int year, int month) {
+        long[] totals = new long[2];
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + TYPE + ", SUM(" + TOTAL + ") FROM " + T
+                        + " WHERE " + MONTH + " = ? GROUP BY " + TYPE,
+                new String[]{String.valueOf(year * 100 + month)});
+        try {
+            while (cursor.moveToNext()) {
+                int type = cursor.getInt(0);
+                if (type == Record.TYPE_INCOME || type == Record.TYPE_EXPENSE) {
+                    totals[type] = cursor.getLong(1);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return totals;
+    }
+
+    /**
+     * 根据 records 表重新生成全部汇总数据
+     */
+    public void rebuild() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            rebuild(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        TableVersions.bump(DatabaseHelper.TABLE_MONTHLY_SUMMARY);
+    }
+
+    /**
+     * 将汇总表与 records 表的实际聚合结果逐行比较
+     * @return 不一致的汇总行数，0 表示完全一致
+     */
+    public int countMismatches() {
+        return countMismatches(dbHelper.getReadableDatabase());
+    }
+
+    static int countMismatches(SQLiteDatabase db) {
+        String raw = "(" + SELECT_RAW_AGGREGATE + ")";
+        String key = " USING (" + MONTH + ", " + ACCOUNT + ", " + CATEGORY + ", " + TYPE + ")";
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM ("
+                // 原始数据中存在，但汇总缺失或数值不符
+                + "SELECT r." + MONTH + " FROM " + raw + " r LEFT JOIN " + T + " s" + key
+                + " WHERE s." + COUNT + " IS NULL OR s." + COUNT + " != r." + COUNT
+                + " OR s." + TOTAL + " != r." + TOTAL
+                + " UNION ALL "
+                // 汇总中多出的行
+                + "SELECT s." + MONTH + " FROM " + T + " s LEFT JOIN " + raw + " r" + key
+                + " WHERE r." + COUNT + " IS NULL)", null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * 检查汇总表是否与原始数据一致，不一致时重建
+     * @return 汇总表原本是否一致
+     */
+    public boolean checkAndRepair() {
+        if (countMismatches() == 0) return true;
+        rebuild();
+        return false;
+    }
+
+    /**
+     * 当前时区与上次检查时不同 (或从未检查过) 时执行 {@link #checkAndRepair()}
+     * 检查需要聚合整张记录表，必须在后台线程调用；时区不变时只读取一次偏好设置
+     * @return 是否执行了检查
+     */
+    public boolean checkAndRepairIfTimeZoneChanged() {
+        String timeZone = TimeZone.getDefault().getID();
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (timeZone.equals(prefs.getString(KEY_CHECKED_TIME_ZONE, null))) return false;
+        checkAndRepair();
+        prefs.edit().putString(KEY_CHECKED_TIME_ZONE, timeZone).apply();
+        return true;
+    }
+
+    /**
+     * records 行所属月份 (yyyyMM，本地时区) 的 SQL 表达式
+     */
+    private static String monthOf(String row) {
+        return "CAST(strftime('%Y%m', " + row + DatabaseHelper.COLUMN_RECORD_DATE + " / 1000, 'unixepoch', 'localtime') AS INTEGER)";
+    }
+
+    private static final String SELECT_RAW_AGGREGATE = "SELECT "
+            + monthOf("") + " AS " + MONTH + ", "
+            + "IFNULL(" + ACCOUNT + ", 0) AS " + ACCOUNT + ", "
+            + "IFNULL(" + CATEGORY + ", 0) AS " + CATEGORY + ", "
+            + TYPE + ", "
+            + "SUM(" + DatabaseHelper.COLUMN_RECORD_AMOUNT + ") AS " + TOTAL + ", "
+            + "COUNT(*) AS " + COUNT
+            + " FROM " + DatabaseHelper.TABLE_RECORDS
+            + " GROUP BY 1, 2, 3, 4";
+
+    /**
+     * 建立汇总表及维护它的触发器
+     */
+    static void createSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + T + " ("
+                + MONTH + " INTEGER NOT NULL, "
+                + ACCOUNT + " INTEGER NOT NULL, "
+                + CATEGORY + " INTEGER NOT NULL, "
+                + TYPE + " INTEGER NOT NULL, "
+                + TOTAL + " INTEGER NOT NULL DEFAULT 0, "
+                + COUNT + " INTEGER NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (" + MONTH + ", " + ACCOUNT + ", " + CATEGORY + ", " + TYPE + ")"
+                + ") WITHOUT ROWID");
+        createTriggers(db);
+    }
+
+    /**
+     * 建立 records 表上维护汇总的触发器 (records 表重建后需要重新调用)
+     */
+    static void createTriggers(SQLiteDatabase db) {
+        String r = DatabaseHelper.TABLE_RECORDS;
+        String changedColumns = DatabaseHelper.COLUMN_RECORD_AMOUNT + ", " + TYPE + ", " + CATEGORY + ", "
+                + ACCOUNT + ", " + DatabaseHelper.COLUMN_RECORD_DATE;
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_monthly_summary_insert AFTER INSERT ON " + r + " BEGIN "
+                + addRow("NEW.")
+                + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_monthly_summary_delete AFTER DELETE ON " + r + " BEGIN "
+                + removeRow("OLD.")
+                + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_monthly_summary_update AFTER UPDATE OF " + changedColumns + " ON " + r + " BEGIN "
+                + removeRow("OLD.")
+                + addRow("NEW.")
+                + "END");
+    }
+
+    /**
+     * 删除维护汇总的触发器 (批量导入前调用，导入后用 {@link #rebuild(SQLiteDatabase)} 一次性重算)
+     */
+    static void dropTriggers(SQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS trg_monthly_summary_insert");
+        db.execSQL("DROP TRIGGER IF EXISTS trg_monthly_summary_delete");
+        db.execSQL("DROP TRIGGER IF EXISTS trg_monthly_summary_update");
+    }
+
+    /**
+     * 汇总表中与某条记录对应的行的 WHERE 条件
+     */
+    private static String keyOf(String row) {
+        return " WHERE " + MONTH + " = " + monthOf(row)
+                + " AND " + ACCOUNT + " = IFNULL(" + row + ACCOUNT + ", 0)"
+                + " AND " + CATEGORY + " = IFNULL(" + row + CATEGORY + ", 0)"
+                + " AND " + TYPE + " = " + row + TYPE;
+    }
+
+    private static String addRow(String row) {
+        // 旧版本 SQLite (API 30 以下) 不支持 UPSERT，先确保行存在再累加
+        return "INSERT OR IGNORE INTO " + T + " (" + MONTH + ", " + ACCOUNT + ", " + CATEGORY + ", " + TYPE + ") VALUES ("
+                + monthOf(row) + ", IFNULL(" + row + ACCOUNT + ", 0), IFNULL(" + row + CATEGORY + ", 0), " + row + TYPE + "); "
+                + "UPDATE " + T + " SET " + TOTAL + " = " + TOTAL + " + " + row + DatabaseHelper.COLUMN_RECORD_AMOUNT
+                + ", " + COUNT + " = " + COUNT + " + 1" + keyOf(row) + "; ";
+    }
+
+    private static String removeRow(String row) {
+        return "UPDATE " + T + " SET " + TOTAL + " = " + TOTAL + " - " + row + DatabaseHelper.COLUMN_RECORD_AMOUNT
+                + ", " + COUNT + " = " + COUNT + " - 1" + keyOf(row) + "; "
+                + "DELETE FROM " + T + keyOf(row) + " AND " + COUNT + " <= 0; ";
+    }
+
+    /**
+     * 清空并按 records 表重建汇总数据 (需在调用方的事务中执行)
+     */
+    static void rebuild(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + T);
+        db.execSQL("INSERT INTO " + T + " (" + MONTH + ", " + ACCOUNT + ", " + CATEGORY + ", " + TYPE + ", " + TOTAL + ", " + COUNT + ") "
+                + SELECT_RAW_AGGREGATE);
+    }
+}
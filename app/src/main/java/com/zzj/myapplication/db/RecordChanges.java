@@ -0,0 +1,77 @@
+package com.zzj.myapplication.db;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 记录表的逐行变更通知
+ * {@link TableVersions} 只告诉页面"记录表变了"，适合重新查询；
+ * 本类把每一条新增/删除的记录内容告诉内存中的统计结构 (如 stats 包中的前缀和索引)，
+ * 使其可以增量更新而不必重新读取整张表。
+ *
+ * 通知在写事务提交之后、在写入线程上发出。RecordDao 的"提交 + 通知"与 {@link #runExclusive(Runnable)}
+ * 互斥，因此在 runExclusive 中读取的数据与之后收到的通知正好衔接，既不会遗漏也不会重复。
+ * 导入/恢复 ({@link BulkImport}) 不发逐行通知，而是在提交后发出 {@link Listener#onRecordsReplaced()}。
+ */
+public final class RecordChanges {
+
+    /**
+     * 变更监听者 (回调在写入线程上执行，应尽快返回，不能再写数据库)
+     */
+    public interface Listener {
+        void onRecordAdded(int id, long amount, int type, int categoryId, int accountId, long date);
+
+        void onRecordDeleted(int id, long amount, int type, int categoryId, int accountId, long date);
+
+        /**
+         * 记录表被整体替换，监听者应丢弃根据旧数据建立的状态
+         */
+        void onRecordsReplaced();
+    }
+
+    private static final Object lock = new Object();
+    private static final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private RecordChanges() {}
+
+    public static void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 在没有记录写入正在提交或通知的情况下执行 task (期间 RecordDao 的写入会等待)
+     */
+    public static void runExclusive(Runnable task) {
+        synchronized (lock) {
+            task.run();
+        }
+    }
+
+    /**
+     * RecordDao 写入记录时持有的锁：在其中完成事务提交和通知
+     */
+    static Object writeLock() {
+        return lock;
+    }
+
+    static void added(int id, long amount, int type, int categoryId, int accountId, long date) {
+        for (Listener listener : listeners) {
+            listener.onRecordAdded(id, amount, type, categoryId, accountId, date);
+        }
+    }
+
+    static void deleted(int id, long amount, int type, int categoryId, int accountId, long date) {
+        for (Listener listener : listeners) {
+            listener.onRecordDeleted(id, amount, type, categoryId, accountId, date);
+        }
+    }
+
+    static void replaced() {
+        for (Listener listener : listeners) {
+            listener.onRecordsReplaced();
+        }
+    }
+}
@@ -4,10 +4,16 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.SparseLongArray;
 
+import com.zzj.myapplication.model.DailyTotals;
 import com.zzj.myapplication.model.Record;
 
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -18,13 +24,14 @@ public class RecordDao {
     private DatabaseHelper dbHelper;
 
     public RecordDao(Context context) {
-        dbHelper = new DatabaseHelper(context);
+        dbHelper = DatabaseHelper.getInstance(context);
     }
 
     /**
-     * 添加新的记账记录
+     * 添加新的记账记录，并在同一事务中更新关联账户的余额
+     * 余额以 SQL 增量 (balance = balance ± amount) 的方式更新，不依赖内存中可能已过期的 Account 对象
      * @param record 记录对象
-     * @return 新插入的行ID
+     * @return 新插入的行ID，失败时返回 -1
      */
     public long addRecord(Record record) {
         SQLiteDatabase db = dbHelper.getWritableDatabase();
@@ -36,49 +43,190 @@ public class RecordDao {
         values.put(DatabaseHelper.COLUMN_RECORD_DATE, record.getDate());
         values.put(DatabaseHelper.COLUMN_RECORD_NOTE, record.getNote());
 
-        long id = db.insert(DatabaseHelper.TABLE_RECORDS, null, values);
-        db.close();
+        long id;
+        synchronized (RecordChanges.writeLock()) {
+            db.beginTransaction();
+            try {
+                id = db.insert(DatabaseHelper.TABLE_RECORDS, null, values);
+                if (id != -1) {
+                    applyBalanceDelta(db, record.getAccountId(), balanceDelta(record.getType(), record.getAmount()));
+                    db.setTransactionSuccessful();
+                }
+            } finally {
+                db.endTransaction();
+            }
+            if (id != -1) {
+                RecordChanges.added((int) id, record.getAmount(), record.getType(),
+                        record.getCategoryId(), record.getAccountId(), record.getDate());
+            }
+        }
+        if (id != -1) TableVersions.bump(DatabaseHelper.TABLE_RECORDS, DatabaseHelper.TABLE_ACCOUNTS);
         return id;
     }
 
+    /**
+     * 批量添加记账记录的默认分块大小 (每个事务提交的行数)
+     */
+    public static final int DEFAULT_BATCH_CHUNK_SIZE = 500;
+
+    /**
+     * 批量添加记账记录 (如导入账单)
+     * @param records 要添加的记录
+     * @return 按输入顺序排列的新行ID
+     * @throws android.database.SQLException 某一行插入失败，见 {@link #addRecords(Collection, int)}
+     * @see #addRecords(Collection, int)
+     */
+    public long[] addRecords(Collection<Record> records) {
+        return addRecords(records, DEFAULT_BATCH_CHUNK_SIZE);
+    }
+
+    /**
+     * 批量添加记账记录
+     * 复用同一条预编译的 INSERT 语句，每 chunkSize 行提交一次事务；
+     * 每个分块内各账户的余额变动先在内存中合并，随该分块一起提交。
+     * 每个分块整体成功或整体回滚：某一行插入失败时抛出异常，该行所在的分块 (包括其余额变动) 全部回滚，
+     * 之前已提交的分块保留，之后的分块不再写入。需要整批原子写入时令 chunkSize 不小于记录数。
+     * @param records 要添加的记录
+     * @param chunkSize 每个事务包含的行数
+     * @return 按输入顺序排列的新行ID
+     * @throws android.database.SQLException 某一行插入失败 (如违反约束)
+     */
+    public long[] addRecords(Collection<Record> records, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        long[] ids = new long[records.size()];
+        if (ids.length == 0) return ids;
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + DatabaseHelper.TABLE_RECORDS + " ("
+                + DatabaseHelper.COLUMN_RECORD_AMOUNT + ", "
+                + DatabaseHelper.COLUMN_RECORD_TYPE + ", "
+                + DatabaseHelper.COLUMN_RECORD_CATEGORY_ID + ", "
+                + DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID + ", "
+                + DatabaseHelper.COLUMN_RECORD_DATE + ", "
+                + DatabaseHelper.COLUMN_RECORD_NOTE + ") VALUES (?, ?, ?, ?, ?, ?)");
+        try {
+            Iterator<Record> iterator = records.iterator();
+            SparseLongArray balanceDeltas = new SparseLongArray();
+            Record[] chunk = new Record[Math.min(chunkSize, ids.length)];
+            int index = 0;
+            while (index < ids.length) {
+                int chunkStart = index;
+                int chunkEnd = Math.min(ids.length, index + chunkSize);
+                balanceDeltas.clear();
+                synchronized (RecordChanges.writeLock()) {
+                    db.beginTransaction();
+                    try {
+                        for (; index < chunkEnd; index++) {
+                            Record record = iterator.next();
+                            chunk[index - chunkStart] = record;
+                            insert.clearBindings();
+                            insert.bindLong(1, record.getAmount());
+                            insert.bindLong(2, record.getType());
+                            insert.bindLong(3, record.getCategoryId());
+                            insert.bindLong(4, record.getAccountId());
+                            insert.bindLong(5, record.getDate());
+                            if (record.getNote() != null) {
+                                insert.bindString(6, record.getNote());
+                            } else {
+                                insert.bindNull(6);
+                            }
+                            ids[index] = insert.executeInsert();
+                            balanceDeltas.put(record.getAccountId(), balanceDeltas.get(record.getAccountId())
+                                    + balanceDelta(record.getType(), record.getAmount()));
+                        }
+                        for (int i = 0; i < balanceDeltas.size(); i++) {
+                            applyBalanceDelta(db, balanceDeltas.keyAt(i), balanceDeltas.valueAt(i));
+                        }
+                        db.setTransactionSuccessful();
+                    } finally {
+                        db.endTransaction();
+                    }
+                    for (int i = chunkStart; i < chunkEnd; i++) {
+                        Record record = chunk[i - chunkStart];
+                        RecordChanges.added((int) ids[i], record.getAmount(), record.getType(),
+                                record.getCategoryId(), record.getAccountId(), record.getDate());
+                    }
+                }
+                // 每个分块提交后即通知，导入过程中页面可以逐步看到数据
+                TableVersions.bump(DatabaseHelper.TABLE_RECORDS, DatabaseHelper.TABLE_ACCOUNTS);
+            }
+        } finally {
+            insert.close();
+        }
+        return ids;
+    }
+
     /**
      * 获取所有记账记录 (按日期降序排列)
      * @return 记录对象列表
      */
     public List<Record> getAllRecords() {
-        List<Record> recordList = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + DatabaseHelper.TABLE_RECORDS + " ORDER BY " + DatabaseHelper.COLUMN_RECORD_DATE + " DESC";
         SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
-
-        if (cursor.moveToFirst()) {
-            do {
-                Record record = new Record(
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID)),
-                        cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_AMOUNT)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_TYPE)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_CATEGORY_ID)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID)),
-                        cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_DATE)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_NOTE))
-                );
-                recordList.add(record);
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-        db.close();
-        return recordList;
+        Cursor cursor = db.query(DatabaseHelper.TABLE_RECORDS, RowMappers.RECORD.projection(),
+                null, null, null, null, DatabaseHelper.COLUMN_RECORD_DATE + " DESC");
+        return RowMappers.RECORD.mapAll(cursor);
     }
 
     /**
-     * 删除单条记录
+     * 删除单条记录，并在同一事务中冲回该记录对账户余额的影响
+     * 金额、类型和账户以数据库中的值为准
      * @param record 要删除的记录对象
      */
     public void deleteRecord(Record record) {
         SQLiteDatabase db = dbHelper.getWritableDatabase();
-        db.delete(DatabaseHelper.TABLE_RECORDS, DatabaseHelper.COLUMN_ID + " = ?",
-                new String[]{String.valueOf(record.getId())});
-        db.close();
+        String[] args = new String[]{String.valueOf(record.getId())};
+        long amount;
+        int type;
+        int accountId;
+        int categoryId;
+        long date;
+        synchronized (RecordChanges.writeLock()) {
+            db.beginTransaction();
+            try {
+                Cursor cursor = db.query(DatabaseHelper.TABLE_RECORDS,
+                        new String[]{DatabaseHelper.COLUMN_RECORD_AMOUNT, DatabaseHelper.COLUMN_RECORD_TYPE, DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID,
+                                DatabaseHelper.COLUMN_RECORD_CATEGORY_ID, DatabaseHelper.COLUMN_RECORD_DATE},
+                        DatabaseHelper.COLUMN_ID + " = ?", args, null, null, null);
+                try {
+                    if (!cursor.moveToFirst()) return;
+                    amount = cursor.getLong(0);
+                    type = cursor.getInt(1);
+                    accountId = cursor.getInt(2);
+                    categoryId = cursor.getInt(3);
+                    date = cursor.getLong(4);
+
+                    db.delete(DatabaseHelper.TABLE_RECORDS, DatabaseHelper.COLUMN_ID + " = ?", args);
+                    applyBalanceDelta(db, accountId, -balanceDelta(type, amount));
+                } finally {
+                    cursor.close();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            RecordChanges.deleted(record.getId(), amount, type, categoryId, accountId, date);
+        }
+        TableVersions.bump(DatabaseHelper.TABLE_RECORDS, DatabaseHelper.TABLE_ACCOUNTS);
+    }
+
+    /**
+     * 计算一条记录对账户余额的影响：收入为正，支出为负
+     */
+    static long balanceDelta(int type, long amount) {
+        return type == Record.TYPE_INCOME ? amount : -amount;
+    }
+
+    /**
+     * 在 SQL 侧以增量方式调整账户余额 (需在调用方的事务中执行)
+     */
+    static void applyBalanceDelta(SQLiteDatabase db, int accountId, long delta) {
+        if (delta == 0) return;
+        db.execSQL("UPDATE " + DatabaseHelper.TABLE_ACCOUNTS
+                        + " SET " + DatabaseHelper.COLUMN_ACCOUNT_BALANCE + " = " + DatabaseHelper.COLUMN_ACCOUNT_BALANCE + " + ?"
+                        + " WHERE " + DatabaseHelper.COLUMN_ID + " = ?",
+                new Object[]{delta, accountId});
     }
 
     /**
@@ -88,31 +236,147 @@ public class RecordDao {
      * @return 符合条件的记录列表
      */
     public List<Record> getRecordsByDateRange(long startTime, long endTime) {
-        List<Record> recordList = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + DatabaseHelper.TABLE_RECORDS + 
-                             " WHERE " + DatabaseHelper.COLUMN_RECORD_DATE + " >= ? AND " + 
-                             DatabaseHelper.COLUMN_RECORD_DATE + " <= ? " +
-                             " ORDER BY " + DatabaseHelper.COLUMN_RECORD_DATE + " DESC";
-        
         SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, new String[]{String.valueOf(startTime), String.valueOf(endTime)});
-
-        if (cursor.moveToFirst()) {
-            do {
-                Record record = new Record(
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID)),
-                        cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_AMOUNT)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_TYPE)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_CATEGORY_ID)),
-                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID)),
-                        cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_DATE)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_NOTE))
-                );
-                recordList.add(record);
-            } while (cursor.moveToNext());
+        Cursor cursor = db.query(DatabaseHelper.TABLE_RECORDS, RowMappers.RECORD.projection(),
+                DatabaseHelper.COLUMN_RECORD_DATE + " >= ? AND " + DatabaseHelper.COLUMN_RECORD_DATE + " <= ?",
+                new String[]{String.valueOf(startTime), String.valueOf(endTime)},
+                null, null, DatabaseHelper.COLUMN_RECORD_DATE + " DESC");
+        return RowMappers.RECORD.mapAll(cursor);
+    }
+
+    /**
+     * 按 (日期降序, ID 降序) 分页查询时间范围内的记录 (键集分页)
+     * 以上一页最后一条记录作为游标定位下一页，不使用 OFFSET，因此翻到任意深度的耗时都与第一页相同
+     * @param startTime 开始时间戳 (含)
+     * @param endTime 结束时间戳 (含)
+     * @param after 上一页的最后一条记录，为 null 时返回第一页
+     * @param limit 每页条数
+     * @return 本页记录，条数少于 limit 表示已到末尾
+     */
+    public List<Record> getRecordsPage(long startTime, long endTime, Record after, int limit) {
+        String selection = DatabaseHelper.COLUMN_RECORD_DATE + " >= ? AND " + DatabaseHelper.COLUMN_RECORD_DATE + " <= ?";
+        String[] args;
+        if (after == null) {
+            args = new String[]{String.valueOf(startTime), String.valueOf(endTime)};
+        } else {
+            selection += " AND (" + DatabaseHelper.COLUMN_RECORD_DATE + " < ? OR ("
+                    + DatabaseHelper.COLUMN_RECORD_DATE + " = ? AND " + DatabaseHelper.COLUMN_ID + " < ?))";
+            String afterDate = String.valueOf(after.getDate());
+            args = new String[]{String.valueOf(startTime), String.valueOf(endTime),
+                    afterDate, afterDate, String.valueOf(after.getId())};
+        }
+
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.query(DatabaseHelper.TABLE_RECORDS, RowMappers.RECORD.projection(),
+                selection, args, null, null,
+                DatabaseHelper.COLUMN_RECORD_DATE + " DESC, " + DatabaseHelper.COLUMN_ID + " DESC",
+                String.valueOf(limit));
+        return RowMappers.RECORD.mapAll(cursor);
+    }
+
+    /**
+     * 按备注全文检索记录，结果按 (日期降序, ID 降序) 键集分页
+     * 每个输入词按前缀匹配，多个词需同时命中；FTS4 没有内置相关度打分，记账场景下按时间由近到远排列
+     * @param query 用户输入的检索词
+     * @param after 上一页的最后一条记录，为 null 时返回第一页
+     * @param limit 每页条数
+     * @return 本页记录，没有可检索的词时返回空列表
+     */
+    public List<Record> searchRecords(String query, Record after, int limit) {
+        String match = SearchIndex.toMatchQuery(query);
+        if (match == null) return new ArrayList<>();
+
+        String selection = DatabaseHelper.COLUMN_ID + " IN (" + SearchIndex.RECORDS_MATCH + ")";
+        String[] args;
+        if (after == null) {
+            args = new String[]{match};
+        } else {
+            selection += " AND (" + DatabaseHelper.COLUMN_RECORD_DATE + " < ? OR ("
+                    + DatabaseHelper.COLUMN_RECORD_DATE + " = ? AND " + DatabaseHelper.COLUMN_ID + " < ?))";
+            String afterDate = String.valueOf(after.getDate());
+            args = new String[]{match, afterDate, afterDate, String.valueOf(after.getId())};
+        }
+
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.query(DatabaseHelper.TABLE_RECORDS, RowMappers.RECORD.projection(),
+                selection, args, null, null,
+                DatabaseHelper.COLUMN_RECORD_DATE + " DESC, " + DatabaseHelper.COLUMN_ID + " DESC",
+                String.valueOf(limit));
+        return RowMappers.RECORD.mapAll(cursor);
+    }
+
+    /**
+     * 时间范围内按类型汇总金额的查询 (参数为开始、结束时间戳，闭区间)
+     * WHERE 只有日期条件，SUM 和 GROUP BY 用到的 type、amount 都在日期索引中，整个查询只读索引而不回表
+     */
+    static final String SELECT_TYPE_TOTALS = "SELECT " + DatabaseHelper.COLUMN_RECORD_TYPE
+            + ", SUM(" + DatabaseHelper.COLUMN_RECORD_AMOUNT + ")"
+            + " FROM " + DatabaseHelper.TABLE_RECORDS
+            + " WHERE " + DatabaseHelper.COLUMN_RECORD_DATE + " >= ? AND " + DatabaseHelper.COLUMN_RECORD_DATE + " <= ?"
+            + " GROUP BY " + DatabaseHelper.COLUMN_RECORD_TYPE;
+
+    /**
+     * 汇总时间范围内的收入和支出 (SQL 侧 SUM ... GROUP BY type，走日期索引)
+     * 耗时只与区间内的记录数有关，与历史数据总量无关
+     * @param startTime 开始时间戳 (含)
+     * @param endTime 结束时间戳 (含)
+     * @return 长度为 2 的数组 (分)，下标为记录类型 ({@link Record#TYPE_EXPENSE} / {@link Record#TYPE_INCOME})
+     */
+    public long[] getTypeTotals(long startTime, long endTime) {
+        long[] totals = new long[2];
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.rawQuery(SELECT_TYPE_TOTALS,
+                new String[]{String.valueOf(startTime), String.valueOf(endTime)});
+        try {
+            while (cursor.moveToNext()) {
+                int type = cursor.getInt(0);
+                if (type == Record.TYPE_INCOME || type == Record.TYPE_EXPENSE) {
+                    totals[type] = cursor.getLong(1);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return totals;
+    }
+
+    /**
+     * 按天汇总时间范围内的收入和支出 (SQL 侧 GROUP BY，按本地时区划分日期)
+     * 返回的每一行对应一个有记录的日期，不会为每条记录分配对象
+     * @param startTime 开始时间戳 (含)
+     * @param endTime 结束时间戳 (含)
+     * @return 按日期升序排列的每日收支
+     */
+    public DailyTotals getDailyTotals(long startTime, long endTime) {
+        String amount = DatabaseHelper.COLUMN_RECORD_AMOUNT;
+        String isIncome = DatabaseHelper.COLUMN_RECORD_TYPE + " = " + Record.TYPE_INCOME;
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT CAST(strftime('%Y%m%d', " + DatabaseHelper.COLUMN_RECORD_DATE
+                        + " / 1000, 'unixepoch', 'localtime') AS INTEGER) AS day, "
+                        + "SUM(CASE WHEN " + isIncome + " THEN " + amount + " ELSE 0 END), "
+                        + "SUM(CASE WHEN " + isIncome + " THEN 0 ELSE " + amount + " END)"
+                        + " FROM " + DatabaseHelper.TABLE_RECORDS
+                        + " WHERE " + DatabaseHelper.COLUMN_RECORD_DATE + " >= ? AND " + DatabaseHelper.COLUMN_RECORD_DATE + " <= ?"
+                        + " GROUP BY day ORDER BY day",
+                new String[]{String.valueOf(startTime), String.valueOf(endTime)});
+        try {
+            int count = cursor.getCount();
+            long[] dayStarts = new long[count];
+            long[] income = new long[count];
+            long[] expense = new long[count];
+
+            Calendar cal = Calendar.getInstance();
+            for (int i = 0; i < count && cursor.moveToNext(); i++) {
+                int day = cursor.getInt(0); // yyyyMMdd
+                cal.clear();
+                cal.set(day / 10000, day / 100 % 100 - 1, day % 100);
+                dayStarts[i] = cal.getTimeInMillis();
+                income[i] = cursor.getLong(1);
+                expense[i] = cursor.getLong(2);
+            }
+            return new DailyTotals(dayStarts, income, expense);
+        } finally {
+            cursor.close();
         }
-        cursor.close();
-        db.close();
-        return recordList;
     }
 }
@@ -0,0 +1,175 @@
+package com.zzj.myapplication.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.zzj.myapplication.model.Account;
+import com.zzj.myapplication.model.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分类和账户的进程内缓存
+ * 这两张表数据量很小且很少变化，首次读取时整表加载一次，按 id 和类型建立索引，之后的查找都是纯内存操作。
+ * 缓存以 {@link TableVersions} 中的表版本为准：DAO 写入对应的表 (包括记账时更新账户余额) 后版本变化，
+ * 下一次读取时重新加载。缓存中的对象为共享实例，调用方不要直接修改。
+ */
+public final class ReferenceCache {
+
+    private static volatile Index<Category> categories;
+    private static volatile Index<Account> accounts;
+
+    private ReferenceCache() {}
+
+    /**
+     * 按 id 和类型索引的一张表的只读快照
+     * @param <T> 实体类型
+     */
+    public static final class Index<T> {
+        private final String table;
+        private final long version;
+        private final List<T> all;
+        private final Object[] byId;      // id 较小时直接用数组下标查找
+        private final Map<Integer, T> byIdMap; // id 过于稀疏时退化为 Map
+        private final Map<Object, List<T>> byType;
+
+        Index(String table, long version, List<T> rows, Keys<T> keys) {
+            this.table = table;
+            this.version = version;
+            this.all = Collections.unmodifiableList(rows);
+
+            int maxId = -1;
+            for (T row : rows) maxId = Math.max(maxId, keys.id(row));
+            if (maxId < rows.size() * 4 + 64) {
+                byId = new Object[maxId + 1];
+                byIdMap = null;
+                for (T row : rows) byId[keys.id(row)] = row;
+            } else {
+                byId = null;
+                byIdMap = new HashMap<>();
+                for (T row : rows) byIdMap.put(keys.id(row), row);
+            }
+
+            Map<Object, List<T>> grouped = new HashMap<>();
+            for (T row : rows) {
+                Object type = keys.type(row);
+                List<T> list = grouped.get(type);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    grouped.put(type, list);
+                }
+                list.add(row);
+            }
+            for (Map.Entry<Object, List<T>> entry : grouped.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+            this.byType = grouped;
+        }
+
+        /**
+         * 根据 id 查找，未找到返回 null
+         */
+        @SuppressWarnings("unchecked")
+        public T get(int id) {
+            if (byId != null) {
+                return id >= 0 && id < byId.length ? (T) byId[id] : null;
+            }
+            return byIdMap.get(id);
+        }
+
+        /**
+         * 全部行 (按主键顺序)
+         */
+        public List<T> all() {
+            return all;
+        }
+
+        /**
+         * 某一类型的所有行，没有时返回空列表
+         */
+        public List<T> ofType(Object type) {
+            List<T> list = byType.get(type);
+            return list != null ? list : Collections.<T>emptyList();
+        }
+
+        /**
+         * 快照加载后对应的表是否没有再被写入
+         */
+        public boolean isCurrent() {
+            return version == TableVersions.get(table);
+        }
+    }
+
+    /**
+     * 从实体中取出 id 和分组类型
+     */
+    interface Keys<T> {
+        int id(T row);
+        Object type(T row);
+    }
+
+    private static final Keys<Category> CATEGORY_KEYS = new Keys<Category>() {
+        @Override public int id(Category row) { return row.getId(); }
+        @Override public Object type(Category row) { return row.getType(); }
+    };
+
+    private static final Keys<Account> ACCOUNT_KEYS = new Keys<Account>() {
+        @Override public int id(Account row) { return row.getId(); }
+        @Override public Object type(Account row) { return row.getType(); }
+    };
+
+    /**
+     * 当前有效的分类快照，不做任何 I/O；尚未加载或已失效时返回 null
+     */
+    public static Index<Category> peekCategories() {
+        Index<Category> current = categories;
+        return current != null && current.isCurrent() ? current : null;
+    }
+
+    /**
+     * 当前有效的账户快照，不做任何 I/O；尚未加载或已失效时返回 null
+     */
+    public static Index<Account> peekAccounts() {
+        Index<Account> current = accounts;
+        return current != null && current.isCurrent() ? current : null;
+    }
+
+    /**
+     * 获取分类快照，缓存失效时从数据库重新加载 (需在后台线程调用)
+     */
+    static Index<Category> categories(DatabaseHelper dbHelper) {
+        Index<Category> current = peekCategories();
+        if (current != null) return current;
+
+        // 先取版本再查询：加载期间若有写入，快照的版本会落后，下一次读取时再次加载
+        long version = TableVersions.get(DatabaseHelper.TABLE_CATEGORIES);
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.query(DatabaseHelper.TABLE_CATEGORIES, RowMappers.CATEGORY.projection(),
+                null, null, null, null, DatabaseHelper.COLUMN_ID);
+        Index<Category> loaded = new Index<>(DatabaseHelper.TABLE_CATEGORIES, version,
+                RowMappers.CATEGORY.mapAll(cursor), CATEGORY_KEYS);
+        categories = loaded;
+        return loaded;
+    }
+
+    /**
+     * 获取账户快照，缓存失效时从数据库重新加载 (需在后台线程调用)
+     */
+    static Index<Account> accounts(DatabaseHelper dbHelper) {
+        Index<Account> current = peekAccounts();
+        if (current != null) return current;
+
+        long version = TableVersions.get(DatabaseHelper.TABLE_ACCOUNTS);
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.query(DatabaseHelper.TABLE_ACCOUNTS, RowMappers.ACCOUNT.projection(),
+                null, null, null, null, DatabaseHelper.COLUMN_ID);
+        Index<Account> loaded = new Index<>(DatabaseHelper.TABLE_ACCOUNTS, version,
+                RowMappers.ACCOUNT.mapAll(cursor), ACCOUNT_KEYS);
+        accounts = loaded;
+        return loaded;
+    }
+}
@@ -0,0 +1,74 @@
+package com.zzj.myapplication.db;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标行映射器
+ * 每个映射器声明自己需要的列 (projection)，查询时只选取这些列，
+ * 因此列位置在编译期就已确定，读取每一行时无需再调用 getColumnIndexOrThrow
+ * @param <T> 映射得到的实体类型
+ */
+abstract class RowMapper<T> {
+
+    private final String[] projection;
+    private final String columns;
+
+    RowMapper(String... projection) {
+        this.projection = projection;
+        StringBuilder sb = new StringBuilder();
+        for (String column : projection) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(column);
+        }
+        this.columns = sb.toString();
+    }
+
+    /**
+     * 查询时使用的列，顺序与 {@link #map(Cursor)} 中读取的下标一致
+     */
+    String[] projection() {
+        return projection;
+    }
+
+    /**
+     * 逗号分隔的列清单，用于拼接原始 SQL 的 SELECT 子句
+     */
+    String columns() {
+        return columns;
+    }
+
+    /**
+     * 将游标当前行映射为实体对象
+     */
+    abstract T map(Cursor cursor);
+
+    /**
+     * 读取游标的所有行并关闭游标
+     */
+    List<T> mapAll(Cursor cursor) {
+        List<T> list = new ArrayList<>(Math.max(cursor.getCount(), 0));
+        try {
+            while (cursor.moveToNext()) {
+                list.add(map(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return list;
+    }
+
+    /**
+     * 读取游标的第一行并关闭游标
+     * @return 实体对象，如果没有数据则返回 null
+     */
+    T mapFirst(Cursor cursor) {
+        try {
+            return cursor.moveToFirst() ? map(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+}
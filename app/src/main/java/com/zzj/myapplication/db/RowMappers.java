@@ -0,0 +1,88 @@
+package com.zzj.myapplication.db;
+
+import android.database.Cursor;
+
+import com.zzj.myapplication.model.Account;
+import com.zzj.myapplication.model.Category;
+import com.zzj.myapplication.model.Item;
+import com.zzj.myapplication.model.Record;
+
+/**
+ * 各张表的行映射器
+ */
+final class RowMappers {
+
+    private RowMappers() {}
+
+    static final RowMapper<Account> ACCOUNT = new RowMapper<Account>(
+            DatabaseHelper.COLUMN_ID,
+            DatabaseHelper.COLUMN_NAME,
+            DatabaseHelper.COLUMN_ACCOUNT_TYPE,
+            DatabaseHelper.COLUMN_ACCOUNT_BALANCE) {
+        @Override
+        Account map(Cursor cursor) {
+            return new Account(
+                    cursor.getInt(0),
+                    cursor.getString(1),
+                    cursor.getString(2),
+                    cursor.getLong(3));
+        }
+    };
+
+    static final RowMapper<Category> CATEGORY = new RowMapper<Category>(
+            DatabaseHelper.COLUMN_ID,
+            DatabaseHelper.COLUMN_NAME,
+            DatabaseHelper.COLUMN_CATEGORY_TYPE,
+            DatabaseHelper.COLUMN_CATEGORY_ICON) {
+        @Override
+        Category map(Cursor cursor) {
+            return new Category(
+                    cursor.getInt(0),
+                    cursor.getString(1),
+                    cursor.getInt(2),
+                    cursor.getString(3));
+        }
+    };
+
+    static final RowMapper<Record> RECORD = new RowMapper<Record>(
+            DatabaseHelper.COLUMN_ID,
+            DatabaseHelper.COLUMN_RECORD_AMOUNT,
+            DatabaseHelper.COLUMN_RECORD_TYPE,
+            DatabaseHelper.COLUMN_RECORD_CATEGORY_ID,
+            DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID,
+            DatabaseHelper.COLUMN_RECORD_DATE,
+            DatabaseHelper.COLUMN_RECORD_NOTE) {
+        @Override
+        Record map(Cursor cursor) {
+            return new Record(
+                    cursor.getInt(0),
+                    cursor.getLong(1),
+                    cursor.getInt(2),
+                    cursor.getInt(3),
+                    cursor.getInt(4),
+                    cursor.getLong(5),
+                    cursor.getString(6));
+        }
+    };
+
+    static final RowMapper<Item> ITEM = new RowMapper<Item>(
+            DatabaseHelper.COLUMN_ID,
+            DatabaseHelper.COLUMN_NAME,
+            DatabaseHelper.COLUMN_ITEM_STATUS,
+            DatabaseHelper.COLUMN_ITEM_RECORD_ID,
+            DatabaseHelper.COLUMN_ITEM_PURCHASE_DATE,
+            DatabaseHelper.COLUMN_ITEM_PRICE,
+            DatabaseHelper.COLUMN_ITEM_PHOTO_PATH) {
+        @Override
+        Item map(Cursor cursor) {
+            return new Item(
+                    cursor.getInt(0),
+                    cursor.getString(1),
+                    cursor.getInt(2),
+                    cursor.isNull(3) ? null : cursor.getInt(3),
+                    cursor.getLong(4),
+                    cursor.getLong(5),
+                    cursor.getString(6));
+        }
+    };
+}
@@ -0,0 +1,130 @@
+package com.zzj.myapplication.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+
+/**
+ * 全文检索索引
+ * 为 records.note 和 items.name 建立 FTS4 外部内容表 (content=)，索引只保存词项不重复保存原文，
+ * 由触发器随原表的增删改同步。系统自带的 SQLite 不保证编译了 FTS5，因此使用 FTS4；
+ * 分词器优先使用 icu (能切分中文词语)，不可用时依次退回 unicode61 和 simple。
+ */
+final class SearchIndex {
+
+    static final String TABLE_RECORDS_FTS = "records_fts";
+    static final String TABLE_ITEMS_FTS = "items_fts";
+
+    private static final String[] TOKENIZERS = {"icu", "unicode61", "simple"};
+
+    /**
+     * 匹配记录备注的子查询，返回命中的 records._id，参数为 {@link #toMatchQuery(String)} 的结果
+     */
+    static final String RECORDS_MATCH = "SELECT docid FROM " + TABLE_RECORDS_FTS
+            + " WHERE " + TABLE_RECORDS_FTS + " MATCH ?";
+
+    /**
+     * 匹配物品名称的子查询，返回命中的 items._id
+     */
+    static final String ITEMS_MATCH = "SELECT docid FROM " + TABLE_ITEMS_FTS
+            + " WHERE " + TABLE_ITEMS_FTS + " MATCH ?";
+
+    private SearchIndex() {}
+
+    /**
+     * 建立全文索引表及同步触发器
+     */
+    static void createSchema(SQLiteDatabase db) {
+        createFtsTable(db, TABLE_RECORDS_FTS, DatabaseHelper.TABLE_RECORDS, DatabaseHelper.COLUMN_RECORD_NOTE);
+        createFtsTable(db, TABLE_ITEMS_FTS, DatabaseHelper.TABLE_ITEMS, DatabaseHelper.COLUMN_NAME);
+        createTriggers(db);
+    }
+
+    /**
+     * 建立原表上同步全文索引的触发器 (原表重建后需要重新调用)
+     */
+    static void createTriggers(SQLiteDatabase db) {
+        createSyncTriggers(db, TABLE_RECORDS_FTS, DatabaseHelper.TABLE_RECORDS, DatabaseHelper.COLUMN_RECORD_NOTE);
+        createSyncTriggers(db, TABLE_ITEMS_FTS, DatabaseHelper.TABLE_ITEMS, DatabaseHelper.COLUMN_NAME);
+    }
+
+    /**
+     * 删除同步触发器 (批量导入前调用，导入后用 {@link #rebuild(SQLiteDatabase)} 一次性重建索引)
+     */
+    static void dropTriggers(SQLiteDatabase db) {
+        for (String fts : new String[]{TABLE_RECORDS_FTS, TABLE_ITEMS_FTS}) {
+            db.execSQL("DROP TRIGGER IF EXISTS trg_" + fts + "_insert");
+            db.execSQL("DROP TRIGGER IF EXISTS trg_" + fts + "_delete");
+            db.execSQL("DROP TRIGGER IF EXISTS trg_" + fts + "_before_update");
+            db.execSQL("DROP TRIGGER IF EXISTS trg_" + fts + "_after_update");
+        }
+    }
+
+    /**
+     * 根据原表内容重新生成全部索引
+     */
+    static void rebuild(SQLiteDatabase db) {
+        db.execSQL("INSERT INTO " + TABLE_RECORDS_FTS + "(" + TABLE_RECORDS_FTS + ") VALUES('rebuild')");
+        db.execSQL("INSERT INTO " + TABLE_ITEMS_FTS + "(" + TABLE_ITEMS_FTS + ") VALUES('rebuild')");
+    }
+
+    private static void createFtsTable(SQLiteDatabase db, String fts, String table, String column) {
+        SQLiteException lastError = null;
+        for (String tokenizer : TOKENIZERS) {
+            try {
+                // prefix="1,2": 为 1、2 个字符的前缀额外建索引，短前缀查询不必扫描整个词表
+                db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + fts + " USING fts4("
+                        + "content=\"" + table + "\", " + column + ", prefix=\"1,2\", tokenize=" + tokenizer + ")");
+                return;
+            } catch (SQLiteException e) {
+                lastError = e;
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * 外部内容表的同步方式：删除索引项时 FTS 需要从原表读取旧内容，所以删除必须放在 BEFORE 触发器中
+     */
+    private static void createSyncTriggers(SQLiteDatabase db, String fts, String table, String column) {
+        String id = DatabaseHelper.COLUMN_ID;
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_" + fts + "_insert AFTER INSERT ON " + table + " BEGIN "
+                + "INSERT INTO " + fts + "(docid, " + column + ") VALUES (NEW." + id + ", NEW." + column + "); "
+                + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_" + fts + "_delete BEFORE DELETE ON " + table + " BEGIN "
+                + "DELETE FROM " + fts + " WHERE docid = OLD." + id + "; "
+                + "END");
+        // 只在被索引的列变化时重建该行的索引，更新物品状态等操作不会触发
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_" + fts + "_before_update BEFORE UPDATE OF " + column + " ON " + table + " BEGIN "
+                + "DELETE FROM " + fts + " WHERE docid = OLD." + id + "; "
+                + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_" + fts + "_after_update AFTER UPDATE OF " + column + " ON " + table + " BEGIN "
+                + "INSERT INTO " + fts + "(docid, " + column + ") VALUES (NEW." + id + ", NEW." + column + "); "
+                + "END");
+    }
+
+    /**
+     * 把用户输入转换为 FTS 查询表达式
+     * 按空白切分，每个词作为一个带前缀匹配的短语 ("词*")，多个词之间为 AND。
+     * 去掉双引号后用户输入中的 OR、NOT、*、- 等都只按普通文本处理；只含标点的词被忽略。
+     * @param input 用户输入
+     * @return MATCH 表达式，没有可检索的词时返回 null
+     */
+    static String toMatchQuery(String input) {
+        if (input == null) return null;
+        StringBuilder query = new StringBuilder();
+        for (String term : input.trim().split("\\s+")) {
+            term = term.replace("\"", "").replace("*", "");
+            if (!hasWordCharacter(term)) continue;
+            if (query.length() > 0) query.append(' ');
+            query.append('"').append(term).append("*\"");
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+
+    private static boolean hasWordCharacter(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (Character.isLetterOrDigit(term.charAt(i))) return true;
+        }
+        return false;
+    }
+}
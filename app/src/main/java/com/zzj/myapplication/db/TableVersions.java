@@ -0,0 +1,91 @@
+package com.zzj.myapplication.db;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 表级数据版本
+ * DAO 的每个写操作在提交后递增所涉及表的版本号；页面用 {@link Stamp} 记录自己上次读取时的版本，
+ * 只有依赖的表确实发生变化时才重新查询。版本只在进程内有效，进程重启后从 0 开始。
+ */
+public final class TableVersions {
+
+    private static final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private TableVersions() {}
+
+    /**
+     * 获取某张表的当前版本
+     */
+    public static long get(String table) {
+        AtomicLong version = versions.get(table);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * 标记若干张表已被修改 (由 DAO 在写操作提交后调用)
+     */
+    static void bump(String... tables) {
+        for (String table : tables) {
+            AtomicLong version = versions.get(table);
+            if (version == null) {
+                AtomicLong created = new AtomicLong();
+                version = versions.putIfAbsent(table, created);
+                if (version == null) version = created;
+            }
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * 页面对一组表的已读版本记录
+     * 用法：加载前调用 {@link #snapshot()}，加载结果交付后调用 {@link #markSeen(long[])}；
+     * 之后 {@link #isStale()} 为 false 表示这些表没有任何写入，可以跳过查询。
+     * 加载期间发生的写入会使下一次检查重新变为 stale。
+     */
+    public static final class Stamp {
+        private final String[] tables;
+        private long[] seen; // 为 null 表示从未加载过
+
+        public Stamp(String... tables) {
+            this.tables = tables;
+        }
+
+        /**
+         * 当前各表版本的快照
+         */
+        public long[] snapshot() {
+            long[] current = new long[tables.length];
+            for (int i = 0; i < tables.length; i++) {
+                current[i] = get(tables[i]);
+            }
+            return current;
+        }
+
+        /**
+         * 记录已读取到 snapshot 对应的数据
+         */
+        public void markSeen(long[] snapshot) {
+            seen = snapshot;
+        }
+
+        /**
+         * 是否需要重新加载 (从未加载或依赖的表有新的写入)
+         */
+        public boolean isStale() {
+            if (seen == null) return true;
+            for (int i = 0; i < tables.length; i++) {
+                if (get(tables[i]) != seen[i]) return true;
+            }
+            return false;
+        }
+
+        /**
+         * 丢弃已读记录，下一次检查必定需要重新加载
+         */
+        public void invalidate() {
+            seen = null;
+        }
+    }
+}
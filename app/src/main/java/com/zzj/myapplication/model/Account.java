@@ -8,18 +8,18 @@ public class Account {
     private int id;
     private String name;
     private String type; // 账户类型 (如: Cash, Card, WeChat, Alipay)
-    private double balance;
+    private long balance; // 分
 
     public Account() {}
 
-    public Account(int id, String name, String type, double balance) {
+    public Account(int id, String name, String type, long balance) {
         this.id = id;
         this.name = name;
         this.type = type;
         this.balance = balance;
     }
 
-    public Account(String name, String type, double balance) {
+    public Account(String name, String type, long balance) {
         this.name = name;
         this.type = type;
         this.balance = balance;
@@ -35,8 +35,8 @@ public class Account {
     public void setType(String type) { this.type = type; }
 
     /**
-     * 获取账户当前余额
+     * 获取账户当前余额 (分，见 {@link Money})
      */
-    public double getBalance() { return balance; }
-    public void setBalance(double balance) { this.balance = balance; }
+    public long getBalance() { return balance; }
+    public void setBalance(long balance) { this.balance = balance; }
 }
@@ -0,0 +1,40 @@
+package com.zzj.myapplication.model;
+
+/**
+ * 按天汇总的收支序列
+ * 使用平行的基本类型数组保存，第 i 天的数据为 (dayStarts[i], income[i], expense[i])，
+ * 只包含有记录的日期，按日期升序排列；金额单位为分
+ */
+public class DailyTotals {
+    public final long[] dayStarts; // 当天 00:00 的时间戳 (本地时区)
+    public final long[] income;
+    public final long[] expense;
+
+    public DailyTotals(long[] dayStarts, long[] income, long[] expense) {
+        this.dayStarts = dayStarts;
+        this.income = income;
+        this.expense = expense;
+    }
+
+    public int size() { return dayStarts.length; }
+
+    public boolean isEmpty() { return dayStarts.length == 0; }
+
+    /**
+     * 整个区间的收入合计
+     */
+    public long totalIncome() {
+        long sum = 0;
+        for (long v : income) sum += v;
+        return sum;
+    }
+
+    /**
+     * 整个区间的支出合计
+     */
+    public long totalExpense() {
+        long sum = 0;
+        for (long v : expense) sum += v;
+        return sum;
+    }
+}
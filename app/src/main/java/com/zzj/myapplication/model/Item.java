@@ -10,7 +10,7 @@ public class Item {
     private int status; // 0: 使用中, 1: 闲置, 2: 丢失, 3: 已售
     private Integer recordId; // 可为空, 关联到 Record 表的外键
     private long purchaseDate;
-    private double price;
+    private long price; // 分
     private String photoPath;
 
     public static final int STATUS_IN_USE = 0;
@@ -20,7 +20,7 @@ public class Item {
 
     public Item() {}
 
-    public Item(int id, String name, int status, Integer recordId, long purchaseDate, double price, String photoPath) {
+    public Item(int id, String name, int status, Integer recordId, long purchaseDate, long price, String photoPath) {
         this.id = id;
         this.name = name;
         this.status = status;
@@ -30,7 +30,7 @@ public class Item {
         this.photoPath = photoPath;
     }
 
-    public Item(String name, int status, Integer recordId, long purchaseDate, double price, String photoPath) {
+    public Item(String name, int status, Integer recordId, long purchaseDate, long price, String photoPath) {
         this.name = name;
         this.status = status;
         this.recordId = recordId;
@@ -54,8 +54,8 @@ public class Item {
     public long getPurchaseDate() { return purchaseDate; }
     public void setPurchaseDate(long purchaseDate) { this.purchaseDate = purchaseDate; }
 
-    public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    public long getPrice() { return price; }
+    public void setPrice(long price) { this.price = price; }
 
     /**
      * 获取物品图片路径
@@ -0,0 +1,56 @@
+package com.zzj.myapplication.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 金额工具类
+ * 所有金额 (记录金额、物品价格、账户余额) 都以分为单位保存在 long 中，数据库中为 INTEGER 列。
+ * 整数加减没有舍入误差，SQL 的 SUM 与 Java 中的累加结果完全一致，也不需要装箱成 Double。
+ * 只有在界面输入输出和图表坐标换算时才与元互相转换。
+ */
+public final class Money {
+
+    private Money() {}
+
+    /**
+     * 解析用户输入的金额 (元)，如 "12"、"12.5"、"-0.05"；超过两位的小数四舍五入到分
+     * @return 金额 (分)
+     * @throws NumberFormatException 不是合法的数字或超出范围
+     */
+    public static long parse(String text) {
+        try {
+            return new BigDecimal(text.trim()).movePointRight(2)
+                    .setScale(0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    /**
+     * 格式化为两位小数的元，如 1250 -> "12.50"、-5 -> "-0.05"
+     */
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(24), cents).toString();
+    }
+
+    /**
+     * 将两位小数的元追加到 sb (不经过 String.format，不创建中间对象)
+     */
+    public static StringBuilder appendTo(StringBuilder sb, long cents) {
+        long yuan = cents / 100;
+        int fraction = (int) Math.abs(cents % 100);
+        if (cents < 0 && yuan == 0) sb.append('-');
+        sb.append(yuan).append('.');
+        if (fraction < 10) sb.append('0');
+        return sb.append(fraction);
+    }
+
+    /**
+     * 换算为元 (仅用于图表坐标、日均成本等展示用途，不要再参与累加)
+     */
+    public static double toYuan(long cents) {
+        return cents / 100.0;
+    }
+}
@@ -6,7 +6,7 @@ package com.zzj.myapplication.model;
  */
 public class Record {
     private int id;
-    private double amount;
+    private long amount; // 分
     private int type; // 0: 支出, 1: 收入
     private int categoryId;
     private int accountId;
@@ -18,7 +18,7 @@ public class Record {
 
     public Record() {}
 
-    public Record(int id, double amount, int type, int categoryId, int accountId, long date, String note) {
+    public Record(int id, long amount, int type, int categoryId, int accountId, long date, String note) {
         this.id = id;
         this.amount = amount;
         this.type = type;
@@ -28,7 +28,7 @@ public class Record {
         this.note = note;
     }
 
-    public Record(double amount, int type, int categoryId, int accountId, long date, String note) {
+    public Record(long amount, int type, int categoryId, int accountId, long date, String note) {
         this.amount = amount;
         this.type = type;
         this.categoryId = categoryId;
@@ -40,8 +40,11 @@ public class Record {
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
 
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    /**
+     * 获取金额 (分，见 {@link Money})
+     */
+    public long getAmount() { return amount; }
+    public void setAmount(long amount) { this.amount = amount; }
 
     /**
      * 获取记录类型 (0: 支出, 1: 收入)
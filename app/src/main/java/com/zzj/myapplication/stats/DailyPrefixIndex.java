@@ -0,0 +1,204 @@
+package com.zzj.myapplication.stats;
+
+import com.zzj.myapplication.model.Record;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * 按天的收支前缀和索引 (树状数组 / Fenwick tree)
+ * 每个 (分组, 类型) 一棵树，下标为本地日期，任意日期区间的合计在 O(log 天数) 内得到，与记录条数无关；
+ * 增加或删除一条记录也只需 O(log 天数)。
+ * 分组可以是账户或分类 (见 {@link Dimension})，不分组时只有一个分组 0。
+ *
+ * 索引按天汇总：区间查询统计 start 所在日期到 end 所在日期 (含) 的整天。
+ * 日期范围随记录自动扩展，记录日期按 {@link LocalDays#indexedDayOf} 限制在支持的范围内。非线程安全，由调用方 (如 {@link LedgerStats}) 同步。
+ */
+public final class DailyPrefixIndex {
+
+    /**
+     * 分组方式
+     */
+    public enum Dimension {
+        NONE,
+        ACCOUNT,
+        CATEGORY
+    }
+
+    private final Dimension dimension;
+    private final TimeZone timeZone;
+    /**
+     * 第一个槽位对应的日期编号
+     */
+    private int origin;
+    private int capacity;
+    /**
+     * trees[分组 * 2 + 类型]，下标从 1 开始，长度 capacity + 1；从未出现过的组合为 null
+     */
+    private long[][] trees = new long[0][];
+
+    public DailyPrefixIndex(Dimension dimension) {
+        this(dimension, TimeZone.getDefault());
+    }
+
+    DailyPrefixIndex(Dimension dimension, TimeZone timeZone) {
+        this.dimension = dimension;
+        this.timeZone = timeZone;
+    }
+
+    /**
+     * 从列式快照一次性建立索引：先按天累加，再 O(天数) 地原地转换为树状数组
+     */
+    public static DailyPrefixIndex build(RecordColumns columns, Dimension dimension) {
+        return build(columns, dimension, TimeZone.getDefault());
+    }
+
+    static DailyPrefixIndex build(RecordColumns columns, Dimension dimension, TimeZone timeZone) {
+        DailyPrefixIndex index = new DailyPrefixIndex(dimension, timeZone);
+        if (columns.size == 0) return index;
+
+        int first = LocalDays.indexedDayOf(columns.dates[0], timeZone);
+        int last = LocalDays.indexedDayOf(columns.dates[columns.size - 1], timeZone);
+        index.resize(first, last);
+        for (int i = 0; i < columns.size; i++) {
+            int type = columns.types[i];
+            if (type != Record.TYPE_INCOME && type != Record.TYPE_EXPENSE) continue;
+            int slot = LocalDays.indexedDayOf(columns.dates[i], timeZone) - index.origin + 1;
+            index.tree(index.keyOf(columns.categoryIds[i], columns.accountIds[i]), type)[slot] += columns.amounts[i];
+        }
+        for (long[] tree : index.trees) {
+            if (tree != null) toFenwick(tree);
+        }
+        return index;
+    }
+
+    public Dimension dimension() {
+        return dimension;
+    }
+
+    /**
+     * 计入一条新记录
+     */
+    public void add(long date, int type, long amount, int categoryId, int accountId) {
+        if (type != Record.TYPE_INCOME && type != Record.TYPE_EXPENSE) return;
+        int day = LocalDays.indexedDayOf(date, timeZone);
+        if (capacity == 0 || day < origin || day >= origin + capacity) {
+            resize(capacity == 0 ? day : Math.min(origin, day), capacity == 0 ? day : Math.max(origin + capacity - 1, day));
+        }
+        long[] tree = tree(keyOf(categoryId, accountId), type);
+        for (int i = day - origin + 1; i <= capacity; i += i & -i) {
+            tree[i] += amount;
+        }
+    }
+
+    /**
+     * 冲回一条已计入的记录
+     */
+    public void remove(long date, int type, long amount, int categoryId, int accountId) {
+        add(date, type, -amount, categoryId, accountId);
+    }
+
+    /**
+     * 全部分组在日期区间内的收支合计
+     * @return 长度为 2 的数组，下标为 Record.TYPE_EXPENSE / Record.TYPE_INCOME
+     */
+    public long[] totals(long startTime, long endTime) {
+        long[] totals = new long[2];
+        for (int key = 0; key * 2 < trees.length; key++) {
+            addTotals(key, startTime, endTime, totals);
+        }
+        return totals;
+    }
+
+    /**
+     * 某个账户或分类 (取决于 {@link #dimension()}) 在日期区间内的收支合计
+     * @return 长度为 2 的数组，下标为 Record.TYPE_EXPENSE / Record.TYPE_INCOME
+     */
+    public long[] totals(int key, long startTime, long endTime) {
+        long[] totals = new long[2];
+        if (key >= 0 && key * 2 < trees.length) addTotals(key, startTime, endTime, totals);
+        return totals;
+    }
+
+    private void addTotals(int key, long startTime, long endTime, long[] totals) {
+        if (capacity == 0 || startTime > endTime) return;
+        // 把区间裁剪到索引覆盖的日期 [origin, origin + capacity)，转换为槽位 [from, to]
+        long from = Math.max((long) LocalDays.dayOf(startTime, timeZone) - origin + 1, 1);
+        long to = Math.min((long) LocalDays.dayOf(endTime, timeZone) - origin + 1, capacity);
+        if (from > to) return;
+        for (int type = 0; type < 2; type++) {
+            long[] tree = trees[key * 2 + type];
+            if (tree != null) totals[type] += prefix(tree, (int) to) - prefix(tree, (int) from - 1);
+        }
+    }
+
+    private static long prefix(long[] tree, int slot) {
+        long sum = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private int keyOf(int categoryId, int accountId) {
+        switch (dimension) {
+            case ACCOUNT:
+                return Math.max(accountId, 0);
+            case CATEGORY:
+                return Math.max(categoryId, 0);
+            default:
+                return 0;
+        }
+    }
+
+    private long[] tree(int key, int type) {
+        int position = key * 2 + type;
+        if (position >= trees.length) {
+            trees = Arrays.copyOf(trees, Math.max(position + 1, trees.length * 2));
+        }
+        if (trees[position] == null) trees[position] = new long[capacity + 1];
+        return trees[position];
+    }
+
+    /**
+     * 扩展日期范围使其覆盖 [firstDay, lastDay]，两侧留出余量以免频繁扩展
+     * 两端都在支持的日期范围内，span 不超过约 11 万天，翻倍后不会溢出
+     */
+    private void resize(int firstDay, int lastDay) {
+        int span = lastDay - firstDay + 1;
+        int newCapacity = Math.max(64, Integer.highestOneBit(span) * 2);
+        // 新记录多在最近的日期，大部分余量留在后面
+        int newOrigin = firstDay - (newCapacity - span) / 4;
+        for (int i = 0; i < trees.length; i++) {
+            long[] tree = trees[i];
+            if (tree == null) continue;
+            fromFenwick(tree);
+            long[] resized = new long[newCapacity + 1];
+            System.arraycopy(tree, 1, resized, origin - newOrigin + 1, capacity);
+            toFenwick(resized);
+            trees[i] = resized;
+        }
+        origin = newOrigin;
+        capacity = newCapacity;
+    }
+
+    /**
+     * 把按天的数值原地转换为树状数组 (O(n))
+     */
+    private static void toFenwick(long[] tree) {
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) tree[parent] += tree[i];
+        }
+    }
+
+    /**
+     * {@link #toFenwick(long[])} 的逆操作
+     */
+    private static void fromFenwick(long[] tree) {
+        for (int i = tree.length - 1; i > 0; i--) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) tree[parent] -= tree[i];
+        }
+    }
+}
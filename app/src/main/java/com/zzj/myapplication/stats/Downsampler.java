@@ -0,0 +1,83 @@
+package com.zzj.myapplication.stats;
+
+import java.util.Arrays;
+
+/**
+ * 折线图的点数压缩 (最小/最大值分桶)
+ * 把一段序列等分成若干桶，每个桶只保留最小值和最大值所在的点 (按原顺序)，另外总是保留首尾两点。
+ * 压缩后的点数不超过目标点数 (通常取图表的像素宽度)，而每个峰值和谷值都原样保留，
+ * 画出的折线在像素级别上与原序列看不出差别；绘制耗时只与目标点数有关，与序列长度无关。
+ */
+public final class Downsampler {
+
+    private Downsampler() {}
+
+    /**
+     * @return 保留的点在 values 中的下标，升序
+     * @see #minMax(double[], int, int, int)
+     */
+    public static int[] minMax(double[] values, int targetPoints) {
+        return minMax(values, 0, values.length, targetPoints);
+    }
+
+    /**
+     * 压缩 values[from, to) 这一段
+     * @param targetPoints 最多保留的点数 (小于 4 时按 4 计算)
+     * @return 保留的点在 values 中的下标，升序；点数不超过 targetPoints 时返回这一段的全部下标
+     */
+    public static int[] minMax(double[] values, int from, int to, int targetPoints) {
+        int[] out = new int[capacity(to - from, targetPoints)];
+        int size = minMax(values, from, to, targetPoints, out);
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * 同 {@link #minMax(double[], int, int, int)}，结果写入调用方复用的数组，不分配对象 (用于逐帧的视口更新)
+     * @param out 长度不小于 {@link #capacity(int, int) capacity(to - from, targetPoints)}
+     * @return 写入 out 的下标个数
+     */
+    public static int minMax(double[] values, int from, int to, int targetPoints, int[] out) {
+        int count = to - from;
+        if (count <= Math.max(targetPoints, 4)) {
+            for (int i = 0; i < count; i++) out[i] = from + i;
+            return Math.max(count, 0);
+        }
+
+        // 首尾各一个点，其余每个桶最多两个点
+        int buckets = buckets(targetPoints);
+        int inner = count - 2;
+        int size = 0;
+        out[size++] = from;
+        for (int b = 0; b < buckets; b++) {
+            int start = from + 1 + (int) ((long) inner * b / buckets);
+            int end = from + 1 + (int) ((long) inner * (b + 1) / buckets);
+            if (start >= end) continue;
+            int min = start;
+            int max = start;
+            for (int i = start + 1; i < end; i++) {
+                if (values[i] < values[min]) min = i;
+                if (values[i] > values[max]) max = i;
+            }
+            if (min == max) {
+                out[size++] = min;
+            } else {
+                out[size++] = Math.min(min, max);
+                out[size++] = Math.max(min, max);
+            }
+        }
+        out[size++] = to - 1;
+        return size;
+    }
+
+    /**
+     * 压缩 count 个点最多保留的点数，不超过 max(targetPoints, 4)
+     */
+    public static int capacity(int count, int targetPoints) {
+        if (count <= Math.max(targetPoints, 4)) return Math.max(count, 0);
+        return 2 + buckets(targetPoints) * 2;
+    }
+
+    private static int buckets(int targetPoints) {
+        return Math.max(1, (targetPoints - 2) / 2);
+    }
+}
@@ -0,0 +1,181 @@
+package com.zzj.myapplication.stats;
+
+import android.content.Context;
+
+import com.zzj.myapplication.db.RecordChanges;
+
+import java.util.TimeZone;
+
+/**
+ * 进程内的记录统计索引
+ * 首次查询时从数据库读取一次全部记录 ({@link RecordColumns}) 建立按天的前缀和索引和多粒度汇总，
+ * 之后通过 {@link RecordChanges} 随每条记录的新增/删除增量更新，不再重新读表；
+ * 导入/恢复后丢弃索引，下一次查询时重新建立。
+ * 按天的划分取决于建立索引时的默认时区；查询时发现默认时区已改变 (用户切换了时区) 同样丢弃索引并重新建立。
+ *
+ * 查询方法可能需要读取数据库，需在后台线程调用；可以在多个线程间共享。
+ */
+public final class LedgerStats implements RecordChanges.Listener {
+
+    private static volatile LedgerStats instance;
+
+    private final Context context;
+
+    // 以下字段由 this 保护
+    private DailyPrefixIndex byType;
+    private DailyPrefixIndex byAccount;
+    private DailyPrefixIndex byCategory;
+    private TimeRollups rollups;
+    private TimeZone timeZone; // 建立索引时使用的时区
+    /**
+     * 每次丢弃索引时加一；加载期间发生变化说明读到的数据可能已过期，需要重新加载
+     */
+    private int generation;
+
+    private LedgerStats(Context context) {
+        this.context = context;
+    }
+
+    public static LedgerStats getInstance(Context context) {
+        if (instance == null) {
+            synchronized (LedgerStats.class) {
+                if (instance == null) {
+                    LedgerStats stats = new LedgerStats(context.getApplicationContext());
+                    RecordChanges.addListener(stats);
+                    instance = stats;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 日期区间内的收支合计 (按天粒度：start 所在日期到 end 所在日期的整天)
+     * @return 长度为 2 的数组，下标为 Record.TYPE_EXPENSE / Record.TYPE_INCOME；金额单位为分
+     */
+    public long[] typeTotals(long startTime, long endTime) {
+        return query(DailyPrefixIndex.Dimension.NONE, 0, startTime, endTime);
+    }
+
+    /**
+     * 某个账户在日期区间内的收支合计
+     * @see #typeTotals(long, long)
+     */
+    public long[] accountTotals(int accountId, long startTime, long endTime) {
+        return query(DailyPrefixIndex.Dimension.ACCOUNT, accountId, startTime, endTime);
+    }
+
+    /**
+     * 某个分类在日期区间内的收支合计
+     * @see #typeTotals(long, long)
+     */
+    public long[] categoryTotals(int categoryId, long startTime, long endTime) {
+        return query(DailyPrefixIndex.Dimension.CATEGORY, categoryId, startTime, endTime);
+    }
+
+    /**
+     * 日期区间内的收支序列，自动选择粒度使桶数不超过 maxPoints
+     * @see TimeRollups#series(long, long, int)
+     */
+    public TimeSeries series(long startTime, long endTime, int maxPoints) {
+        while (true) {
+            synchronized (this) {
+                if (isLoaded()) return rollups.series(startTime, endTime, maxPoints);
+            }
+            load();
+        }
+    }
+
+    /**
+     * 丢弃索引，下一次查询时重新从数据库读取
+     */
+    public void invalidate() {
+        synchronized (this) {
+            generation++;
+            byType = null;
+            byAccount = null;
+            byCategory = null;
+            rollups = null;
+            timeZone = null;
+        }
+    }
+
+    /**
+     * 索引是否已建立且与当前默认时区一致；时区已改变时丢弃索引
+     */
+    private boolean isLoaded() {
+        if (byType == null) return false;
+        if (timeZone.getID().equals(TimeZone.getDefault().getID())) return true;
+        invalidate();
+        return false;
+    }
+
+    private long[] query(DailyPrefixIndex.Dimension dimension, int key, long startTime, long endTime) {
+        while (true) {
+            synchronized (this) {
+                if (isLoaded()) {
+                    switch (dimension) {
+                        case ACCOUNT:
+                            return byAccount.totals(key, startTime, endTime);
+                        case CATEGORY:
+                            return byCategory.totals(key, startTime, endTime);
+                        default:
+                            return byType.totals(startTime, endTime);
+                    }
+                }
+            }
+            load();
+        }
+    }
+
+    /**
+     * 读取全部记录并建立索引
+     * 在 RecordChanges.runExclusive 中读取，读到的数据与之后收到的逐条通知正好衔接
+     */
+    private void load() {
+        RecordChanges.runExclusive(() -> {
+            int started;
+            synchronized (this) {
+                if (byType != null) return; // 其他线程已加载
+                started = generation;
+            }
+            TimeZone zone = TimeZone.getDefault();
+            RecordColumns columns = RecordColumns.load(context);
+            DailyPrefixIndex type = DailyPrefixIndex.build(columns, DailyPrefixIndex.Dimension.NONE, zone);
+            DailyPrefixIndex account = DailyPrefixIndex.build(columns, DailyPrefixIndex.Dimension.ACCOUNT, zone);
+            DailyPrefixIndex category = DailyPrefixIndex.build(columns, DailyPrefixIndex.Dimension.CATEGORY, zone);
+            TimeRollups timeRollups = TimeRollups.build(columns, zone);
+            synchronized (this) {
+                if (generation != started) return; // 加载期间数据被整体替换，由调用方重试
+                byType = type;
+                byAccount = account;
+                byCategory = category;
+                rollups = timeRollups;
+                timeZone = zone;
+            }
+        });
+    }
+
+    @Override
+    public synchronized void onRecordAdded(int id, long amount, int type, int categoryId, int accountId, long date) {
+        if (byType == null) return; // 尚未加载，加载时会读到这条记录
+        byType.add(date, type, amount, categoryId, accountId);
+        byAccount.add(date, type, amount, categoryId, accountId);
+        byCategory.add(date, type, amount, categoryId, accountId);
+        rollups.add(date, type, amount);
+    }
+
+    @Override
+    public synchronized void onRecordDeleted(int id, long amount, int type, int categoryId, int accountId, long date) {
+        if (byType == null) return;
+        byType.remove(date, type, amount, categoryId, accountId);
+        byAccount.remove(date, type, amount, categoryId, accountId);
+        byCategory.remove(date, type, amount, categoryId, accountId);
+        rollups.remove(date, type, amount);
+    }
+
+    @Override
+    public void onRecordsReplaced() {
+        invalidate();
+    }
+}
@@ -0,0 +1,96 @@
+package com.zzj.myapplication.stats;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * 本地日期编号：1970-01-01 (本地) 为第 0 天
+ * 比 Calendar 快得多，适合在逐条记录的循环中计算所在日期、周和月份；夏令时切换的日期同样正确。
+ */
+final class LocalDays {
+
+    static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * 统计索引支持的记录日期范围 (1900-01-01 至 2199-12-31)，约 11 万天
+     * 按日期编号寻址的数组长度因此有上限，扩展时不会溢出
+     */
+    static final int MIN_INDEXED_DAY = firstDayOfMonth(1900 * 12);
+    static final int MAX_INDEXED_DAY = firstDayOfMonth(2200 * 12) - 1;
+
+    private LocalDays() {}
+
+    /**
+     * 时间戳所在的本地日期编号；超出可表示范围的时间戳 (如 Long.MAX_VALUE) 饱和到 ±Integer.MAX_VALUE
+     */
+    static int dayOf(long millis, TimeZone timeZone) {
+        if (millis >= Long.MAX_VALUE - DAY_MILLIS) return Integer.MAX_VALUE;
+        if (millis <= Long.MIN_VALUE + DAY_MILLIS) return -Integer.MAX_VALUE;
+        long day = Math.floorDiv(millis + timeZone.getOffset(millis), DAY_MILLIS);
+        return (int) Math.max(-Integer.MAX_VALUE, Math.min(Integer.MAX_VALUE, day));
+    }
+
+    /**
+     * 记录在统计索引中所属的日期编号：超出支持范围的日期 (如误输入的年份) 饱和到范围两端，
+     * 仍计入"全部"等覆盖两端的区间
+     */
+    static int indexedDayOf(long millis, TimeZone timeZone) {
+        return Math.max(MIN_INDEXED_DAY, Math.min(MAX_INDEXED_DAY, dayOf(millis, timeZone)));
+    }
+
+    /**
+     * 日期编号所在的周 (周一开始；1970-01-01 是周四，所在周为第 0 周)
+     */
+    static int weekOf(int day) {
+        return Math.floorDiv(day + 3, 7);
+    }
+
+    /**
+     * 周编号的第一天 (周一)
+     */
+    static int firstDayOfWeek(int week) {
+        return week * 7 - 3;
+    }
+
+    /**
+     * 日期编号所在的月份，编码为 年 * 12 + (月 - 1)
+     * 纯整数运算的公历换算 (proleptic Gregorian)，不经过 Calendar
+     */
+    static int monthOf(int day) {
+        int z = day + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int month = mp < 10 ? mp + 3 : mp - 9; // 1 ~ 12
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+
+    /**
+     * 月份编码 (年 * 12 + 月 - 1) 的第一天
+     */
+    static int firstDayOfMonth(int month) {
+        int year = Math.floorDiv(month, 12);
+        int m = month - year * 12 + 1;
+        if (m <= 2) year--;
+        int era = Math.floorDiv(year, 400);
+        int yearOfEra = year - era * 400;
+        int dayOfYear = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * 本地日期编号对应当天 00:00 的时间戳
+     */
+    static long startOf(int day, TimeZone timeZone) {
+        int month = monthOf(day);
+        int year = Math.floorDiv(month, 12);
+        Calendar local = Calendar.getInstance(timeZone);
+        local.clear();
+        local.set(year, month - year * 12, day - firstDayOfMonth(month) + 1);
+        return local.getTimeInMillis();
+    }
+}
@@ -0,0 +1,321 @@
+package com.zzj.myapplication.stats;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import com.zzj.myapplication.db.DatabaseHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 记录表的列式只读快照
+ * 每一列是一个基本类型数组，第 i 条记录为 (ids[i], dates[i], amounts[i], types[i], categoryIds[i], accountIds[i])，
+ * 按 (日期, id) 升序排列。统计时顺序扫描几个连续数组，不需要为每条记录创建 Record 对象和装箱，
+ * 也不会把备注等用不到的字段拖进缓存。
+ * 备注单独保存在一个 UTF-8 字节池中，只有调用 {@link #note(int)} 时才解码成 String。
+ * 分类/账户为空的记录对应的 id 为 0 (数据库中的 id 从 1 开始)。
+ *
+ * 快照创建后不再变化，可以在多个线程间共享。
+ */
+public final class RecordColumns {
+
+    static final int CHUNK_ROWS = 1000;
+
+    private static final String SELECT_CHUNK = "SELECT "
+            + DatabaseHelper.COLUMN_ID + ", "
+            + DatabaseHelper.COLUMN_RECORD_DATE + ", "
+            + DatabaseHelper.COLUMN_RECORD_AMOUNT + ", "
+            + DatabaseHelper.COLUMN_RECORD_TYPE + ", "
+            + "IFNULL(" + DatabaseHelper.COLUMN_RECORD_CATEGORY_ID + ", 0), "
+            + "IFNULL(" + DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID + ", 0), "
+            + "CAST(" + DatabaseHelper.COLUMN_RECORD_NOTE + " AS BLOB)"
+            + " FROM " + DatabaseHelper.TABLE_RECORDS
+            + " WHERE " + DatabaseHelper.COLUMN_ID + " > ?"
+            + " ORDER BY " + DatabaseHelper.COLUMN_ID
+            + " LIMIT " + CHUNK_ROWS;
+
+    final int size;
+    final int[] ids;
+    final long[] dates;
+    final long[] amounts; // 分
+    final byte[] types;
+    final int[] categoryIds;
+    final int[] accountIds;
+
+    /**
+     * 第 i 条备注为 notePool 中 [noteOffsets[i], noteOffsets[i + 1]) 的字节；
+     * 备注为 NULL 时 noteOffsets[i] 保存 -(偏移 + 1)，仍能算出前一条备注的结尾
+     */
+    private final byte[] notePool;
+    private final int[] noteOffsets;
+
+    private RecordColumns(Builder builder) {
+        size = builder.size;
+        int[] order = builder.sorted ? null : sortedOrder(builder.dates, builder.ids, size);
+        ids = gather(builder.ids, order, size);
+        dates = gather(builder.dates, order, size);
+        amounts = gather(builder.amounts, order, size);
+        types = gather(builder.types, order, size);
+        categoryIds = gather(builder.categoryIds, order, size);
+        accountIds = gather(builder.accountIds, order, size);
+        if (order == null) {
+            notePool = Arrays.copyOf(builder.notePool, builder.poolSize);
+            noteOffsets = Arrays.copyOf(builder.noteOffsets, size + 1);
+        } else {
+            notePool = new byte[builder.poolSize];
+            noteOffsets = new int[size + 1];
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                int from = builder.noteOffsets[order[i]];
+                if (from < 0) {
+                    noteOffsets[i] = -position - 1;
+                    continue;
+                }
+                int length = builder.noteLengths[order[i]];
+                System.arraycopy(builder.notePool, from, notePool, position, length);
+                noteOffsets[i] = position;
+                position += length;
+            }
+        }
+        noteOffsets[size] = builder.poolSize;
+    }
+
+    /**
+     * 从数据库读取全部记录
+     * 按主键分段 (每段 {@link #CHUNK_ROWS} 行) 读取，各段直接追加到列数组中，最后在内存中按日期排序
+     * (按主键分段不需要 SQLite 为每一段排序；记录大多按时间顺序录入，排序通常只是一次检查)；
+     * 各段在同一个读事务中读取，快照与某一时刻的数据库完全一致。
+     * Android 15 (API 35) 起使用只读事务，读取的是 WAL 中事务开始时的快照，不阻塞其他连接的写入；
+     * 更早的系统没有只读事务，只能使用普通事务，读取期间其他写入会等待。
+     * 需在后台线程调用。
+     */
+    public static RecordColumns load(Context context) {
+        SQLiteDatabase db = DatabaseHelper.getInstance(context).getReadableDatabase();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.VANILLA_ICE_CREAM) {
+            db.beginTransactionReadOnly();
+        } else {
+            db.beginTransaction();
+        }
+        try {
+            RecordColumns columns = load(db);
+            db.setTransactionSuccessful();
+            return columns;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    static RecordColumns load(SQLiteDatabase db) {
+        Cursor count = db.rawQuery("SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_RECORDS, null);
+        Builder builder;
+        try {
+            builder = new Builder(count.moveToFirst() ? count.getInt(0) : 0);
+        } finally {
+            count.close();
+        }
+
+        String[] args = {"0"};
+        while (true) {
+            Cursor cursor = db.rawQuery(SELECT_CHUNK, args);
+            int rows = 0;
+            int lastId = 0;
+            try {
+                while (cursor.moveToNext()) {
+                    lastId = cursor.getInt(0);
+                    builder.add(lastId, cursor.getLong(1), cursor.getLong(2), cursor.getInt(3),
+                            cursor.getInt(4), cursor.getInt(5), cursor.getBlob(6));
+                    rows++;
+                }
+            } finally {
+                cursor.close();
+            }
+            if (rows < CHUNK_ROWS) break;
+            args[0] = String.valueOf(lastId);
+        }
+        return builder.build();
+    }
+
+    public int size() { return size; }
+
+    public int id(int index) { return ids[index]; }
+
+    public long date(int index) { return dates[index]; }
+
+    public long amount(int index) { return amounts[index]; }
+
+    public int type(int index) { return types[index]; }
+
+    public int categoryId(int index) { return categoryIds[index]; }
+
+    public int accountId(int index) { return accountIds[index]; }
+
+    /**
+     * 解码第 index 条记录的备注 (每次调用都会创建新的 String，不要在统计循环中调用)
+     */
+    public String note(int index) {
+        int start = noteOffsets[index];
+        if (start < 0) return null;
+        int next = noteOffsets[index + 1];
+        int end = next < 0 ? -next - 1 : next;
+        return new String(notePool, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 第一条日期 &gt;= time 的记录下标；所有记录都早于 time 时返回 {@link #size()}
+     */
+    public int lowerBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 第一条日期 &gt; time 的记录下标；用于闭区间 [start, end] 的右端
+     */
+    public int upperBound(long time) {
+        return time == Long.MAX_VALUE ? size : lowerBound(time + 1);
+    }
+
+    /**
+     * 按 (日期, id) 升序排列的下标 (归并排序，不装箱)
+     */
+    private static int[] sortedOrder(long[] dates, int[] ids, int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size; low += 2 * width) {
+                int mid = Math.min(low + width, size);
+                int high = Math.min(low + 2 * width, size);
+                int left = low;
+                int right = mid;
+                for (int k = low; k < high; k++) {
+                    if (right >= high || left < mid && !before(dates, ids, order[right], order[left])) {
+                        buffer[k] = order[left++];
+                    } else {
+                        buffer[k] = order[right++];
+                    }
+                }
+            }
+            int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+
+    private static boolean before(long[] dates, int[] ids, int a, int b) {
+        return dates[a] < dates[b] || dates[a] == dates[b] && ids[a] < ids[b];
+    }
+
+    private static int[] gather(int[] column, int[] order, int size) {
+        if (order == null) return Arrays.copyOf(column, size);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) result[i] = column[order[i]];
+        return result;
+    }
+
+    private static long[] gather(long[] column, int[] order, int size) {
+        if (order == null) return Arrays.copyOf(column, size);
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) result[i] = column[order[i]];
+        return result;
+    }
+
+    private static byte[] gather(byte[] column, int[] order, int size) {
+        if (order == null) return Arrays.copyOf(column, size);
+        byte[] result = new byte[size];
+        for (int i = 0; i < size; i++) result[i] = column[order[i]];
+        return result;
+    }
+
+    /**
+     * 逐条追加记录并生成快照；追加顺序任意，生成时按 (日期, id) 排序
+     */
+    static final class Builder {
+        private int size;
+        private boolean sorted = true;
+        private int[] ids;
+        private long[] dates;
+        private long[] amounts;
+        private byte[] types;
+        private int[] categoryIds;
+        private int[] accountIds;
+        private byte[] notePool;
+        private int poolSize;
+        private int[] noteOffsets;
+        private int[] noteLengths;
+
+        Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            ids = new int[capacity];
+            dates = new long[capacity];
+            amounts = new long[capacity];
+            types = new byte[capacity];
+            categoryIds = new int[capacity];
+            accountIds = new int[capacity];
+            noteOffsets = new int[capacity + 1];
+            noteLengths = new int[capacity];
+            notePool = new byte[capacity * 8];
+        }
+
+        Builder add(int id, long date, long amount, int type, int categoryId, int accountId, String note) {
+            return add(id, date, amount, type, categoryId, accountId,
+                    note == null ? null : note.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @param note 备注的 UTF-8 编码，NULL 备注传 null
+         */
+        Builder add(int id, long date, long amount, int type, int categoryId, int accountId, byte[] note) {
+            if (size == ids.length) grow();
+            ids[size] = id;
+            dates[size] = date;
+            amounts[size] = amount;
+            types[size] = (byte) type;
+            categoryIds[size] = categoryId;
+            accountIds[size] = accountId;
+            if (note == null) {
+                noteOffsets[size] = -poolSize - 1;
+            } else {
+                if (poolSize + note.length > notePool.length) {
+                    notePool = Arrays.copyOf(notePool, Math.max(notePool.length * 2, poolSize + note.length));
+                }
+                System.arraycopy(note, 0, notePool, poolSize, note.length);
+                noteOffsets[size] = poolSize;
+                noteLengths[size] = note.length;
+                poolSize += note.length;
+            }
+            if (size > 0 && sorted && before(dates, ids, size, size - 1)) sorted = false;
+            size++;
+            return this;
+        }
+
+        RecordColumns build() {
+            return new RecordColumns(this);
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            dates = Arrays.copyOf(dates, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            types = Arrays.copyOf(types, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            accountIds = Arrays.copyOf(accountIds, capacity);
+            noteOffsets = Arrays.copyOf(noteOffsets, capacity + 1);
+            noteLengths = Arrays.copyOf(noteLengths, capacity);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.zzj.myapplication.stats;
+
+import com.zzj.myapplication.model.Record;
+
+import java.util.Arrays;
+import java.util.Calendar;
+
+/**
+ * 基于 {@link RecordColumns} 的统计
+ * 先用二分查找定位时间区间，再顺序扫描区间内的列数组；结果与 RecordDao / MonthlySummaryDao 的 SQL 汇总一致。
+ * 所有时间区间都是闭区间 [startTime, endTime]，金额单位为分。
+ */
+public final class RecordStats {
+
+    private RecordStats() {}
+
+    /**
+     * 区间内按类型汇总
+     * @return 长度为 2 的数组，下标为 Record.TYPE_EXPENSE / Record.TYPE_INCOME
+     */
+    public static long[] typeTotals(RecordColumns columns, long startTime, long endTime) {
+        long[] totals = new long[2];
+        int end = columns.upperBound(endTime);
+        long[] amounts = columns.amounts;
+        byte[] types = columns.types;
+        for (int i = columns.lowerBound(startTime); i < end; i++) {
+            int type = types[i];
+            if (type == Record.TYPE_INCOME || type == Record.TYPE_EXPENSE) totals[type] += amounts[i];
+        }
+        return totals;
+    }
+
+    /**
+     * 某个月的收支合计
+     * @param month 1 ~ 12
+     * @return 长度为 2 的数组，下标为 Record.TYPE_EXPENSE / Record.TYPE_INCOME
+     */
+    public static long[] monthTotals(RecordColumns columns, int year, int month) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, 1);
+        long start = cal.getTimeInMillis();
+        cal.add(Calendar.MONTH, 1);
+        return typeTotals(columns, start, cal.getTimeInMillis() - 1);
+    }
+
+    /**
+     * 区间内按天汇总的收支序列 (本地时区，只包含有记录的日期)
+     */
+    public static TimeSeries dailyTotals(RecordColumns columns, long startTime, long endTime) {
+        int from = columns.lowerBound(startTime);
+        int to = columns.upperBound(endTime);
+        int capacity = 32;
+        long[] dayStarts = new long[capacity];
+        long[] income = new long[capacity];
+        long[] expense = new long[capacity];
+        int days = -1;
+
+        long[] dates = columns.dates;
+        long[] amounts = columns.amounts;
+        byte[] types = columns.types;
+        Calendar cal = Calendar.getInstance();
+        long nextDayStart = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            if (dates[i] >= nextDayStart) {
+                // 进入新的一天：只在跨天时计算日界，每天一次
+                cal.setTimeInMillis(dates[i]);
+                cal.set(Calendar.HOUR_OF_DAY, 0);
+                cal.set(Calendar.MINUTE, 0);
+                cal.set(Calendar.SECOND, 0);
+                cal.set(Calendar.MILLISECOND, 0);
+                if (++days == capacity) {
+                    capacity *= 2;
+                    dayStarts = Arrays.copyOf(dayStarts, capacity);
+                    income = Arrays.copyOf(income, capacity);
+                    expense = Arrays.copyOf(expense, capacity);
+                }
+                dayStarts[days] = cal.getTimeInMillis();
+                cal.add(Calendar.DAY_OF_MONTH, 1);
+                nextDayStart = cal.getTimeInMillis();
+            }
+            if (types[i] == Record.TYPE_INCOME) {
+                income[days] += amounts[i];
+            } else {
+                expense[days] += amounts[i];
+            }
+        }
+        int size = days + 1;
+        return new TimeSeries(TimeSeries.Resolution.DAY, Arrays.copyOf(dayStarts, size),
+                Arrays.copyOf(income, size), Arrays.copyOf(expense, size));
+    }
+
+    /**
+     * 区间内某一类型按分类汇总
+     * @return 下标为分类 id 的合计数组 (截止到最后一个非零合计)；分类为空的记录计入下标 0
+     */
+    public static long[] categoryTotals(RecordColumns columns, int type, long startTime, long endTime) {
+        int from = columns.lowerBound(startTime);
+        int to = columns.upperBound(endTime);
+        long[] totals = new long[16];
+        long[] amounts = columns.amounts;
+        byte[] types = columns.types;
+        int[] categoryIds = columns.categoryIds;
+        for (int i = from; i < to; i++) {
+            if (types[i] != type) continue;
+            int categoryId = categoryIds[i];
+            if (categoryId >= totals.length) {
+                totals = Arrays.copyOf(totals, Math.max(totals.length * 2, categoryId + 1));
+            }
+            totals[categoryId] += amounts[i];
+        }
+        int length = totals.length;
+        while (length > 0 && totals[length - 1] == 0) length--;
+        return Arrays.copyOf(totals, length);
+    }
+}
@@ -0,0 +1,214 @@
+package com.zzj.myapplication.stats;
+
+import com.zzj.myapplication.model.Record;
+
+import java.util.TimeZone;
+
+/**
+ * 多粒度的收支汇总 (天、周、月、年)
+ * 每种粒度一组按桶编号直接寻址的数组，新增/删除一条记录只更新四个桶。
+ * 取序列时按区间跨度自动选择最细的、桶数不超过 maxPoints 的粒度，只遍历该粒度下区间内的桶：
+ * 十年的账本和一年的账本画"全部"图表的开销相同，点数也有上限。
+ *
+ * 非线程安全，由调用方 (如 {@link LedgerStats}) 同步。
+ */
+public final class TimeRollups {
+
+    private static final TimeSeries.Resolution[] RESOLUTIONS = TimeSeries.Resolution.values();
+
+    private final TimeZone timeZone;
+    private final Level[] levels = new Level[RESOLUTIONS.length];
+
+    public TimeRollups() {
+        this(TimeZone.getDefault());
+    }
+
+    TimeRollups(TimeZone timeZone) {
+        this.timeZone = timeZone;
+        for (int i = 0; i < levels.length; i++) levels[i] = new Level();
+    }
+
+    /**
+     * 从列式快照一次性建立各粒度的汇总
+     */
+    public static TimeRollups build(RecordColumns columns) {
+        return build(columns, TimeZone.getDefault());
+    }
+
+    static TimeRollups build(RecordColumns columns, TimeZone timeZone) {
+        TimeRollups rollups = new TimeRollups(timeZone);
+        for (int i = 0; i < columns.size; i++) {
+            rollups.add(columns.dates[i], columns.types[i], columns.amounts[i]);
+        }
+        return rollups;
+    }
+
+    /**
+     * 计入一条新记录
+     */
+    public void add(long date, int type, long amount) {
+        update(date, type, amount, 1);
+    }
+
+    /**
+     * 冲回一条已计入的记录
+     */
+    public void remove(long date, int type, long amount) {
+        update(date, type, -amount, -1);
+    }
+
+    private void update(long date, int type, long amount, int count) {
+        if (type != Record.TYPE_INCOME && type != Record.TYPE_EXPENSE) return;
+        // 超出支持范围的日期饱和到两端，各粒度的桶数因此有上限
+        int day = LocalDays.indexedDayOf(date, timeZone);
+        for (int i = 0; i < levels.length; i++) {
+            levels[i].add(bucketOf(RESOLUTIONS[i], day), type, amount, count);
+        }
+    }
+
+    /**
+     * 区间内的收支序列，粒度由 {@link #resolutionFor(long, long, int)} 选择
+     * @param maxPoints 序列最多包含的桶数 (区间超过一百年时按年仍可能超出)
+     */
+    public TimeSeries series(long startTime, long endTime, int maxPoints) {
+        return series(startTime, endTime, resolutionFor(startTime, endTime, maxPoints));
+    }
+
+    /**
+     * 区间内指定粒度的收支序列，只包含有记录的桶
+     * 区间两端所在的桶按整桶统计 (如按月时，区间从月中开始也包含该月的全部记录)
+     */
+    public TimeSeries series(long startTime, long endTime, TimeSeries.Resolution resolution) {
+        Level level = levels[resolution.ordinal()];
+        // 先裁剪到有记录的日期范围，避免对 Long.MAX_VALUE 之类的端点做日期换算
+        Level days = levels[TimeSeries.Resolution.DAY.ordinal()];
+        int firstDay = Math.max(LocalDays.dayOf(startTime, timeZone), days.first);
+        int lastDay = Math.min(LocalDays.dayOf(endTime, timeZone), days.last);
+        int from = firstDay > lastDay ? 0 : bucketOf(resolution, firstDay);
+        int to = firstDay > lastDay ? -1 : bucketOf(resolution, lastDay);
+
+        int size = 0;
+        for (int bucket = from; bucket <= to; bucket++) {
+            if (level.counts[bucket - level.origin] > 0) size++;
+        }
+        long[] starts = new long[size];
+        long[] income = new long[size];
+        long[] expense = new long[size];
+        int i = 0;
+        for (int bucket = from; bucket <= to; bucket++) {
+            int slot = bucket - level.origin;
+            if (level.counts[slot] <= 0) continue;
+            starts[i] = LocalDays.startOf(firstDayOf(resolution, bucket), timeZone);
+            income[i] = level.income[slot];
+            expense[i] = level.expense[slot];
+            i++;
+        }
+        return new TimeSeries(resolution, starts, income, expense);
+    }
+
+    /**
+     * 桶数不超过 maxPoints 的最细粒度
+     * 区间先裁剪到有记录的日期范围，因此"全部" (start 为 0) 只按实际数据的跨度计算
+     */
+    public TimeSeries.Resolution resolutionFor(long startTime, long endTime, int maxPoints) {
+        Level days = levels[TimeSeries.Resolution.DAY.ordinal()];
+        int first = Math.max(LocalDays.dayOf(startTime, timeZone), days.first);
+        int last = Math.min(LocalDays.dayOf(endTime, timeZone), days.last);
+        if (first > last) return TimeSeries.Resolution.DAY;
+        for (TimeSeries.Resolution resolution : RESOLUTIONS) {
+            if ((long) bucketOf(resolution, last) - bucketOf(resolution, first) + 1 <= maxPoints) return resolution;
+        }
+        return TimeSeries.Resolution.YEAR;
+    }
+
+    private static int bucketOf(TimeSeries.Resolution resolution, int day) {
+        switch (resolution) {
+            case WEEK:
+                return LocalDays.weekOf(day);
+            case MONTH:
+                return LocalDays.monthOf(day);
+            case YEAR:
+                return Math.floorDiv(LocalDays.monthOf(day), 12);
+            default:
+                return day;
+        }
+    }
+
+    private static int firstDayOf(TimeSeries.Resolution resolution, int bucket) {
+        switch (resolution) {
+            case WEEK:
+                return LocalDays.firstDayOfWeek(bucket);
+            case MONTH:
+                return LocalDays.firstDayOfMonth(bucket);
+            case YEAR:
+                return LocalDays.firstDayOfMonth(bucket * 12);
+            default:
+                return bucket;
+        }
+    }
+
+    /**
+     * 一种粒度的桶：下标为 桶编号 - origin，范围随记录自动扩展
+     */
+    private static final class Level {
+        int origin;
+        long[] income = new long[0];
+        long[] expense = new long[0];
+        int[] counts = new int[0];
+        /**
+         * 有记录的桶编号范围，没有记录时 first &gt; last
+         */
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+
+        void add(int bucket, int type, long amount, int count) {
+            if (counts.length == 0 || bucket < origin || bucket >= origin + counts.length) grow(bucket);
+            int slot = bucket - origin;
+            if (type == Record.TYPE_INCOME) {
+                income[slot] += amount;
+            } else {
+                expense[slot] += amount;
+            }
+            counts[slot] += count;
+
+            if (counts[slot] > 0) {
+                first = Math.min(first, bucket);
+                last = Math.max(last, bucket);
+            } else if (bucket == first || bucket == last) {
+                // 两端的桶变空，收缩有记录的范围
+                while (first <= last && counts[first - origin] <= 0) first++;
+                while (last >= first && counts[last - origin] <= 0) last--;
+                if (first > last) {
+                    first = Integer.MAX_VALUE;
+                    last = Integer.MIN_VALUE;
+                }
+            }
+        }
+
+        /**
+         * 扩展数组使其包含 bucket，新范围两侧留出余量
+         * 桶编号来自支持范围内的日期，span 不超过约 11 万，翻倍后不会溢出
+         */
+        private void grow(int bucket) {
+            int low = counts.length == 0 ? bucket : Math.min(origin, bucket);
+            int high = counts.length == 0 ? bucket : Math.max(origin + counts.length - 1, bucket);
+            int span = high - low + 1;
+            int length = Math.max(16, Integer.highestOneBit(span) * 2);
+            // 新记录多在最近的日期，大部分余量留在后面
+            int newOrigin = low - (length - span) / 4;
+            int offset = counts.length == 0 ? 0 : origin - newOrigin;
+            income = resize(income, length, offset);
+            expense = resize(expense, length, offset);
+            int[] resizedCounts = new int[length];
+            System.arraycopy(counts, 0, resizedCounts, offset, counts.length);
+            counts = resizedCounts;
+            origin = newOrigin;
+        }
+
+        private static long[] resize(long[] values, int length, int offset) {
+            long[] resized = new long[length];
+            System.arraycopy(values, 0, resized, offset, values.length);
+            return resized;
+        }
+    }
+}
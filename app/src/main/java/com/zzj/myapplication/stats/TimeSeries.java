@@ -0,0 +1,53 @@
+package com.zzj.myapplication.stats;
+
+/**
+ * 按时间桶 (天/周/月/年) 汇总的收支序列
+ * 与 DailyTotals 相同，使用平行的基本类型数组，第 i 个桶为 (starts[i], income[i], expense[i])，
+ * 只包含有记录的桶，按时间升序排列；金额单位为分
+ */
+public final class TimeSeries {
+
+    /**
+     * 桶的粒度，由细到粗
+     */
+    public enum Resolution {
+        DAY,
+        WEEK, // 周一开始
+        MONTH,
+        YEAR
+    }
+
+    public final Resolution resolution;
+    public final long[] starts; // 桶起点 00:00 的时间戳 (本地时区)
+    public final long[] income;
+    public final long[] expense;
+
+    public TimeSeries(Resolution resolution, long[] starts, long[] income, long[] expense) {
+        this.resolution = resolution;
+        this.starts = starts;
+        this.income = income;
+        this.expense = expense;
+    }
+
+    public int size() { return starts.length; }
+
+    public boolean isEmpty() { return starts.length == 0; }
+
+    /**
+     * 整个序列的收入合计
+     */
+    public long totalIncome() {
+        long sum = 0;
+        for (long v : income) sum += v;
+        return sum;
+    }
+
+    /**
+     * 整个序列的支出合计
+     */
+    public long totalExpense() {
+        long sum = 0;
+        for (long v : expense) sum += v;
+        return sum;
+    }
+}
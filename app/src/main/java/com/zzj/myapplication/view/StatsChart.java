@@ -1,18 +1,22 @@
 package com.zzj.myapplication.view;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.DashPathEffect;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
+import android.widget.OverScroller;
 
 import androidx.annotation.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import com.zzj.myapplication.stats.Downsampler;
+
 import java.util.List;
 
 /**
@@ -20,15 +24,75 @@ import java.util.List;
  * 用于展示每日支出/收入趋势
  * X轴: 日期 (MM-dd)
  * Y轴: 金额
+ *
+ * 坐标、标签文字和折线顶点只在数据、尺寸或视口变化时计算 (见 {@link #rebuild()} 和 {@link #updateViewport()})；
+ * 坐标轴、网格和标签这些静态内容预先画到一张位图上，onDraw 只贴位图并画折线、点和日期标签，不分配任何对象。
+ *
+ * 支持双指缩放和左右拖动/惯性滑动 (双击恢复全览)。视口变化时只计算可见区间内 (两侧各多一个) 的点，
+ * 每帧的开销取决于可见的点数而与序列总长度无关。
  */
 public class StatsChart extends View {
 
+    private static final int PADDING_BOTTOM = 60;
+    private static final int PADDING_LEFT = 80;
+    private static final int PADDING_RIGHT = 40;
+    private static final int PADDING_TOP = 40;
+    private static final int GRID_COUNT = 5;
+    private static final float POINT_RADIUS = 8f;
+    /**
+     * 放大到最大时绘图区内至少显示的点数
+     */
+    private static final int MIN_VISIBLE_POINTS = 7;
+
     private Paint linePaint;
     private Paint pointPaint;
     private Paint axisPaint;
+    private Paint gridPaint;
     private Paint textPaint;
-    private List<ChartData> dataList;
-    
+
+    // 数据 (setData 时复制)
+    private String[] labels = new String[0];
+    private double[] values = new double[0];
+    /**
+     * 纵轴上限 (最大值留出 20% 余量) 和各条网格线的标签
+     */
+    private double maxVal;
+    private final String[] gridLabels = new String[GRID_COUNT + 1];
+
+    // 视口：内容宽度为绘图区宽度的 scale 倍，offset 为视口左边缘在内容中的位置 (像素)
+    private double scale = 1;
+    private double offset;
+    private ScaleGestureDetector scaleDetector;
+    private GestureDetector gestureDetector;
+    private OverScroller scroller;
+
+    // 几何 (rebuild 时分配，updateViewport 时填充)
+    private int chartWidth;
+    private int chartHeight;
+    /**
+     * 可见区间 (含两侧各一个点) 的下标范围和日期标签的间隔
+     */
+    private int firstVisible;
+    private int lastVisible;
+    private int labelStep = 1;
+    /**
+     * 压缩后实际绘制的点的下标，点数不超过绘图区的像素宽度
+     */
+    private int[] sampled = new int[0];
+    /**
+     * 实际绘制的点的坐标 (x, y 交替)
+     */
+    private float[] points = new float[0];
+    private int pointCount;
+    /**
+     * 相邻两点间的线段 (x0, y0, x1, y1 依次排列)，供 drawLines 一次画出
+     */
+    private float[] segments = new float[0];
+    /**
+     * 坐标轴、网格和标签，尺寸为 0 时为 null
+     */
+    private Bitmap staticLayer;
+
     // 配置参数
     private int axisColor = Color.parseColor("#888888");
     private int lineColor = Color.parseColor("#2196F3");
@@ -51,125 +115,300 @@ public class StatsChart extends View {
     }
 
     /**
-     * 初始化画笔配置
+     * 初始化画笔配置和手势
      */
     private void init() {
         linePaint = new Paint();
         linePaint.setColor(lineColor);
         linePaint.setStrokeWidth(5f);
         linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeCap(Paint.Cap.ROUND); // 线段首尾相接处不留缝隙
         linePaint.setAntiAlias(true);
 
         pointPaint = new Paint();
         pointPaint.setColor(pointColor);
         pointPaint.setStyle(Paint.Style.FILL);
         pointPaint.setAntiAlias(true);
-        pointPaint.setStrokeWidth(10f); // 点的大小
+        pointPaint.setStrokeCap(Paint.Cap.ROUND); // drawPoints 画成圆点
+        pointPaint.setStrokeWidth(POINT_RADIUS * 2); // 点的大小
 
         axisPaint = new Paint();
         axisPaint.setColor(axisColor);
         axisPaint.setStrokeWidth(2f);
         axisPaint.setStyle(Paint.Style.STROKE);
 
+        // 淡色虚线网格
+        gridPaint = new Paint(axisPaint);
+        gridPaint.setColor(Color.LTGRAY);
+        gridPaint.setPathEffect(new DashPathEffect(new float[]{10, 10}, 0));
+
         textPaint = new Paint();
         textPaint.setColor(textColor);
-        textPaint.setTextSize(24f); 
+        textPaint.setTextSize(24f);
         textPaint.setAntiAlias(true);
         textPaint.setTextAlign(Paint.Align.CENTER);
 
-        dataList = new ArrayList<>();
+        scroller = new OverScroller(getContext());
+        scaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                zoomBy(detector.getScaleFactor(), detector.getFocusX());
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(getContext(), new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                scroller.forceFinished(true);
+                // 放大后水平拖动由图表处理，不交给外层的滚动容器
+                if (scale > 1 && getParent() != null) getParent().requestDisallowInterceptTouchEvent(true);
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+                if (scaleDetector.isInProgress()) return false;
+                panBy(distanceX);
+                return true;
+            }
+
+            @Override
+            public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
+                if (scale <= 1) return false;
+                scroller.fling((int) offset, 0, (int) -velocityX, 0, 0, (int) maxOffset(), 0, 0);
+                postInvalidateOnAnimation();
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(MotionEvent e) {
+                scroller.forceFinished(true);
+                scale = 1;
+                offset = 0;
+                updateViewport();
+                invalidate();
+                return true;
+            }
+        });
     }
 
     /**
-     * 设置图表数据并刷新视图
-     * @param data 图表数据列表
+     * 设置图表数据并刷新视图，视口恢复为全览
+     * @param data 图表数据列表，按日期排序 (由调用者保证)
      */
     public void setData(List<ChartData> data) {
-        this.dataList = data;
-        // 确保数据按日期排序 (由调用者保证或在此处排序)
-        // 理想情况下数据传入时已排序
+        int size = data == null ? 0 : data.size();
+        labels = new String[size];
+        values = new double[size];
+        maxVal = 0;
+        for (int i = 0; i < size; i++) {
+            ChartData d = data.get(i);
+            labels[i] = d.label;
+            values[i] = d.value;
+            if (d.value > maxVal) maxVal = d.value;
+        }
+        if (maxVal == 0) maxVal = 100; // 如果全为0，默认范围
+        // 增加顶部内边距，避免线条紧贴顶部
+        maxVal = maxVal * 1.2;
+        for (int i = 0; i <= GRID_COUNT; i++) {
+            gridLabels[i] = String.valueOf((int) (maxVal * i / GRID_COUNT));
+        }
+        scroller.forceFinished(true);
+        scale = 1;
+        offset = 0;
+        rebuild();
         invalidate();
     }
 
     @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        
-        if (dataList == null || dataList.isEmpty()) return;
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        // 保持视口左边缘对应的数据位置不变
+        double oldPlotWidth = plotWidth();
+        chartWidth = w;
+        chartHeight = h;
+        if (oldPlotWidth > 0) offset = offset * plotWidth() / oldPlotWidth;
+        if (staticLayer != null) {
+            staticLayer.recycle();
+            staticLayer = null;
+        }
+        if (w > 0 && h > 0) {
+            staticLayer = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        }
+        rebuild();
+    }
 
-        int width = getWidth();
-        int height = getHeight();
-        int paddingBottom = 60;
-        int paddingLeft = 80;
-        int paddingRight = 40;
-        int paddingTop = 40;
+    /**
+     * 按数据和尺寸分配顶点缓冲区，重画静态层，再按当前视口计算顶点
+     */
+    private void rebuild() {
+        if (staticLayer == null) return; // 尚未布局，onSizeChanged 时再计算
+        // 压缩后的点数不超过 max(绘图区宽度, 4)，缓冲区按此分配，视口变化时复用
+        int capacity = Math.max(plotWidth(), 4);
+        if (sampled.length < capacity) {
+            sampled = new int[capacity];
+            points = new float[capacity * 2];
+            segments = new float[capacity * 4];
+        }
+
+        staticLayer.eraseColor(Color.TRANSPARENT);
+        if (values.length > 0) drawStaticLayer(new Canvas(staticLayer));
+        updateViewport();
+    }
+
+    /**
+     * 坐标轴、网格、坐标轴标题和金额标签 (日期标签随视口移动，在 onDraw 中绘制)
+     */
+    private void drawStaticLayer(Canvas canvas) {
+        int width = chartWidth;
+        int height = chartHeight;
+        float yHeight = height - PADDING_BOTTOM - PADDING_TOP;
 
         // 绘制坐标轴
         // Y轴
-        canvas.drawLine(paddingLeft, paddingTop, paddingLeft, height - paddingBottom, axisPaint);
+        canvas.drawLine(PADDING_LEFT, PADDING_TOP, PADDING_LEFT, height - PADDING_BOTTOM, axisPaint);
         // X轴
-        canvas.drawLine(paddingLeft, height - paddingBottom, width - paddingRight, height - paddingBottom, axisPaint);
+        canvas.drawLine(PADDING_LEFT, height - PADDING_BOTTOM, width - PADDING_RIGHT, height - PADDING_BOTTOM, axisPaint);
 
         // 绘制坐标轴标题
         textPaint.setTextAlign(Paint.Align.LEFT);
-        canvas.drawText("日期", width - paddingRight - 10, height - paddingBottom + 30, textPaint); // X轴标题
-        canvas.drawText("金额", paddingLeft + 10, paddingTop + 20, textPaint); // Y轴标题
-
-        // 查找最大值以确定比例
-        double maxVal = 0;
-        for (ChartData d : dataList) {
-            if (d.value > maxVal) maxVal = d.value;
-        }
-        if (maxVal == 0) maxVal = 100; // 如果全为0，默认范围
-        
-        // 增加顶部内边距，避免线条紧贴顶部
-        maxVal = maxVal * 1.2;
-
-        float xStep = (float)(width - paddingLeft - paddingRight) / (dataList.size() > 1 ? dataList.size() - 1 : 1);
-        float yHeight = height - paddingBottom - paddingTop;
+        canvas.drawText("日期", width - PADDING_RIGHT - 10, height - PADDING_BOTTOM + 30, textPaint); // X轴标题
+        canvas.drawText("金额", PADDING_LEFT + 10, PADDING_TOP + 20, textPaint); // Y轴标题
 
         // 绘制Y轴网格和标签
-        int gridCount = 5;
         textPaint.setTextAlign(Paint.Align.RIGHT);
-        for (int i = 0; i <= gridCount; i++) {
-            float y = height - paddingBottom - (i * yHeight / gridCount);
-            float value = (float)(maxVal * i / gridCount);
-            
-            // 绘制淡色网格线
-            Paint gridPaint = new Paint(axisPaint);
-            gridPaint.setColor(Color.LTGRAY);
-            gridPaint.setPathEffect(new android.graphics.DashPathEffect(new float[]{10, 10}, 0));
+        for (int i = 0; i <= GRID_COUNT; i++) {
+            float y = height - PADDING_BOTTOM - (i * yHeight / GRID_COUNT);
             if (i > 0) { // 不要覆盖X轴
-                canvas.drawLine(paddingLeft, y, width - paddingRight, y, gridPaint);
+                canvas.drawLine(PADDING_LEFT, y, width - PADDING_RIGHT, y, gridPaint);
             }
-            
-            // 绘制标签
-            canvas.drawText(String.valueOf((int)value), paddingLeft - 10, y + 10, textPaint);
+            canvas.drawText(gridLabels[i], PADDING_LEFT - 10, y + 10, textPaint);
         }
+    }
 
-        // 绘制数据路径和点
-        Path path = new Path();
-        for (int i = 0; i < dataList.size(); i++) {
-            ChartData d = dataList.get(i);
-            float x = paddingLeft + i * xStep;
-            float y = (float)(height - paddingBottom - (d.value / maxVal * yHeight));
-
-            if (i == 0) {
-                path.moveTo(x, y);
-            } else {
-                path.lineTo(x, y);
-            }
+    /**
+     * 放大/缩小，保持 focusX 处的数据位置不动
+     * @param factor 大于 1 为放大
+     * @param focusX 缩放中心在 View 中的横坐标
+     */
+    void zoomBy(float factor, float focusX) {
+        double newScale = clamp(scale * factor, 1, maxScale());
+        double focus = focusX - PADDING_LEFT;
+        offset = (offset + focus) * newScale / scale - focus;
+        scale = newScale;
+        updateViewport();
+        invalidate();
+    }
 
-            // 绘制点
-            canvas.drawCircle(x, y, 8f, pointPaint);
-            
-            // 绘制X轴标签 (日期)
-            textPaint.setTextAlign(Paint.Align.CENTER);
-            if (dataList.size() <= 7 || i % (dataList.size() / 5) == 0) {
-                 canvas.drawText(d.label, x, height - paddingBottom + 60, textPaint);
-            }
+    /**
+     * 水平拖动视口
+     * @param dx 正数向右查看更晚的日期
+     */
+    void panBy(float dx) {
+        offset += dx;
+        updateViewport();
+        invalidate();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled = gestureDetector.onTouchEvent(event) || handled;
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    public void computeScroll() {
+        // 惯性滑动：每帧只更新视口内的顶点，不分配对象
+        if (scroller.computeScrollOffset()) {
+            offset = scroller.getCurrX();
+            updateViewport();
+            postInvalidateOnAnimation();
+        }
+    }
+
+    /**
+     * 按当前视口计算可见区间内的顶点
+     * 点等距排列，可见的下标区间由 offset 和点距直接算出；区间内再按像素宽度压缩，
+     * 开销只与可见的点数有关。结果写入 rebuild 分配的缓冲区，不分配对象。
+     */
+    private void updateViewport() {
+        pointCount = 0;
+        int n = values.length;
+        if (staticLayer == null || n == 0) return;
+        int plotWidth = plotWidth();
+        if (plotWidth <= 0) return;
+        scale = clamp(scale, 1, maxScale());
+        offset = clamp(offset, 0, maxOffset());
+        double step = step();
+
+        // 可见范围两侧各多取一个点，使折线延伸到绘图区边缘
+        firstVisible = (int) Math.min(Math.floor(offset / step), n - 1);
+        lastVisible = (int) Math.min(Math.ceil((offset + plotWidth) / step), n - 1);
+        double visiblePoints = n > 1 ? plotWidth / step + 1 : 1;
+        labelStep = visiblePoints <= 7 ? 1 : (int) (visiblePoints / 5);
+
+        pointCount = Downsampler.minMax(values, firstVisible, lastVisible + 1, Math.max(plotWidth, 1), sampled);
+        float yHeight = chartHeight - PADDING_BOTTOM - PADDING_TOP;
+        for (int k = 0; k < pointCount; k++) {
+            int i = sampled[k];
+            points[k * 2] = xOf(i, step);
+            points[k * 2 + 1] = (float) (chartHeight - PADDING_BOTTOM - (values[i] / maxVal * yHeight));
+        }
+        for (int k = 0; k < pointCount - 1; k++) {
+            System.arraycopy(points, k * 2, segments, k * 4, 4);
+        }
+    }
+
+    private int plotWidth() {
+        return chartWidth - PADDING_LEFT - PADDING_RIGHT;
+    }
+
+    /**
+     * 相邻两点的间距 (像素)
+     */
+    private double step() {
+        return plotWidth() * scale / (values.length > 1 ? values.length - 1 : 1);
+    }
+
+    private float xOf(int index, double step) {
+        return (float) (PADDING_LEFT + index * step - offset);
+    }
+
+    private double maxScale() {
+        return values.length <= MIN_VISIBLE_POINTS ? 1 : (values.length - 1.0) / (MIN_VISIBLE_POINTS - 1);
+    }
+
+    private double maxOffset() {
+        return Math.max(plotWidth(), 0) * (scale - 1);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (values.length == 0 || staticLayer == null) return;
+
+        canvas.drawBitmap(staticLayer, 0, 0, null);
+
+        // 绘制数据折线和点 (只绘制可见区间内压缩后保留的点)，裁剪到绘图区
+        int saveCount = canvas.save();
+        canvas.clipRect(PADDING_LEFT - POINT_RADIUS, 0, chartWidth - PADDING_RIGHT + POINT_RADIUS, chartHeight);
+        canvas.drawLines(segments, 0, Math.max(pointCount - 1, 0) * 4, linePaint);
+        canvas.drawPoints(points, 0, pointCount * 2, pointPaint);
+        canvas.restoreToCount(saveCount);
+
+        // 绘制X轴标签 (日期)，按固定间隔取下标，拖动时标签随数据移动而不跳变
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        double step = step();
+        float right = chartWidth - PADDING_RIGHT + 0.5f;
+        for (int i = firstVisible - firstVisible % labelStep; i <= lastVisible; i += labelStep) {
+            float x = xOf(i, step);
+            if (x < PADDING_LEFT - 0.5f || x > right) continue;
+            canvas.drawText(labels[i], x, chartHeight - PADDING_BOTTOM + 60, textPaint);
         }
-        canvas.drawPath(path, linePaint);
     }
 
     public static class ChartData {
@@ -0,0 +1,156 @@
+package com.zzj.myapplication;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.zzj.myapplication.db.CategoryDao;
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.db.ReferenceCache;
+import com.zzj.myapplication.model.Category;
+import com.zzj.myapplication.model.Item;
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * 列表适配器的增量更新测试：删除一行、追加一页、切换分类/隐私模式只通知变化的部分
+ * (差异计算交给同步执行器，在提交列表的线程上立即完成；结果仍经主线程交付，测试中让主线程处理完消息)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class AdapterUpdatesTest {
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+    }
+
+    @Test
+    public void recordAdapter_deleteAndAppendNotifyOnlyChangedRows() {
+        List<Record> records = records(0, 100);
+        RecordAdapter adapter = new RecordAdapter(records, Runnable::run);
+        RecordingObserver observer = new RecordingObserver();
+        adapter.registerAdapterDataObserver(observer);
+        assertTrue(adapter.hasStableIds());
+        assertEquals(records.get(7).getId(), adapter.getItemId(7));
+
+        // 删除一条
+        List<Record> afterDelete = new ArrayList<>(records);
+        afterDelete.remove(40);
+        adapter.setRecordList(afterDelete);
+        assertItemCountAfterDiff(adapter, 99);
+        assertEquals(Collections.singletonList("removed 40 1"), observer.events);
+
+        // 追加一页
+        observer.events.clear();
+        List<Record> afterAppend = new ArrayList<>(afterDelete);
+        afterAppend.addAll(records(100, 50));
+        adapter.setRecordList(afterAppend);
+        assertItemCountAfterDiff(adapter, 149);
+        assertEquals(Collections.singletonList("inserted 99 50"), observer.events);
+    }
+
+    @Test
+    public void recordAdapter_categoriesRebindWithPayloadOnlyWhenChanged() {
+        Context context = RuntimeEnvironment.getApplication();
+        ReferenceCache.Index<Category> categories = new CategoryDao(context).getCategoryIndex();
+        RecordAdapter adapter = new RecordAdapter(records(0, 30), Runnable::run);
+        RecordingObserver observer = new RecordingObserver();
+        adapter.registerAdapterDataObserver(observer);
+
+        adapter.setCategories(categories);
+        assertEquals(Collections.singletonList("changed 0 30 " + RecordAdapter.PAYLOAD_CATEGORY), observer.events);
+
+        // 同一个索引 (如返回页面时) 不再刷新
+        adapter.setCategories(categories);
+        assertEquals(1, observer.events.size());
+    }
+
+    @Test
+    public void itemAdapter_privacyToggleAndEditUsePartialUpdates() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            items.add(new Item(i, "item" + i, Item.STATUS_IN_USE, null, 1_700_000_000_000L, 1000L * i, null));
+        }
+        ItemAdapter adapter = new ItemAdapter(items, item -> {}, Runnable::run);
+        RecordingObserver observer = new RecordingObserver();
+        adapter.registerAdapterDataObserver(observer);
+        assertTrue(adapter.hasStableIds());
+
+        adapter.setPrivacyMode(true);
+        adapter.setPrivacyMode(true);
+        assertEquals(Arrays.asList("changed 0 20 " + ItemAdapter.PAYLOAD_PRIVACY), observer.events);
+
+        // 修改一个物品的价格，只有这一行变化
+        observer.events.clear();
+        List<Item> edited = new ArrayList<>(items);
+        Item old = items.get(5);
+        edited.set(5, new Item(old.getId(), old.getName(), old.getStatus(), null, old.getPurchaseDate(), 1, null));
+        edited.remove(19);
+        adapter.setItemList(edited);
+        assertItemCountAfterDiff(adapter, 19);
+        assertEquals(2, observer.events.size());
+        assertTrue(observer.events.toString(), observer.events.contains("removed 19 1"));
+        assertTrue(observer.events.toString(), observer.events.contains("changed 5 1 null"));
+    }
+
+    private static List<Record> records(int from, int count) {
+        List<Record> records = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            records.add(new Record(i + 1, 100 + i, Record.TYPE_EXPENSE, 1, 1, 1_700_000_000_000L - i * 60_000L, "r" + i));
+        }
+        return records;
+    }
+
+    /**
+     * 主线程处理差异结果后，列表长度为 expected
+     */
+    private static void assertItemCountAfterDiff(RecyclerView.Adapter<?> adapter, int expected) {
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(expected, adapter.getItemCount());
+    }
+
+    private static final class RecordingObserver extends RecyclerView.AdapterDataObserver {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onChanged() {
+            events.add("all");
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            events.add("changed " + positionStart + " " + itemCount + " " + payload);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            events.add("inserted " + positionStart + " " + itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            events.add("removed " + positionStart + " " + itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            events.add("moved " + fromPosition + " " + toPosition + " " + itemCount);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.zzj.myapplication;
+
+import android.content.Context;
+import android.widget.FrameLayout;
+
+import com.zzj.myapplication.db.CategoryDao;
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.db.ReferenceCache;
+import com.zzj.myapplication.model.Category;
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 账单列表绑定的测试：1k 行反复滑动时，分类图标在整个进程内每个分类只解析一次
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class RecordAdapterBindTest {
+
+    private static final int ROWS = 1000;
+    // 一屏可见的行数 (滑动时反复复用的 ViewHolder)
+    private static final int HOLDERS = 12;
+
+    @Before
+    public void setUp() {
+        CategoryIcons.clear();
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+    }
+
+    @Test
+    public void flingOverThousandRows_resolvesEachCategoryIconOnce() {
+        Context context = RuntimeEnvironment.getApplication();
+        ReferenceCache.Index<Category> categories = new CategoryDao(context).getCategoryIndex();
+        List<Category> all = categories.all();
+        assertFalse(all.isEmpty());
+
+        List<Record> records = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            // 夹杂少量已删除分类的记录
+            int categoryId = i % 50 == 49 ? 9999 : all.get(i % all.size()).getId();
+            records.add(new Record(i + 1, 100 + i, i % 4 == 0 ? Record.TYPE_INCOME : Record.TYPE_EXPENSE,
+                    categoryId, 1, 1_700_000_000_000L - i * 3_600_000L, "r" + i));
+        }
+        int withIcon = 0;
+        for (Category category : all) {
+            if (category.getIconResName() != null && !category.getIconResName().isEmpty()) withIcon++;
+        }
+
+        // 两个适配器 (如离开页面后重新创建) 各滑动 5 轮共 10000 次绑定，每个有图标的分类总共只解析一次
+        FrameLayout parent = new FrameLayout(context);
+        RecordAdapter.ViewHolder[] holders = new RecordAdapter.ViewHolder[HOLDERS];
+        for (int pass = 0; pass < 2; pass++) {
+            RecordAdapter adapter = new RecordAdapter(records);
+            adapter.setCategories(categories);
+            for (int i = 0; i < HOLDERS; i++) holders[i] = adapter.onCreateViewHolder(parent, 0);
+            for (int round = 0; round < 5; round++) {
+                for (int position = 0; position < ROWS; position++) {
+                    adapter.onBindViewHolder(holders[position % HOLDERS], position);
+                }
+            }
+        }
+        assertEquals(withIcon, CategoryIcons.lookups);
+
+        // 每行显示的是该分类的图标，已删除的分类显示默认图标
+        for (int position = ROWS - HOLDERS; position < ROWS; position++) {
+            RecordAdapter.ViewHolder holder = holders[position % HOLDERS];
+            Category category = categories.get(records.get(position).getCategoryId());
+            int expected = category == null ? CategoryIcons.FALLBACK_ICON
+                    : context.getResources().getIdentifier(category.getIconResName(), "drawable", context.getPackageName());
+            assertNotEquals(0, expected);
+            assertEquals(expected, holder.iconResId);
+            assertEquals(category == null ? "未知分类" : category.getName(), holder.tvCategory.getText().toString());
+        }
+    }
+}
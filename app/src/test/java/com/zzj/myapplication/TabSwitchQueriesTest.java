@@ -0,0 +1,125 @@
+package com.zzj.myapplication;
+
+import android.content.Context;
+import android.os.Looper;
+
+import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.db.DbTaskRunner;
+import com.zzj.myapplication.db.RecordDao;
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * 底部标签切换的查询次数测试：没有任何写入时来回切换标签不发起查询，写入记录后返回账单页才重新查询
+ * (查询次数由 DatabaseHelper 统计；页面的数据库任务交给测试中的单线程执行器，
+ * 每次切换后等它执行完已提交的任务，再让主线程交付结果，直到没有新的任务)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class TabSwitchQueriesTest {
+
+    private static final int[] TABS = {R.id.navigation_dashboard, R.id.navigation_accounting, R.id.navigation_items};
+
+    private final DrainableExecutor executor = new DrainableExecutor();
+
+    @Before
+    public void setUp() {
+        DbTaskRunner.setExecutorForTesting(executor);
+    }
+
+    @After
+    public void tearDown() {
+        DbTaskRunner.setExecutorForTesting(null);
+        executor.worker.shutdown();
+        DbTaskRunner.disableStrictMode();
+        DatabaseHelper.closeInstance();
+    }
+
+    @Test
+    public void tabSwitch_withoutWritesIssuesNoQueries() throws Exception {
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        BottomNavigationView navView = controller.get().findViewById(R.id.nav_view);
+
+        // 每个标签先打开一次，完成首次加载
+        for (int tab : TABS) select(navView, tab);
+        select(navView, R.id.navigation_dashboard);
+        int before = DatabaseHelper.getQueryCount();
+        assertTrue(before > 0);
+
+        for (int round = 0; round < 3; round++) {
+            for (int tab : TABS) select(navView, tab);
+        }
+        select(navView, R.id.navigation_dashboard);
+        assertEquals(before, DatabaseHelper.getQueryCount());
+
+        // 对照：写入一条记录后，回到账单页需要重新查询 (主线程禁止访问数据库，在其他线程写入)
+        Context context = RuntimeEnvironment.getApplication();
+        Thread writer = new Thread(() -> new RecordDao(context)
+                .addRecord(new Record(100, Record.TYPE_EXPENSE, 1, 1, System.currentTimeMillis(), null)));
+        writer.start();
+        writer.join();
+        int afterWrite = DatabaseHelper.getQueryCount();
+        select(navView, R.id.navigation_accounting);
+        assertTrue(DatabaseHelper.getQueryCount() > afterWrite);
+
+        controller.pause().stop().destroy();
+    }
+
+    /**
+     * 切换到某个标签，并等待该页面发起的数据库任务全部执行并交付结果
+     */
+    private void select(BottomNavigationView navView, int tab) throws Exception {
+        navView.setSelectedItemId(tab);
+        executor.drain();
+    }
+
+    /**
+     * 在一个后台线程上按提交顺序执行任务，并能等待已提交的任务全部完成
+     */
+    private static final class DrainableExecutor implements Executor {
+        final ExecutorService worker = Executors.newSingleThreadExecutor();
+        private int submitted;
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            submitted++;
+            worker.execute(command);
+        }
+
+        /**
+         * 执行完已提交的任务并在主线程交付结果；回调中又提交了新任务时继续，直到没有新任务
+         */
+        void drain() throws InterruptedException, ExecutionException {
+            int seen;
+            do {
+                synchronized (this) {
+                    seen = submitted;
+                }
+                worker.submit(() -> {}).get(); // 单线程按顺序执行，之前提交的任务都已完成
+                shadowOf(Looper.getMainLooper()).idle();
+            } while (seen != submitted());
+        }
+
+        private synchronized int submitted() {
+            return submitted;
+        }
+    }
+}
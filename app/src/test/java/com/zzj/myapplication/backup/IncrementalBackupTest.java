@@ -0,0 +1,211 @@
+package com.zzj.myapplication.backup;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.zzj.myapplication.db.ChangeJournal;
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.db.ItemDao;
+import com.zzj.myapplication.db.RecordDao;
+import com.zzj.myapplication.model.Item;
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 基于变更日志的增量备份测试 (在 JVM 上运行，数据库为 Robolectric 生成的真实数据库文件)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class IncrementalBackupTest {
+
+    private Context context;
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        context = RuntimeEnvironment.getApplication();
+        directory = File.createTempFile("backup", "");
+        directory.delete();
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void journal_writesNothingUntilBackupRunsAndStopsWithIt() throws IOException {
+        SQLiteDatabase db = DatabaseHelper.getInstance(context).getWritableDatabase();
+        RecordDao recordDao = new RecordDao(context);
+        assertFalse(ChangeJournal.isEnabled(db));
+        long start = ChangeJournal.currentSequence(db);
+        recordDao.addRecord(new Record(100, Record.TYPE_EXPENSE, 1, 1, 1_700_000_000_000L, "未开启备份"));
+        assertEquals(start, ChangeJournal.currentSequence(db));
+        assertEquals(0, ChangeJournal.oldestSequence(db));
+
+        IncrementalBackup backup = new IncrementalBackup(context, directory);
+        assertTrue(backup.run().getName().startsWith("base-"));
+        assertTrue(ChangeJournal.isEnabled(db));
+        recordDao.addRecord(new Record(200, Record.TYPE_EXPENSE, 1, 1, 1_700_000_000_000L, "开启之后"));
+        assertTrue(ChangeJournal.oldestSequence(db) > 0);
+
+        backup.stop();
+        assertFalse(ChangeJournal.isEnabled(db));
+        assertEquals(0, ChangeJournal.oldestSequence(db));
+        long stopped = ChangeJournal.currentSequence(db);
+        recordDao.addRecord(new Record(300, Record.TYPE_EXPENSE, 1, 1, 1_700_000_000_000L, "关闭之后"));
+        assertEquals(stopped, ChangeJournal.currentSequence(db));
+
+        // 重新开启时，关闭期间的修改没有日志，改写全量快照
+        assertTrue(backup.run().getName().startsWith("base-"));
+    }
+
+    @Test
+    public void journal_recordsInsertsUpdatesAndDeletes() {
+        SQLiteDatabase db = DatabaseHelper.getInstance(context).getWritableDatabase();
+        ChangeJournal.enable(db);
+        long start = ChangeJournal.currentSequence(db);
+        ItemDao itemDao = new ItemDao(context);
+        Item item = new Item("键盘", Item.STATUS_IN_USE, null, 0, 19900, null);
+        item.setId((int) itemDao.addItem(item));
+        itemDao.updateItemStatus(item.getId(), Item.STATUS_IDLE);
+        itemDao.deleteItem(item);
+
+        long end = ChangeJournal.currentSequence(db);
+        assertEquals(start + 3, end);
+        Cursor cursor = db.rawQuery("SELECT " + ChangeJournal.COLUMN_TABLE_ID + ", "
+                + ChangeJournal.COLUMN_ROW_ID + ", " + ChangeJournal.COLUMN_OP + " FROM " + ChangeJournal.TABLE
+                + " WHERE " + ChangeJournal.COLUMN_SEQ + " > ? ORDER BY " + ChangeJournal.COLUMN_SEQ,
+                new String[]{String.valueOf(start)});
+        try {
+            int[] ops = {ChangeJournal.OP_INSERT, ChangeJournal.OP_UPDATE, ChangeJournal.OP_DELETE};
+            for (int op : ops) {
+                assertTrue(cursor.moveToNext());
+                assertEquals(ChangeJournal.TABLE_ITEMS, cursor.getInt(0));
+                assertEquals(item.getId(), cursor.getInt(1));
+                assertEquals(op, cursor.getInt(2));
+            }
+            assertFalse(cursor.moveToNext());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void run_writesOnlyChangesSinceLastBackup() throws IOException {
+        RecordDao recordDao = new RecordDao(context);
+        insertRecords(recordDao, 20_000);
+        IncrementalBackup backup = new IncrementalBackup(context, directory);
+
+        File base = backup.run();
+        assertTrue(base.getName().startsWith("base-"));
+        assertNull("no changes, no file", backup.run());
+
+        // 少量修改：增量文件大小与修改量相关，与总行数无关
+        List<Record> records = recordDao.getAllRecords();
+        recordDao.deleteRecord(records.get(10));
+        recordDao.addRecord(new Record(4200, Record.TYPE_EXPENSE, 2, 1, 1_800_000_000_000L, "新的一条"));
+        File delta = backup.run();
+        assertTrue(delta.getName().startsWith("delta-"));
+        assertTrue("delta " + delta.length() + "B vs base " + base.length() + "B", delta.length() * 100 < base.length());
+
+        // 已备份的日志被删除
+        SQLiteDatabase db = DatabaseHelper.getInstance(context).getWritableDatabase();
+        assertEquals(0, ChangeJournal.oldestSequence(db));
+    }
+
+    @Test
+    public void restoreLatest_appliesBaseAndDeltasInOrder() throws IOException {
+        RecordDao recordDao = new RecordDao(context);
+        ItemDao itemDao = new ItemDao(context);
+        insertRecords(recordDao, 500);
+        IncrementalBackup backup = new IncrementalBackup(context, directory);
+        backup.run();
+
+        List<Record> records = recordDao.getAllRecords();
+        recordDao.deleteRecord(records.get(0));
+        recordDao.addRecord(new Record(700, Record.TYPE_INCOME, 1, 2, 1_800_000_000_000L, "第一次增量"));
+        backup.run();
+
+        // 同一行在两次备份之间先插入再修改，增量中只有最新内容
+        Item item = new Item("耳机", Item.STATUS_IN_USE, null, 1_700_000_000_000L, 9900, null);
+        item.setId((int) itemDao.addItem(item));
+        itemDao.updateItemStatus(item.getId(), Item.STATUS_SOLD);
+        recordDao.deleteRecord(records.get(1));
+        backup.run();
+        assertEquals(3, directory.listFiles().length);
+
+        List<Record> expectedRecords = recordDao.getAllRecords();
+        List<Item> expectedItems = itemDao.getAllItems();
+
+        // 清空后从备份目录恢复
+        recordDao.addRecord(new Record(100, Record.TYPE_EXPENSE, 1, 1, 0, "备份之后"));
+        for (Item existing : itemDao.getAllItems()) itemDao.deleteItem(existing);
+        backup.restoreLatest();
+
+        List<Record> actualRecords = recordDao.getAllRecords();
+        assertEquals(expectedRecords.size(), actualRecords.size());
+        for (int i = 0; i < expectedRecords.size(); i++) {
+            assertEquals(expectedRecords.get(i).getId(), actualRecords.get(i).getId());
+            assertEquals(expectedRecords.get(i).getNote(), actualRecords.get(i).getNote());
+            assertEquals(expectedRecords.get(i).getAmount(), actualRecords.get(i).getAmount());
+        }
+        List<Item> actualItems = itemDao.getAllItems();
+        assertEquals(expectedItems.size(), actualItems.size());
+        assertEquals(Item.STATUS_SOLD, actualItems.get(0).getStatus());
+
+        // 恢复后整体数据已被替换，下一次备份改写全量快照
+        File next = backup.run();
+        assertTrue(next.getName().startsWith("base-"));
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    @Test
+    public void run_compactsAfterTooManyDeltas() throws IOException {
+        RecordDao recordDao = new RecordDao(context);
+        insertRecords(recordDao, 1000);
+        IncrementalBackup backup = new IncrementalBackup(context, directory);
+        backup.run();
+        for (int i = 0; i < IncrementalBackup.MAX_DELTAS; i++) {
+            recordDao.addRecord(new Record((i + 1) * 100, Record.TYPE_EXPENSE, 1, 1, 1_800_000_000_000L + i, "r" + i));
+            assertTrue(backup.run().getName().startsWith("delta-"));
+        }
+        assertEquals(IncrementalBackup.MAX_DELTAS + 1, directory.listFiles().length);
+
+        recordDao.addRecord(new Record(9900, Record.TYPE_EXPENSE, 1, 1, 1_900_000_000_000L, "last"));
+        File compacted = backup.run();
+        assertTrue(compacted.getName().startsWith("base-"));
+        File[] files = directory.listFiles();
+        assertEquals(1, files.length);
+        assertEquals(compacted, files[0]);
+    }
+
+    private static void insertRecords(RecordDao recordDao, int count) {
+        List<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new Record(i % 300 * 100 + 50, i % 7 == 0 ? Record.TYPE_INCOME : Record.TYPE_EXPENSE,
+                    1 + i % 5, 1 + i % 4, 1_700_000_000_000L + i * 90_000L, "note " + i));
+        }
+        recordDao.addRecords(records);
+    }
+}
@@ -0,0 +1,77 @@
+package com.zzj.myapplication.backup;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.db.RecordDao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 100 万条记录的备份/恢复基准：耗时与快照相对数据库文件的大小
+ * (耗时与机器负载有关，不随单元测试运行；需要时去掉 @Ignore 手动运行)
+ */
+@Ignore("基准测试，手动运行")
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class LedgerBackupBenchmark {
+
+    private Context context;
+    private File snapshot;
+
+    @Before
+    public void setUp() throws IOException {
+        context = RuntimeEnvironment.getApplication();
+        snapshot = File.createTempFile("ledger", ".snapshot");
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+        snapshot.delete();
+    }
+
+    @Test
+    public void millionRecords_backupAndRestore() throws IOException {
+        int count = 1_000_000;
+        LedgerBackupTest.insertRecords(new RecordDao(context), count);
+
+        SQLiteDatabase db = DatabaseHelper.getInstance(context).getWritableDatabase();
+        db.execSQL("PRAGMA wal_checkpoint(TRUNCATE)");
+        long dbBytes = new File(db.getPath()).length();
+
+        LedgerBackup backup = new LedgerBackup(context);
+        long start = System.nanoTime();
+        backup.backup(snapshot);
+        long backupMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        backup.restore(snapshot);
+        long restoreMillis = (System.nanoTime() - start) / 1_000_000;
+
+        String report = "records=" + count + " db=" + dbBytes + "B snapshot=" + snapshot.length()
+                + "B backup=" + backupMillis + "ms restore=" + restoreMillis + "ms";
+        try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM records", null)) {
+            cursor.moveToFirst();
+            assertEquals(count, cursor.getInt(0));
+        }
+        // 快照不含索引、月度汇总和全文索引，且按变长整数编码
+        assertTrue(report, snapshot.length() * 3 < dbBytes);
+        assertTrue(report, backupMillis < 10_000);
+        assertTrue(report, restoreMillis < 30_000);
+    }
+}
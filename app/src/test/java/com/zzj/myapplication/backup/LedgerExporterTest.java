@@ -0,0 +1,161 @@
+package com.zzj.myapplication.backup;
+
+import android.content.Context;
+
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.db.RecordDao;
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * 账单导出测试 (在 JVM 上运行，数据库为 Robolectric 生成的真实数据库文件)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class LedgerExporterTest {
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+    }
+
+    @Test
+    public void csv_writesHeaderNamesAndEscapedFields() throws IOException {
+        List<Record> records = new ArrayList<>();
+        records.add(new Record(1250, Record.TYPE_EXPENSE, 1, 1, 0, "午饭, 和同事"));
+        records.add(new Record(300000, Record.TYPE_INCOME, 1, 2, 0, "说 \"谢谢\"\n第二行"));
+        new RecordDao(context).addRecords(records);
+
+        StringWriter out = new StringWriter();
+        long exported = new LedgerExporter(context).export(out, LedgerExporter.Format.CSV, null);
+
+        assertEquals(2, exported);
+        String csv = out.toString();
+        assertTrue(csv.startsWith("\uFEFFid,date,type,amount,category,account,note\r\n"));
+        assertTrue(csv, csv.contains(",expense,12.50,餐饮,现金,\"午饭, 和同事\"\r\n"));
+        assertTrue(csv, csv.contains(",income,3000.00,餐饮,银行卡,\"说 \"\"谢谢\"\"\n第二行\"\r\n"));
+    }
+
+    @Test
+    public void json_escapesStrings() throws IOException {
+        List<Record> records = new ArrayList<>();
+        records.add(new Record(100, Record.TYPE_EXPENSE, 1, 1, 42, "a\"b\\c\td"));
+        records.add(new Record(200, Record.TYPE_EXPENSE, 999, 1, 43, null));
+        new RecordDao(context).addRecords(records);
+
+        StringWriter out = new StringWriter();
+        new LedgerExporter(context).export(out, LedgerExporter.Format.JSON, null);
+
+        String json = out.toString();
+        assertTrue(json, json.startsWith("{\"records\":[\n"));
+        assertTrue(json, json.contains("\"date\":42,\"type\":\"expense\",\"amount\":1.00,\"category\":\"餐饮\",\"account\":\"现金\",\"note\":\"a\\\"b\\\\c\\td\"}"));
+        // 分类不存在时名称为空，备注为空时输出 null
+        assertTrue(json, json.contains("\"category\":\"\",\"account\":\"现金\",\"note\":null}"));
+        assertTrue(json, json.endsWith("\n]}\n"));
+    }
+
+    @Test
+    public void export_readsInChunksAndReportsProgress() throws IOException {
+        int count = LedgerExporter.CHUNK_ROWS * 5 + 123;
+        insertRecords(count);
+
+        AtomicInteger callbacks = new AtomicInteger();
+        AtomicLong last = new AtomicLong();
+        CountingWriter out = new CountingWriter();
+        long exported = new LedgerExporter(context).export(out, LedgerExporter.Format.CSV, (done, total) -> {
+            assertTrue(done > last.get());
+            assertEquals(count, total);
+            last.set(done);
+            callbacks.incrementAndGet();
+        });
+
+        assertEquals(count, exported);
+        assertEquals(count, last.get());
+        assertEquals(6, callbacks.get());
+        assertEquals(count + 1, out.lines); // 表头 + 每条记录一行
+    }
+
+    @Test
+    public void export_stopsWhenCancelled() throws IOException {
+        insertRecords(LedgerExporter.CHUNK_ROWS * 3);
+
+        LedgerExporter exporter = new LedgerExporter(context);
+        AtomicInteger callbacks = new AtomicInteger();
+        try {
+            exporter.export(new CountingWriter(), LedgerExporter.Format.JSON, (done, total) -> {
+                callbacks.incrementAndGet();
+                exporter.cancel();
+            });
+            fail("expected CancellationException");
+        } catch (CancellationException expected) {
+            assertEquals(1, callbacks.get());
+        }
+    }
+
+    private void insertRecords(int count) {
+        List<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new Record(i % 100 * 100 + 25, i % 2, 1 + i % 5, 1 + i % 4, 1_700_000_000_000L + i * 60_000L, "note " + i));
+        }
+        new RecordDao(context).addRecords(records);
+    }
+
+    /**
+     * 只统计行数、不保留内容的 Writer
+     */
+    private static final class CountingWriter extends Writer {
+        int lines;
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (buf[i] == '\n') lines++;
+            }
+        }
+
+        @Override
+        public void write(int c) {
+            if (c == '\n') lines++;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (str.charAt(i) == '\n') lines++;
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
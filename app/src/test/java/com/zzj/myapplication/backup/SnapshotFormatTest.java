@@ -0,0 +1,200 @@
+package com.zzj.myapplication.backup;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 二进制快照编解码的本地单元测试
+ */
+public class SnapshotFormatTest {
+
+    @Test
+    public void zigzag_roundTrips() {
+        long[] values = {0, 1, -1, 63, -64, 1_700_000_000_000L, -1_700_000_000_000L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            assertEquals(value, SnapshotFormat.unzigzag(SnapshotFormat.zigzag(value)));
+        }
+        assertEquals(1, SnapshotFormat.zigzag(-1));
+        assertEquals(2, SnapshotFormat.zigzag(1));
+    }
+
+    @Test
+    public void snapshot_roundTripsAllColumns() throws IOException {
+        byte[] bytes = writeSample(1000);
+        SnapshotReader reader = new SnapshotReader(ByteBuffer.wrap(bytes));
+        reader.verify();
+
+        List<String> rows = new ArrayList<>();
+        reader.read(new CollectingVisitor(rows));
+
+        assertEquals(2 + 2 + 1000 + 2, rows.size());
+        assertEquals("A1|现金|Cash|-1050", rows.get(0));
+        assertEquals("A4|支付宝|null|0", rows.get(1));
+        assertEquals("C1|餐饮|0|ic_food", rows.get(2));
+        assertEquals("C9|null|1|null", rows.get(3));
+        assertEquals("R1|0|0|1|-1|1700000000000|note 0, \"引号\"", rows.get(4));
+        assertEquals("R3|125|1|-1|2|1699999940000|null", rows.get(5));
+        assertEquals("I5|键盘|2|-1|1700000000000|19900|null", rows.get(rows.size() - 2));
+        assertEquals("I70000|名称|0|3|-5|0|content://photo/1", rows.get(rows.size() - 1));
+    }
+
+    @Test
+    public void snapshot_isCompact() throws IOException {
+        int count = 100_000;
+        byte[] bytes = writeSample(count);
+        long noteBytes = 0;
+        for (int i = 2; i < count; i++) {
+            noteBytes += ("午饭 " + i).getBytes(StandardCharsets.UTF_8).length;
+        }
+        // 除备注原文外，每条记录的 id、金额、类型、分类、账户、日期和长度前缀合计不超过 16 字节
+        // (定长编码需要 4 + 8 + 4 + 4 + 4 + 8 = 32 字节)
+        long overhead = bytes.length - noteBytes;
+        assertTrue("overhead per record: " + (double) overhead / count, overhead < count * 16L);
+    }
+
+    @Test
+    public void verify_rejectsCorruptedSnapshot() throws IOException {
+        byte[] bytes = writeSample(100);
+        bytes[bytes.length / 2] ^= 0x10;
+        try {
+            new SnapshotReader(ByteBuffer.wrap(bytes)).verify();
+            fail("expected IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("checksum"));
+        }
+
+        try {
+            new SnapshotReader(ByteBuffer.wrap("not a snapshot at all".getBytes())).verify();
+            fail("expected IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("Not a ledger snapshot"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void writer_requiresAscendingIds() throws IOException {
+        SnapshotWriter writer = new SnapshotWriter(new ByteArrayOutputStream());
+        writer.beginSection(SnapshotFormat.SECTION_CATEGORIES);
+        writer.category(2, "a", 0, null);
+        writer.category(2, "b", 0, null);
+    }
+
+    @Test
+    public void delta_carriesSequenceRangeAndDeletions() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SnapshotWriter writer = new SnapshotWriter(out, SnapshotFormat.KIND_DELTA, 120, 345);
+        writer.beginSection(SnapshotFormat.SECTION_RECORDS);
+        writer.record(7, 300, 0, 1, 1, 1_700_000_000_000L, "改");
+        writer.endSection();
+        writer.beginSection(SnapshotFormat.deletionsOf(SnapshotFormat.SECTION_RECORDS));
+        writer.deleted(3);
+        writer.deleted(90_000);
+        writer.endSection();
+        writer.finish();
+
+        SnapshotReader reader = new SnapshotReader(ByteBuffer.wrap(out.toByteArray()));
+        reader.verify();
+        assertEquals(SnapshotFormat.KIND_DELTA, reader.kind());
+        assertEquals(120, reader.fromSeq());
+        assertEquals(345, reader.toSeq());
+
+        List<String> rows = new ArrayList<>();
+        reader.read(new CollectingVisitor(rows));
+        assertEquals(3, rows.size());
+        assertEquals("R7|300|0|1|1|1700000000000|改", rows.get(0));
+        assertEquals("-R3", rows.get(1));
+        assertEquals("-R90000", rows.get(2));
+    }
+
+    @Test
+    public void read_rejectsDeletionsInBaseSnapshot() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SnapshotWriter writer = new SnapshotWriter(out);
+        writer.beginSection(SnapshotFormat.deletionsOf(SnapshotFormat.SECTION_ITEMS));
+        writer.deleted(1);
+        writer.endSection();
+        writer.finish();
+
+        SnapshotReader reader = new SnapshotReader(ByteBuffer.wrap(out.toByteArray()));
+        reader.verify();
+        assertEquals(SnapshotFormat.KIND_BASE, reader.kind());
+        try {
+            reader.read(new CollectingVisitor(new ArrayList<>()));
+            fail("expected IOException");
+        } catch (IOException expected) {
+        }
+    }
+
+    /**
+     * 生成样例快照：records 段共 count 行 (奇数 id，第 2 行日期倒退以覆盖负增量)
+     */
+    private static byte[] writeSample(int count) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SnapshotWriter writer = new SnapshotWriter(out);
+        writer.beginSection(SnapshotFormat.SECTION_ACCOUNTS);
+        writer.account(1, "现金", "Cash", -1050);
+        writer.account(4, "支付宝", null, 0);
+        writer.endSection();
+
+        writer.beginSection(SnapshotFormat.SECTION_CATEGORIES);
+        writer.category(1, "餐饮", 0, "ic_food");
+        writer.category(9, null, 1, null);
+        writer.endSection();
+
+        writer.beginSection(SnapshotFormat.SECTION_RECORDS);
+        for (int i = 0; i < count; i++) {
+            long date = i == 1 ? 1_699_999_940_000L : 1_700_000_000_000L + i * 3_600_000L;
+            writer.record(2 * i + 1, i * 125L, i % 2, i % 2 == 0 ? 1 : -1, i % 2 == 0 ? -1 : 2, date,
+                    i == 1 ? null : i == 0 ? "note 0, \"引号\"" : "午饭 " + i);
+        }
+        writer.endSection();
+
+        writer.beginSection(SnapshotFormat.SECTION_ITEMS);
+        writer.item(5, "键盘", 2, -1, 1_700_000_000_000L, 19900, null);
+        writer.item(70000, "名称", 0, 3, -5, 0, "content://photo/1");
+        writer.endSection();
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    private static final class CollectingVisitor implements SnapshotReader.Visitor {
+        private final List<String> rows;
+
+        CollectingVisitor(List<String> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public void account(int id, String name, String type, long balanceCents) {
+            rows.add("A" + id + "|" + name + "|" + type + "|" + balanceCents);
+        }
+
+        @Override
+        public void category(int id, String name, int type, String iconResName) {
+            rows.add("C" + id + "|" + name + "|" + type + "|" + iconResName);
+        }
+
+        @Override
+        public void record(int id, long amountCents, int type, int categoryId, int accountId, long date, String note) {
+            rows.add("R" + id + "|" + amountCents + "|" + type + "|" + categoryId + "|" + accountId + "|" + date + "|" + note);
+        }
+
+        @Override
+        public void item(int id, String name, int status, int recordId, long purchaseDate, long priceCents, String photoPath) {
+            rows.add("I" + id + "|" + name + "|" + status + "|" + recordId + "|" + purchaseDate + "|" + priceCents + "|" + photoPath);
+        }
+
+        @Override
+        public void deleted(byte section, int id) {
+            rows.add("-" + (char) section + id);
+        }
+    }
+}
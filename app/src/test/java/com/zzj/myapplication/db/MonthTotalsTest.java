@@ -0,0 +1,115 @@
+package com.zzj.myapplication.db;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 本月收支汇总的测试：100k 条记录下，区间 SQL 汇总、月度汇总表与旧的全表加载逐条累加结果一致，
+ * 且区间汇总只读日期覆盖索引中该区间的部分 (查询计划中没有扫描记录表的步骤)
+ * (在 JVM 上运行，数据库为 Robolectric 生成的真实数据库文件)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class MonthTotalsTest {
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+    }
+
+    @Test
+    public void monthTotals_overHundredThousandRecordsReadOnlyTheDateIndex() {
+        Context context = RuntimeEnvironment.getApplication();
+        RecordDao recordDao = new RecordDao(context);
+        MonthlySummaryDao monthlySummaryDao = new MonthlySummaryDao(context);
+
+        // 两年的历史数据，均匀分布在 2023-01 到 2024-12
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2023, Calendar.JANUARY, 1);
+        long start = calendar.getTimeInMillis();
+        calendar.set(2025, Calendar.JANUARY, 1);
+        long end = calendar.getTimeInMillis();
+
+        int count = 100_000;
+        Random random = new Random(7);
+        List<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long amount = 1 + random.nextInt(1_000_000);
+            int type = random.nextInt(4) == 0 ? Record.TYPE_INCOME : Record.TYPE_EXPENSE;
+            long date = start + (long) (random.nextDouble() * (end - start));
+            records.add(new Record(amount, type, 1 + random.nextInt(5), 1 + random.nextInt(4), date, null));
+        }
+        recordDao.addRecords(records);
+
+        calendar.set(2024, Calendar.MARCH, 1);
+        long monthStart = calendar.getTimeInMillis();
+        calendar.set(2024, Calendar.APRIL, 1);
+        long monthEnd = calendar.getTimeInMillis() - 1;
+
+        long[] looped = sumMonthByLoop(recordDao.getAllRecords(), 2024, Calendar.MARCH);
+        assertTrue(looped[Record.TYPE_INCOME] > 0 && looped[Record.TYPE_EXPENSE] > 0);
+        assertArrayEquals(looped, recordDao.getTypeTotals(monthStart, monthEnd));
+        assertArrayEquals(looped, monthlySummaryDao.getMonthTotals(2024, 3));
+
+        // 区间汇总按日期条件查找 (type, amount) 都在其中的覆盖索引，而不是逐行扫描记录表
+        List<String> plan = queryPlan(context, RecordDao.SELECT_TYPE_TOTALS, monthStart, monthEnd);
+        boolean searchesDateIndex = false;
+        for (String step : plan) {
+            assertFalse(plan.toString(), step.matches("SCAN (TABLE )?" + DatabaseHelper.TABLE_RECORDS + "( .*)?"));
+            if (step.startsWith("SEARCH") && step.contains("COVERING INDEX " + Migrations.INDEX_RECORDS_DATE)) {
+                searchesDateIndex = true;
+            }
+        }
+        assertTrue(plan.toString(), searchesDateIndex);
+    }
+
+    /**
+     * EXPLAIN QUERY PLAN 输出的各个步骤
+     */
+    private static List<String> queryPlan(Context context, String sql, long startTime, long endTime) {
+        List<String> steps = new ArrayList<>();
+        Cursor cursor = DatabaseHelper.getInstance(context).getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + sql,
+                new String[]{String.valueOf(startTime), String.valueOf(endTime)});
+        try {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                steps.add(cursor.getString(detail));
+            }
+        } finally {
+            cursor.close();
+        }
+        return steps;
+    }
+
+    /**
+     * 改动前首页的写法：加载全部记录，逐条用 Calendar 判断是否属于该月
+     */
+    private static long[] sumMonthByLoop(List<Record> records, int year, int month) {
+        long[] totals = new long[2];
+        Calendar calendar = Calendar.getInstance();
+        for (Record record : records) {
+            calendar.setTimeInMillis(record.getDate());
+            if (calendar.get(Calendar.MONTH) == month && calendar.get(Calendar.YEAR) == year) {
+                totals[record.getType()] += record.getAmount();
+            }
+        }
+        return totals;
+    }
+}
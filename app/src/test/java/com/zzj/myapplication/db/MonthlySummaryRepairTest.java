@@ -0,0 +1,66 @@
+package com.zzj.myapplication.db;
+
+import android.content.Context;
+
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * 月度汇总的启动检查测试：首次启动和时区变化后检查并修复汇总表，时区不变时跳过
+ * (在 JVM 上运行，数据库为 Robolectric 生成的真实数据库文件)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class MonthlySummaryRepairTest {
+
+    private TimeZone originalTimeZone;
+    private MonthlySummaryDao monthlySummaryDao;
+
+    @Before
+    public void setUp() {
+        originalTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        Context context = RuntimeEnvironment.getApplication();
+        monthlySummaryDao = new MonthlySummaryDao(context);
+        new RecordDao(context).addRecord(new Record(4200, Record.TYPE_EXPENSE, 1, 1, 1_700_000_000_000L, null));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalTimeZone);
+        DatabaseHelper.closeInstance();
+    }
+
+    @Test
+    public void checkAndRepairIfTimeZoneChanged_runsOnFirstStartAndAfterZoneChange() {
+        corruptSummary();
+        assertTrue(monthlySummaryDao.checkAndRepairIfTimeZoneChanged());
+        assertEquals(0, monthlySummaryDao.countMismatches());
+
+        // 时区未变：不检查，人为制造的不一致保留
+        corruptSummary();
+        assertFalse(monthlySummaryDao.checkAndRepairIfTimeZoneChanged());
+        assertEquals(1, monthlySummaryDao.countMismatches());
+
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/London"));
+        assertTrue(monthlySummaryDao.checkAndRepairIfTimeZoneChanged());
+        assertEquals(0, monthlySummaryDao.countMismatches());
+    }
+
+    private void corruptSummary() {
+        DatabaseHelper.getInstance(RuntimeEnvironment.getApplication()).getWritableDatabase()
+                .execSQL("UPDATE " + DatabaseHelper.TABLE_MONTHLY_SUMMARY
+                        + " SET " + DatabaseHelper.COLUMN_SUMMARY_TOTAL + " = " + DatabaseHelper.COLUMN_SUMMARY_TOTAL + " + 1");
+    }
+}
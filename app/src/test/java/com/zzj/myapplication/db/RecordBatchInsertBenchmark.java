@@ -0,0 +1,78 @@
+package com.zzj.myapplication.db;
+
+import android.content.Context;
+
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量添加记录的吞吐量基准 (耗时与机器负载有关，不随单元测试运行；需要时去掉 @Ignore 手动运行)
+ * 同样的 10k 条记录逐条 addRecord (每行一个事务) vs addRecords (预编译语句，分块提交)，
+ * 批量路径再写入 100k 和 1M 条，耗时应与行数大致成正比
+ */
+@Ignore("基准测试，手动运行")
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class RecordBatchInsertBenchmark {
+
+    private static final long DATE = 1_700_000_000_000L;
+
+    private RecordDao recordDao;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        recordDao = new RecordDao(context);
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+    }
+
+    @Test
+    public void batchInsertVsPerRow() {
+        int count = 10_000;
+        List<Record> records = records(count);
+
+        long begin = System.nanoTime();
+        for (Record record : records) recordDao.addRecord(record);
+        long perRowNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        recordDao.addRecords(records);
+        long batchNanos = System.nanoTime() - begin;
+        String report = "10k rows: batch " + batchNanos / 1_000_000 + "ms vs per-row " + perRowNanos / 1_000_000 + "ms";
+        assertTrue(report, batchNanos * 2 < perRowNanos);
+
+        for (int scale = 10; scale <= 100; scale *= 10) {
+            List<Record> large = records(scale * count);
+            begin = System.nanoTime();
+            recordDao.addRecords(large);
+            long largeNanos = System.nanoTime() - begin;
+            assertTrue(scale * count + " rows: batch " + largeNanos / 1_000_000 + "ms; " + report,
+                    largeNanos < 3L * scale * batchNanos);
+        }
+    }
+
+    private static List<Record> records(int count) {
+        List<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new Record(100, Record.TYPE_EXPENSE, 1 + i % 5, 1, DATE + i * 60_000L, "r" + i));
+        }
+        return records;
+    }
+}
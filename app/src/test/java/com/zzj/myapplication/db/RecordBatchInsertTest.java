@@ -0,0 +1,102 @@
+package com.zzj.myapplication.db;
+
+import android.content.Context;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.zzj.myapplication.model.Account;
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量添加记录的测试 (在 JVM 上运行，数据库为 Robolectric 生成的真实数据库文件)
+ * 吞吐量对比见 {@link RecordBatchInsertBenchmark}
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class RecordBatchInsertTest {
+
+    private static final long DATE = 1_700_000_000_000L;
+
+    private Context context;
+    private RecordDao recordDao;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        recordDao = new RecordDao(context);
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+    }
+
+    /**
+     * 批量写入返回连续的 id，所有行和余额变动都已提交
+     */
+    @Test
+    public void addRecords_insertsAllRowsWithContiguousIds() {
+        int count = 10_000;
+        long balanceBefore = balance(1);
+
+        long[] ids = recordDao.addRecords(records(count));
+
+        assertEquals(count, ids.length);
+        for (int i = 1; i < count; i++) assertEquals(ids[i - 1] + 1, ids[i]);
+        assertEquals(count, recordDao.getAllRecords().size());
+        assertEquals(balanceBefore - count * 100L, balance(1));
+    }
+
+    /**
+     * 某一行插入失败时抛出异常：该行所在的分块连同余额变动整体回滚，之前的分块保留
+     */
+    @Test
+    public void addRecords_failedRowRollsBackItsChunkOnly() {
+        SQLiteDatabase db = DatabaseHelper.getInstance(context).getWritableDatabase();
+        db.execSQL("CREATE TEMP TRIGGER reject_negative BEFORE INSERT ON " + DatabaseHelper.TABLE_RECORDS
+                + " WHEN NEW." + DatabaseHelper.COLUMN_RECORD_AMOUNT + " < 0 BEGIN SELECT RAISE(ABORT, 'negative'); END");
+        long balanceBefore = balance(1);
+
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            records.add(new Record(i == 13 ? -1 : 100, Record.TYPE_EXPENSE, 1, 1, DATE + i, null));
+        }
+        try {
+            recordDao.addRecords(records, 10);
+            fail("expected SQLException");
+        } catch (SQLException expected) {
+            // 第 14 行 (第二个分块) 被拒绝
+        }
+
+        assertEquals(10, recordDao.getAllRecords().size());
+        assertEquals(balanceBefore - 10 * 100, balance(1));
+    }
+
+    private static List<Record> records(int count) {
+        List<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new Record(100, Record.TYPE_EXPENSE, 1 + i % 5, 1, DATE + i * 60_000L, "r" + i));
+        }
+        return records;
+    }
+
+    private long balance(int accountId) {
+        for (Account account : new AccountDao(context).getAllAccounts()) {
+            if (account.getId() == accountId) return account.getBalance();
+        }
+        throw new AssertionError("No account " + accountId);
+    }
+}
@@ -0,0 +1,112 @@
+package com.zzj.myapplication.db;
+
+import android.content.Context;
+
+import com.zzj.myapplication.model.Account;
+import com.zzj.myapplication.model.DailyTotals;
+import com.zzj.myapplication.model.Record;
+import com.zzj.myapplication.stats.LedgerStats;
+import com.zzj.myapplication.stats.RecordColumns;
+import com.zzj.myapplication.stats.RecordStats;
+import com.zzj.myapplication.stats.TimeSeries;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 金额以分保存后各汇总路径的精确性测试 (在 JVM 上运行，数据库为 Robolectric 生成的真实数据库文件)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class RecordTotalsTest {
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        LedgerStats.getInstance(context).invalidate(); // 每个测试使用新的数据库文件
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+    }
+
+    @Test
+    public void totalsOfRandomAmounts_matchJavaSumsExactly() {
+        int count = 100_000;
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2024, Calendar.MARCH, 1);
+        long monthStart = calendar.getTimeInMillis();
+        calendar.add(Calendar.MONTH, 1);
+        long monthEnd = calendar.getTimeInMillis() - 1;
+
+        Random random = new Random(2024);
+        long[] expected = new long[2];
+        long[] balances = new long[5];
+        RecordDao recordDao = new RecordDao(context);
+        List<Record> records = new ArrayList<>(10_000);
+        for (int i = 0; i < count; i++) {
+            long amount = 1 + random.nextInt(1_000_000); // 0.01 ~ 10000.00 元
+            int type = random.nextInt(4) == 0 ? Record.TYPE_INCOME : Record.TYPE_EXPENSE;
+            int accountId = 1 + random.nextInt(4);
+            long date = monthStart + (long) (random.nextDouble() * (monthEnd - monthStart));
+            expected[type] += amount;
+            balances[accountId] += type == Record.TYPE_INCOME ? amount : -amount;
+            records.add(new Record(amount, type, 1, accountId, date, null));
+            if (records.size() == 10_000) {
+                recordDao.addRecords(records);
+                records.clear();
+            }
+        }
+
+        long[] totals = LedgerStats.getInstance(context).typeTotals(monthStart, monthEnd);
+        assertEquals(expected[Record.TYPE_INCOME], totals[Record.TYPE_INCOME]);
+        assertEquals(expected[Record.TYPE_EXPENSE], totals[Record.TYPE_EXPENSE]);
+
+        TimeSeries daily = LedgerStats.getInstance(context).series(monthStart, monthEnd, 60);
+        assertEquals(TimeSeries.Resolution.DAY, daily.resolution);
+        assertEquals(31, daily.size());
+        assertEquals(expected[Record.TYPE_INCOME], daily.totalIncome());
+        assertEquals(expected[Record.TYPE_EXPENSE], daily.totalExpense());
+
+        // SQL 按天分组与内存中的按天汇总一致
+        DailyTotals grouped = recordDao.getDailyTotals(monthStart, monthEnd);
+        assertArrayEquals(daily.starts, grouped.dayStarts);
+        assertArrayEquals(daily.income, grouped.income);
+        assertArrayEquals(daily.expense, grouped.expense);
+
+        long[] monthTotals = new MonthlySummaryDao(context).getMonthTotals(2024, 3);
+        assertEquals(expected[Record.TYPE_INCOME], monthTotals[Record.TYPE_INCOME]);
+        assertEquals(expected[Record.TYPE_EXPENSE], monthTotals[Record.TYPE_EXPENSE]);
+        assertEquals(0, new MonthlySummaryDao(context).countMismatches());
+
+        // 列式快照上的扫描统计与 SQL 汇总一致
+        RecordColumns columns = RecordColumns.load(context);
+        assertEquals(count, columns.size());
+        assertArrayEquals(totals, RecordStats.typeTotals(columns, monthStart, monthEnd));
+        assertArrayEquals(monthTotals, RecordStats.monthTotals(columns, 2024, 3));
+        TimeSeries scanned = RecordStats.dailyTotals(columns, monthStart, monthEnd);
+        assertArrayEquals(grouped.dayStarts, scanned.starts);
+        assertArrayEquals(grouped.income, scanned.income);
+        assertArrayEquals(grouped.expense, scanned.expense);
+
+        for (Account account : new AccountDao(context).getAllAccounts()) {
+            assertEquals(account.getName(), balances[account.getId()], account.getBalance());
+        }
+    }
+}
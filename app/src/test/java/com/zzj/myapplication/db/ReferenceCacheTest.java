@@ -0,0 +1,63 @@
+package com.zzj.myapplication.db;
+
+import com.zzj.myapplication.model.Category;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分类/账户缓存索引的本地单元测试
+ */
+public class ReferenceCacheTest {
+
+    private static final ReferenceCache.Keys<Category> KEYS = new ReferenceCache.Keys<Category>() {
+        @Override public int id(Category row) { return row.getId(); }
+        @Override public Object type(Category row) { return row.getType(); }
+    };
+
+    @Test
+    public void index_looksUpByIdAndType() {
+        List<Category> rows = Arrays.asList(
+                new Category(1, "餐饮", Category.TYPE_EXPENSE, "ic_food"),
+                new Category(2, "工资", Category.TYPE_INCOME, "ic_salary"),
+                new Category(5, "交通", Category.TYPE_EXPENSE, "ic_traffic"));
+        ReferenceCache.Index<Category> index = new ReferenceCache.Index<>("t_cache_lookup",
+                TableVersions.get("t_cache_lookup"), rows, KEYS);
+
+        assertEquals("交通", index.get(5).getName());
+        assertNull(index.get(3));
+        assertNull(index.get(-1));
+        assertNull(index.get(100));
+        assertEquals(2, index.ofType(Category.TYPE_EXPENSE).size());
+        assertEquals(1, index.ofType(Category.TYPE_INCOME).size());
+        assertTrue(index.ofType(7).isEmpty());
+        assertEquals(3, index.all().size());
+    }
+
+    @Test
+    public void index_handlesSparseIds() {
+        List<Category> rows = Arrays.asList(
+                new Category(3, "a", Category.TYPE_EXPENSE, null),
+                new Category(1000000, "b", Category.TYPE_EXPENSE, null));
+        ReferenceCache.Index<Category> index = new ReferenceCache.Index<>("t_cache_sparse",
+                TableVersions.get("t_cache_sparse"), rows, KEYS);
+
+        assertEquals("a", index.get(3).getName());
+        assertEquals("b", index.get(1000000).getName());
+        assertNull(index.get(4));
+    }
+
+    @Test
+    public void index_isInvalidatedByWrite() {
+        ReferenceCache.Index<Category> index = new ReferenceCache.Index<>("t_cache_write",
+                TableVersions.get("t_cache_write"), Arrays.<Category>asList(), KEYS);
+        assertTrue(index.isCurrent());
+
+        TableVersions.bump("t_cache_write");
+        assertFalse(index.isCurrent());
+    }
+}
@@ -0,0 +1,80 @@
+package com.zzj.myapplication.db;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 逐行映射基准：100k 条记录，映射器 (固定下标) vs SELECT * 加每行 getColumnIndexOrThrow 的分配与耗时
+ * (分配量与耗时取决于 JVM 和机器负载，不随单元测试运行；需要时去掉 @Ignore 手动运行)
+ */
+@Ignore("基准测试，手动运行")
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class RowMapperBenchmark {
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+    }
+
+    @Test
+    public void mapHundredThousandRecords() {
+        int count = 100_000;
+        new RecordDao(context).addRecords(RowMapperTest.records(count));
+        SQLiteDatabase db = DatabaseHelper.getInstance(context).getReadableDatabase();
+
+        long mapperBytes = Long.MAX_VALUE;
+        long legacyBytes = Long.MAX_VALUE;
+        long mapperNanos = Long.MAX_VALUE;
+        long legacyNanos = Long.MAX_VALUE;
+        List<Record> mapped = null;
+        for (int round = 0; round < 5; round++) {
+            long bytes = allocatedBytes();
+            long begin = System.nanoTime();
+            mapped = RowMapperTest.mapAll(db);
+            mapperNanos = Math.min(mapperNanos, System.nanoTime() - begin);
+            mapperBytes = Math.min(mapperBytes, allocatedBytes() - bytes);
+
+            bytes = allocatedBytes();
+            begin = System.nanoTime();
+            RowMapperTest.mapAllLegacy(db);
+            legacyNanos = Math.min(legacyNanos, System.nanoTime() - begin);
+            legacyBytes = Math.min(legacyBytes, allocatedBytes() - bytes);
+        }
+
+        assertEquals(count, mapped.size());
+        String report = "per row: mapper " + mapperBytes / count + "B " + mapperNanos / count + "ns, legacy "
+                + legacyBytes / count + "B " + legacyNanos / count + "ns";
+        // 每行只分配 Record 和备注字符串 (不超过 1KB)，且不比旧写法多
+        assertTrue(report, mapperBytes / count < 1024);
+        assertTrue(report, mapperBytes <= legacyBytes + count);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
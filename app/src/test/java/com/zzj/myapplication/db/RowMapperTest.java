@@ -0,0 +1,153 @@
+package com.zzj.myapplication.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.zzj.myapplication.model.Item;
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 行映射器的测试：查询只选取映射用到的列，逐行映射的结果与按列名查找的旧写法一致
+ * (分配与耗时的对比见 {@link RowMapperBenchmark})
+ * (在 JVM 上运行，数据库为 Robolectric 生成的真实数据库文件)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class RowMapperTest {
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+    }
+
+    @Test
+    public void projections_selectExactlyTheMappedColumns() {
+        SQLiteDatabase db = DatabaseHelper.getInstance(context).getReadableDatabase();
+        RowMapper<?>[] mappers = {RowMappers.ACCOUNT, RowMappers.CATEGORY, RowMappers.RECORD, RowMappers.ITEM};
+        String[] tables = {DatabaseHelper.TABLE_ACCOUNTS, DatabaseHelper.TABLE_CATEGORIES,
+                DatabaseHelper.TABLE_RECORDS, DatabaseHelper.TABLE_ITEMS};
+        for (int i = 0; i < mappers.length; i++) {
+            try (Cursor cursor = db.query(tables[i], mappers[i].projection(), null, null, null, null, null)) {
+                assertArrayEquals(tables[i], mappers[i].projection(), cursor.getColumnNames());
+            }
+            assertEquals(String.join(", ", mappers[i].projection()), mappers[i].columns());
+        }
+
+        // 每一列都读到了对应的字段 (包括可空列)
+        RecordDao recordDao = new RecordDao(context);
+        long recordId = recordDao.addRecord(new Record(12345, Record.TYPE_INCOME, 2, 1, 1_700_000_000_000L, "工资"));
+        Record record = recordDao.getAllRecords().get(0);
+        assertEquals(recordId, record.getId());
+        assertEquals(12345, record.getAmount());
+        assertEquals(Record.TYPE_INCOME, record.getType());
+        assertEquals(2, record.getCategoryId());
+        assertEquals(1, record.getAccountId());
+        assertEquals(1_700_000_000_000L, record.getDate());
+        assertEquals("工资", record.getNote());
+
+        ItemDao itemDao = new ItemDao(context);
+        int linked = (int) itemDao.addItem(new Item("耳机", Item.STATUS_IDLE, (int) recordId, 1_700_000_000_000L, 39900, "content://a"));
+        int unlinked = (int) itemDao.addItem(new Item("台灯", Item.STATUS_IN_USE, null, 0, 0, null));
+        Item item = itemDao.getItem(linked);
+        assertEquals("耳机", item.getName());
+        assertEquals(Item.STATUS_IDLE, item.getStatus());
+        assertEquals(Integer.valueOf((int) recordId), item.getRecordId());
+        assertEquals(39900, item.getPrice());
+        assertEquals("content://a", item.getPhotoPath());
+        assertNull(itemDao.getItem(unlinked).getRecordId());
+        assertNull(itemDao.getItem(unlinked).getPhotoPath());
+    }
+
+    @Test
+    public void mapper_matchesColumnNameLookupRowByRow() {
+        int count = 2_000;
+        new RecordDao(context).addRecords(records(count));
+        SQLiteDatabase db = DatabaseHelper.getInstance(context).getReadableDatabase();
+
+        List<Record> mapped = mapAll(db);
+        List<Record> legacy = mapAllLegacy(db);
+        assertEquals(count, mapped.size());
+        assertEquals(count, legacy.size());
+        for (int i = 0; i < count; i++) {
+            Record a = mapped.get(i);
+            Record b = legacy.get(i);
+            assertEquals(b.getId(), a.getId());
+            assertEquals(b.getAmount(), a.getAmount());
+            assertEquals(b.getType(), a.getType());
+            assertEquals(b.getCategoryId(), a.getCategoryId());
+            assertEquals(b.getAccountId(), a.getAccountId());
+            assertEquals(b.getDate(), a.getDate());
+            assertEquals(b.getNote(), a.getNote());
+        }
+    }
+
+    /**
+     * 测试数据：金额、分类、日期和备注逐行不同
+     */
+    static List<Record> records(int count) {
+        List<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new Record(100 + i, Record.TYPE_EXPENSE, 1 + i % 5, 1, 1_700_000_000_000L - i * 60_000L, "r" + i));
+        }
+        return records;
+    }
+
+    /**
+     * 用映射器按 id 顺序读出全部记录
+     */
+    static List<Record> mapAll(SQLiteDatabase db) {
+        return RowMappers.RECORD.mapAll(db.query(DatabaseHelper.TABLE_RECORDS, RowMappers.RECORD.projection(),
+                null, null, null, null, DatabaseHelper.COLUMN_ID));
+    }
+
+    /**
+     * 用重构前的写法按 id 顺序读出全部记录
+     */
+    static List<Record> mapAllLegacy(SQLiteDatabase db) {
+        return mapLegacy(db.rawQuery("SELECT * FROM " + DatabaseHelper.TABLE_RECORDS
+                + " ORDER BY " + DatabaseHelper.COLUMN_ID, null));
+    }
+
+    /**
+     * 重构前 DAO 的写法：每一行对每一列调用 getColumnIndexOrThrow
+     */
+    private static List<Record> mapLegacy(Cursor cursor) {
+        List<Record> list = new ArrayList<>();
+        try {
+            while (cursor.moveToNext()) {
+                list.add(new Record(
+                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID)),
+                        cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_AMOUNT)),
+                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_TYPE)),
+                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_CATEGORY_ID)),
+                        cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_ACCOUNT_ID)),
+                        cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_DATE)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_NOTE))));
+            }
+        } finally {
+            cursor.close();
+        }
+        return list;
+    }
+}
@@ -0,0 +1,32 @@
+package com.zzj.myapplication.db;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 全文检索查询表达式的本地单元测试
+ */
+public class SearchIndexTest {
+
+    @Test
+    public void toMatchQuery_prefixesEachTerm() {
+        assertEquals("\"coffee*\"", SearchIndex.toMatchQuery("coffee"));
+        assertEquals("\"午饭*\" \"同事*\"", SearchIndex.toMatchQuery("  午饭   同事 "));
+    }
+
+    @Test
+    public void toMatchQuery_neutralizesSyntax() {
+        assertEquals("\"a*\" \"OR*\" \"b*\"", SearchIndex.toMatchQuery("\"a OR b\""));
+        assertEquals("\"NOT*\" \"x*\"", SearchIndex.toMatchQuery("NOT x*"));
+        assertEquals("\"-x*\"", SearchIndex.toMatchQuery("- -x"));
+    }
+
+    @Test
+    public void toMatchQuery_returnsNullWithoutTerms() {
+        assertNull(SearchIndex.toMatchQuery(null));
+        assertNull(SearchIndex.toMatchQuery(""));
+        assertNull(SearchIndex.toMatchQuery("   "));
+        assertNull(SearchIndex.toMatchQuery("\" * -"));
+    }
+}
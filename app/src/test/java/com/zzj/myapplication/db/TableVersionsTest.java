@@ -0,0 +1,54 @@
+package com.zzj.myapplication.db;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 表级版本号的本地单元测试
+ * 页面是否发起查询完全由 Stamp.isStale() 决定，这里验证没有写入时不会触发重新加载
+ */
+public class TableVersionsTest {
+
+    @Test
+    public void stamp_staysFreshWithoutWrites() {
+        TableVersions.Stamp stamp = new TableVersions.Stamp("t_fresh_a", "t_fresh_b");
+        assertTrue(stamp.isStale());
+
+        stamp.markSeen(stamp.snapshot());
+        // 多次切换标签，没有任何写入
+        for (int i = 0; i < 10; i++) {
+            assertFalse(stamp.isStale());
+        }
+
+        // 与该页面无关的表被修改也不应触发重新加载
+        TableVersions.bump("t_fresh_other");
+        assertFalse(stamp.isStale());
+    }
+
+    @Test
+    public void stamp_becomesStaleAfterWrite() {
+        TableVersions.Stamp stamp = new TableVersions.Stamp("t_write_a", "t_write_b");
+        stamp.markSeen(stamp.snapshot());
+
+        TableVersions.bump("t_write_b");
+        assertTrue(stamp.isStale());
+
+        stamp.markSeen(stamp.snapshot());
+        assertFalse(stamp.isStale());
+
+        stamp.invalidate();
+        assertTrue(stamp.isStale());
+    }
+
+    @Test
+    public void stamp_writeDuringLoadIsNotMissed() {
+        TableVersions.Stamp stamp = new TableVersions.Stamp("t_race");
+        long[] before = stamp.snapshot();
+        // 加载进行中另一处写入了数据
+        TableVersions.bump("t_race");
+        stamp.markSeen(before);
+
+        assertTrue(stamp.isStale());
+    }
+}
@@ -0,0 +1,78 @@
+package com.zzj.myapplication.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 金额 (分) 解析、格式化与累加的本地单元测试
+ */
+public class MoneyTest {
+
+    @Test
+    public void parse_convertsYuanToCents() {
+        assertEquals(1250, Money.parse("12.5"));
+        assertEquals(1200, Money.parse("12"));
+        assertEquals(1, Money.parse("0.01"));
+        assertEquals(-5, Money.parse("-0.05"));
+        assertEquals(30, Money.parse(" .3 "));
+        // 第三位小数四舍五入
+        assertEquals(1001, Money.parse("10.005"));
+        assertEquals(1000, Money.parse("10.004"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parse_rejectsGarbage() {
+        Money.parse("12元");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parse_rejectsOverflow() {
+        Money.parse("1e30");
+    }
+
+    @Test
+    public void format_writesTwoDecimals() {
+        assertEquals("12.50", Money.format(1250));
+        assertEquals("0.00", Money.format(0));
+        assertEquals("0.07", Money.format(7));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("-12.34", Money.format(-1234));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+        assertEquals("92233720368547758.07", Money.format(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void parseAndFormat_roundTrip() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long cents = random.nextLong() % 10_000_000_000L;
+            assertEquals(cents, Money.parse(Money.format(cents)));
+        }
+    }
+
+    @Test
+    public void sumOfRandomAmounts_isExact() {
+        int count = 100_000;
+        Random random = new Random(42);
+        long sum = 0;
+        double doubleSum = 0;
+        BigDecimal expected = BigDecimal.ZERO;
+        for (int i = 0; i < count; i++) {
+            // 0.01 ~ 100000.00 元，收支各半
+            long cents = 1 + random.nextInt(10_000_000);
+            if (random.nextBoolean()) cents = -cents;
+            sum += cents;
+            doubleSum += Money.toYuan(cents);
+            expected = expected.add(BigDecimal.valueOf(cents, 2));
+        }
+
+        assertEquals(expected.movePointRight(2).longValueExact(), sum);
+        assertEquals(expected.toPlainString(), Money.format(sum));
+        // 同样的数据按元以 double 累加会产生误差
+        assertNotEquals(0, new BigDecimal(doubleSum).compareTo(expected));
+    }
+}
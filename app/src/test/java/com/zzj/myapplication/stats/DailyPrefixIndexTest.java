@@ -0,0 +1,140 @@
+package com.zzj.myapplication.stats;
+
+import com.zzj.myapplication.model.Record;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按天前缀和索引的本地单元测试：与逐条累加的结果比较
+ */
+public class DailyPrefixIndexTest {
+
+    private static final long START = 1_700_000_000_000L;
+    private static final long DAY = LocalDays.DAY_MILLIS;
+    // 有夏令时的时区，验证按本地日期分桶
+    private static final TimeZone ZONE = TimeZone.getTimeZone("America/New_York");
+
+    @Test
+    public void totals_matchBruteForceAfterBuildAddAndRemove() {
+        Random random = new Random(19);
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) records.add(randomRecord(random, i + 1, 0, 400));
+
+        RecordColumns.Builder builder = new RecordColumns.Builder(records.size());
+        for (Record record : records) {
+            builder.add(record.getId(), record.getDate(), record.getAmount(), record.getType(),
+                    record.getCategoryId(), record.getAccountId(), (String) null);
+        }
+        RecordColumns columns = builder.build();
+        DailyPrefixIndex byType = DailyPrefixIndex.build(columns, DailyPrefixIndex.Dimension.NONE, ZONE);
+        DailyPrefixIndex byAccount = DailyPrefixIndex.build(columns, DailyPrefixIndex.Dimension.ACCOUNT, ZONE);
+        DailyPrefixIndex byCategory = DailyPrefixIndex.build(columns, DailyPrefixIndex.Dimension.CATEGORY, ZONE);
+        checkRandomRanges(random, records, byType, byAccount, byCategory);
+
+        // 增量删除一部分，再在原范围两侧之外新增 (触发扩展)
+        for (int i = 0; i < 3000; i++) {
+            Record record = records.remove(random.nextInt(records.size()));
+            for (DailyPrefixIndex index : new DailyPrefixIndex[]{byType, byAccount, byCategory}) {
+                index.remove(record.getDate(), record.getType(), record.getAmount(), record.getCategoryId(), record.getAccountId());
+            }
+        }
+        for (int i = 0; i < 3000; i++) {
+            Record record = randomRecord(random, 100_000 + i, -2000, 3000);
+            records.add(record);
+            for (DailyPrefixIndex index : new DailyPrefixIndex[]{byType, byAccount, byCategory}) {
+                index.add(record.getDate(), record.getType(), record.getAmount(), record.getCategoryId(), record.getAccountId());
+            }
+        }
+        checkRandomRanges(random, records, byType, byAccount, byCategory);
+    }
+
+    @Test
+    public void totals_ofEmptyIndexAndOpenRanges() {
+        DailyPrefixIndex index = new DailyPrefixIndex(DailyPrefixIndex.Dimension.NONE, ZONE);
+        assertArrayEquals(new long[2], index.totals(Long.MIN_VALUE, Long.MAX_VALUE));
+
+        index.add(START, Record.TYPE_EXPENSE, 250, 1, 1);
+        index.add(START + 1000 * DAY, Record.TYPE_INCOME, 900, 1, 1);
+        index.add(START, 7, 1_000_000, 1, 1); // 未知类型不计入
+        assertArrayEquals(new long[]{250, 900}, index.totals(0, Long.MAX_VALUE));
+        assertArrayEquals(new long[]{250, 900}, index.totals(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertArrayEquals(new long[]{250, 0}, index.totals(Long.MIN_VALUE, START));
+        assertArrayEquals(new long[2], index.totals(START + 2 * DAY, START + 998 * DAY));
+        assertArrayEquals(new long[2], index.totals(START + 2 * DAY, START));
+    }
+
+    @Test
+    public void add_clampsDatesOutsideSupportedRange() {
+        // 相距超过 2^30 天的日期曾使扩展时的容量计算溢出
+        RecordColumns columns = new RecordColumns.Builder(3)
+                .add(1, Long.MIN_VALUE, 100, Record.TYPE_EXPENSE, 1, 1, (String) null)
+                .add(2, START, 250, Record.TYPE_EXPENSE, 1, 1, (String) null)
+                .add(3, Long.MAX_VALUE, 900, Record.TYPE_INCOME, 1, 1, (String) null)
+                .build();
+        DailyPrefixIndex built = DailyPrefixIndex.build(columns, DailyPrefixIndex.Dimension.NONE, ZONE);
+        DailyPrefixIndex added = new DailyPrefixIndex(DailyPrefixIndex.Dimension.NONE, ZONE);
+        added.add(START, Record.TYPE_EXPENSE, 250, 1, 1);
+        added.add(Long.MAX_VALUE, Record.TYPE_INCOME, 900, 1, 1);
+        added.add(Long.MIN_VALUE, Record.TYPE_EXPENSE, 100, 1, 1);
+
+        for (DailyPrefixIndex index : new DailyPrefixIndex[]{built, added}) {
+            // 超出范围的记录计入覆盖两端的区间，不影响正常日期的区间
+            assertArrayEquals(new long[]{350, 900}, index.totals(Long.MIN_VALUE, Long.MAX_VALUE));
+            assertArrayEquals(new long[]{250, 0}, index.totals(START - DAY, START + DAY));
+            assertArrayEquals(new long[]{250, 900}, index.totals(START - DAY, Long.MAX_VALUE));
+        }
+    }
+
+    private static void checkRandomRanges(Random random, List<Record> records, DailyPrefixIndex byType,
+                                          DailyPrefixIndex byAccount, DailyPrefixIndex byCategory) {
+        Calendar cal = Calendar.getInstance(ZONE);
+        for (int round = 0; round < 300; round++) {
+            // 任意的起止时刻，期望值按两端所在日期的整天统计
+            long start = START + (long) ((random.nextDouble() * 5200 - 2100) * DAY);
+            long end = start + (long) (random.nextDouble() * 900 * DAY);
+            long from = startOfDay(cal, start);
+            cal.setTimeInMillis(end);
+            cal.add(Calendar.DAY_OF_MONTH, 1);
+            long to = startOfDay(cal, cal.getTimeInMillis()) - 1;
+            int account = 1 + random.nextInt(4);
+            int category = random.nextInt(6);
+
+            long[] expected = new long[2];
+            long[] expectedAccount = new long[2];
+            long[] expectedCategory = new long[2];
+            for (Record record : records) {
+                if (record.getDate() < from || record.getDate() > to) continue;
+                expected[record.getType()] += record.getAmount();
+                if (record.getAccountId() == account) expectedAccount[record.getType()] += record.getAmount();
+                if (record.getCategoryId() == category) expectedCategory[record.getType()] += record.getAmount();
+            }
+            assertArrayEquals(expected, byType.totals(start, end));
+            assertArrayEquals(expected, byAccount.totals(start, end));
+            assertArrayEquals(expectedAccount, byAccount.totals(account, start, end));
+            assertArrayEquals(expectedCategory, byCategory.totals(category, start, end));
+        }
+    }
+
+    private static long startOfDay(Calendar cal, long time) {
+        cal.setTimeInMillis(time);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTimeInMillis();
+    }
+
+    private static Record randomRecord(Random random, int id, int fromDay, int toDay) {
+        long date = START + (long) ((fromDay + random.nextDouble() * (toDay - fromDay)) * DAY);
+        int type = random.nextInt(3) == 0 ? Record.TYPE_INCOME : Record.TYPE_EXPENSE;
+        return new Record(id, 1 + random.nextInt(100_000), type, random.nextInt(6), 1 + random.nextInt(4), date, null);
+    }
+}
@@ -0,0 +1,99 @@
+package com.zzj.myapplication.stats;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 折线点数压缩的本地单元测试
+ */
+public class DownsamplerTest {
+
+    @Test
+    public void minMax_keepsShortSeriesUnchanged() {
+        double[] values = {3, 1, 4, 1, 5};
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, Downsampler.minMax(values, 10));
+        assertArrayEquals(new int[]{1, 2, 3}, Downsampler.minMax(values, 1, 4, 10));
+        assertArrayEquals(new int[0], Downsampler.minMax(new double[0], 10));
+    }
+
+    @Test
+    public void minMax_keepsPeaksTroughsAndEndpoints() {
+        Random random = new Random(21);
+        int count = 100_000;
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) values[i] = 100 + random.nextGaussian() * 10;
+        // 几个孤立的尖峰和低谷
+        int[] spikes = {17, 33_333, 50_001, 99_990};
+        int[] dips = {5, 42_424, 77_777};
+        for (int i : spikes) values[i] = 10_000 + i;
+        for (int i : dips) values[i] = -10_000 - i;
+
+        int target = 1080;
+        int[] selected = Downsampler.minMax(values, target);
+        assertTrue(selected.length <= target);
+        assertEquals(0, selected[0]);
+        assertEquals(count - 1, selected[selected.length - 1]);
+        for (int i = 1; i < selected.length; i++) assertTrue(selected[i] > selected[i - 1]);
+        for (int i : spikes) assertTrue("spike " + i, contains(selected, i));
+        for (int i : dips) assertTrue("dip " + i, contains(selected, i));
+
+        // 任意一段原序列的最大/最小值都出现在压缩结果中
+        for (int round = 0; round < 100; round++) {
+            int from = random.nextInt(count - 1000);
+            int to = from + 1000 + random.nextInt(count - from - 1000 + 1);
+            double max = Double.NEGATIVE_INFINITY;
+            double min = Double.POSITIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                max = Math.max(max, values[i]);
+                min = Math.min(min, values[i]);
+            }
+            int[] part = Downsampler.minMax(values, from, to, target);
+            assertTrue(part.length <= target);
+            double keptMax = Double.NEGATIVE_INFINITY;
+            double keptMin = Double.POSITIVE_INFINITY;
+            for (int i : part) {
+                assertTrue(i >= from && i < to);
+                keptMax = Math.max(keptMax, values[i]);
+                keptMin = Math.min(keptMin, values[i]);
+            }
+            assertEquals(max, keptMax, 0);
+            assertEquals(min, keptMin, 0);
+        }
+    }
+
+    @Test
+    public void minMax_outputSizeDependsOnTargetNotOnSeriesLength() {
+        // 十年和一百年的日序列压缩到同样的像素宽度，点数相同
+        double[] tenYears = new double[3650];
+        double[] hundredYears = new double[36_500];
+        assertEquals(Downsampler.minMax(tenYears, 500).length, Downsampler.minMax(hundredYears, 500).length);
+    }
+
+    @Test
+    public void minMax_intoReusedBufferMatchesAllocatingVersion() {
+        Random random = new Random(23);
+        double[] values = new double[50_000];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextDouble();
+        int target = 960;
+        int[] buffer = new int[Math.max(target, 4)];
+        for (int round = 0; round < 50; round++) {
+            int from = random.nextInt(values.length);
+            int to = from + random.nextInt(values.length - from + 1);
+            int[] expected = Downsampler.minMax(values, from, to, target);
+            assertTrue(Downsampler.capacity(to - from, target) <= buffer.length);
+            int size = Downsampler.minMax(values, from, to, target, buffer);
+            assertArrayEquals(expected, Arrays.copyOf(buffer, size));
+        }
+    }
+
+    private static boolean contains(int[] array, int value) {
+        for (int v : array) {
+            if (v == value) return true;
+        }
+        return false;
+    }
+}
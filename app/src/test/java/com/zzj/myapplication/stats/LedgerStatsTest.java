@@ -0,0 +1,153 @@
+package com.zzj.myapplication.stats;
+
+import android.content.Context;
+
+import com.zzj.myapplication.db.BulkImport;
+import com.zzj.myapplication.db.DatabaseHelper;
+import com.zzj.myapplication.db.RecordDao;
+import com.zzj.myapplication.model.Record;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * 统计索引随记录增删增量更新的测试 (在 JVM 上运行，数据库为 Robolectric 生成的真实数据库文件)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class LedgerStatsTest {
+
+    private Context context;
+    private LedgerStats stats;
+    private long start;
+    private long end;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        stats = LedgerStats.getInstance(context);
+        stats.invalidate(); // 每个测试使用新的数据库文件
+
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(2024, Calendar.JANUARY, 1);
+        start = cal.getTimeInMillis();
+        cal.set(2024, Calendar.DECEMBER, 31, 23, 59, 59);
+        end = cal.getTimeInMillis() + 999;
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+    }
+
+    @Test
+    public void totals_followInsertsAndDeletesWithoutReloading() {
+        RecordDao recordDao = new RecordDao(context);
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            records.add(new Record(100 + i, i % 5 == 0 ? Record.TYPE_INCOME : Record.TYPE_EXPENSE,
+                    1 + i % 3, 1 + i % 4, start + i * 6_000_000L, "r" + i));
+        }
+        recordDao.addRecords(records);
+        assertArrayEquals(sumByType(recordDao, start, end), stats.typeTotals(start, end));
+
+        // 索引已建立，之后的写入通过通知增量更新
+        recordDao.addRecord(new Record(12345, Record.TYPE_EXPENSE, 2, 3, start + 200 * 86_400_000L, "new"));
+        recordDao.addRecords(records.subList(0, 700));
+        List<Record> stored = recordDao.getAllRecords();
+        for (int i = 0; i < 50; i++) recordDao.deleteRecord(stored.get(i * 7));
+
+        assertArrayEquals(sumByType(recordDao, start, end), stats.typeTotals(start, end));
+        long monthStart = start + 31 * 86_400_000L;
+        long monthEnd = start + 60 * 86_400_000L - 1;
+        assertArrayEquals(sumByType(recordDao, monthStart, monthEnd), stats.typeTotals(monthStart, monthEnd));
+
+        long[] account = new long[2];
+        long[] category = new long[2];
+        for (Record record : recordDao.getRecordsByDateRange(start, end)) {
+            if (record.getAccountId() == 3) account[record.getType()] += record.getAmount();
+            if (record.getCategoryId() == 2) category[record.getType()] += record.getAmount();
+        }
+        assertArrayEquals(account, stats.accountTotals(3, start, end));
+        assertArrayEquals(category, stats.categoryTotals(2, start, end));
+
+        // 一年的数据按周汇总，合计与前缀和索引一致
+        TimeSeries series = stats.series(start, end, 60);
+        assertEquals(TimeSeries.Resolution.WEEK, series.resolution);
+        long[] totals = stats.typeTotals(start, end);
+        assertEquals(totals[Record.TYPE_INCOME], series.totalIncome());
+        assertEquals(totals[Record.TYPE_EXPENSE], series.totalExpense());
+    }
+
+    @Test
+    public void totals_areRebuiltAfterBulkImport() {
+        RecordDao recordDao = new RecordDao(context);
+        recordDao.addRecord(new Record(500, Record.TYPE_EXPENSE, 1, 1, start + 1000, null));
+        assertArrayEquals(new long[]{500, 0}, stats.typeTotals(start, end));
+
+        try (BulkImport bulk = BulkImport.begin(context)) {
+            bulk.record(1, 800, Record.TYPE_INCOME, BulkImport.NULL_ID, BulkImport.NULL_ID, start + 2000, null);
+            bulk.record(2, 300, Record.TYPE_EXPENSE, BulkImport.NULL_ID, BulkImport.NULL_ID, start + 3000, null);
+            bulk.commit();
+        }
+        assertArrayEquals(new long[]{300, 800}, stats.typeTotals(start, end));
+    }
+
+    @Test
+    public void series_isRebuiltWhenTimeZoneChanges() {
+        TimeZone original = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+            // 上海时间 2024-03-10 23:30，即伦敦时间 2024-03-10 15:30
+            Calendar cal = Calendar.getInstance();
+            cal.clear();
+            cal.set(2024, Calendar.MARCH, 10, 23, 30);
+            long date = cal.getTimeInMillis();
+            new RecordDao(context).addRecord(new Record(700, Record.TYPE_EXPENSE, 1, 1, date, null));
+            assertArrayEquals(new long[]{startOfDay(date)}, stats.series(start, end, 60).starts);
+
+            TimeZone.setDefault(TimeZone.getTimeZone("Europe/London"));
+            assertArrayEquals(new long[]{startOfDay(date)}, stats.series(start, end, 60).starts);
+            assertArrayEquals(new long[]{700, 0}, stats.typeTotals(date, date));
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    /**
+     * 默认时区下 time 所在日期 00:00 的时间戳
+     */
+    private static long startOfDay(long time) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(time);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTimeInMillis();
+    }
+
+    /**
+     * 对照：逐条累加数据库中的记录
+     */
+    private static long[] sumByType(RecordDao recordDao, long startTime, long endTime) {
+        long[] totals = new long[2];
+        for (Record record : recordDao.getRecordsByDateRange(startTime, endTime)) {
+            totals[record.getType()] += record.getAmount();
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,45 @@
+package com.zzj.myapplication.stats;
+
+import com.zzj.myapplication.model.Record;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 全量扫描基准：100 万条记录按 List&lt;Record&gt; 逐个对象累加 vs 扫描列数组
+ * (耗时与 JIT 和机器负载有关，不随单元测试运行；需要时去掉 @Ignore 手动运行)
+ */
+@Ignore("基准测试，手动运行")
+public class RecordColumnsBenchmark {
+
+    @Test
+    public void fullScanOfColumnsVsObjectList() {
+        int count = 1_000_000;
+        List<Record> records = RecordColumnsTest.randomRecords(count, 42);
+        RecordColumns columns = RecordColumnsTest.toColumns(records);
+
+        long listNanos = Long.MAX_VALUE;
+        long columnNanos = Long.MAX_VALUE;
+        long[] listTotals = null;
+        long[] columnTotals = null;
+        for (int round = 0; round < 7; round++) {
+            long begin = System.nanoTime();
+            listTotals = new long[2];
+            for (Record record : records) {
+                listTotals[record.getType() == Record.TYPE_INCOME ? 1 : 0] += record.getAmount();
+            }
+            listNanos = Math.min(listNanos, System.nanoTime() - begin);
+
+            begin = System.nanoTime();
+            columnTotals = RecordStats.typeTotals(columns, Long.MIN_VALUE, Long.MAX_VALUE);
+            columnNanos = Math.min(columnNanos, System.nanoTime() - begin);
+        }
+        assertArrayEquals(listTotals, columnTotals);
+        assertTrue("full scan of " + count + " records: columns " + columnNanos / 1000 + "us vs List<Record> "
+                + listNanos / 1000 + "us", columnNanos < listNanos);
+    }
+}
@@ -0,0 +1,107 @@
+package com.zzj.myapplication.stats;
+
+import com.zzj.myapplication.model.Record;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 列式记录快照与扫描统计的本地单元测试 (扫描耗时的对比见 {@link RecordColumnsBenchmark})
+ */
+public class RecordColumnsTest {
+
+    private static final long START = 1_700_000_000_000L;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @Test
+    public void build_sortsByDateThenIdAndKeepsNotes() {
+        RecordColumns columns = new RecordColumns.Builder(0)
+                .add(3, START + 10, 300, Record.TYPE_EXPENSE, 1, 1, "晚饭")
+                .add(1, START + 20, 100, Record.TYPE_INCOME, 2, 1, (String) null)
+                .add(2, START + 10, 200, Record.TYPE_EXPENSE, 0, 2, "")
+                .add(4, START, 400, Record.TYPE_EXPENSE, 3, 2, "café ☕")
+                .build();
+
+        assertEquals(4, columns.size());
+        int[] expectedIds = {4, 2, 3, 1};
+        String[] expectedNotes = {"café ☕", "", "晚饭", null};
+        for (int i = 0; i < expectedIds.length; i++) {
+            assertEquals(expectedIds[i], columns.id(i));
+            assertEquals(expectedIds[i] * 100, columns.amount(i));
+            assertEquals(expectedNotes[i], columns.note(i));
+        }
+        assertEquals(1, columns.lowerBound(START + 1));
+        assertEquals(3, columns.upperBound(START + 10));
+        assertEquals(4, columns.lowerBound(Long.MAX_VALUE));
+        assertEquals(4, columns.upperBound(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void stats_matchBruteForceOverRecordList() {
+        List<Record> records = randomRecords(50_000, 11);
+        RecordColumns columns = toColumns(records);
+        long start = START + 20 * DAY + 12345;
+        long end = START + 75 * DAY;
+
+        long[] expected = new long[2];
+        long[] byCategory = new long[8];
+        for (Record record : records) {
+            if (record.getDate() < start || record.getDate() > end) continue;
+            expected[record.getType()] += record.getAmount();
+            if (record.getType() == Record.TYPE_EXPENSE) byCategory[record.getCategoryId()] += record.getAmount();
+        }
+        assertArrayEquals(expected, RecordStats.typeTotals(columns, start, end));
+        assertArrayEquals(byCategory, RecordStats.categoryTotals(columns, Record.TYPE_EXPENSE, start, end));
+
+        TimeSeries daily = RecordStats.dailyTotals(columns, start, end);
+        assertEquals(TimeSeries.Resolution.DAY, daily.resolution);
+        assertEquals(expected[Record.TYPE_INCOME], daily.totalIncome());
+        assertEquals(expected[Record.TYPE_EXPENSE], daily.totalExpense());
+        Calendar cal = Calendar.getInstance();
+        for (int i = 0; i < daily.size(); i++) {
+            cal.setTimeInMillis(daily.starts[i]);
+            assertEquals(0, cal.get(Calendar.HOUR_OF_DAY));
+            assertEquals(0, cal.get(Calendar.MINUTE));
+            if (i > 0) assertTrue(daily.starts[i] > daily.starts[i - 1]);
+        }
+
+        cal.setTimeInMillis(START + 40 * DAY);
+        int year = cal.get(Calendar.YEAR);
+        int month = cal.get(Calendar.MONTH);
+        long[] monthExpected = new long[2];
+        for (Record record : records) {
+            cal.setTimeInMillis(record.getDate());
+            if (cal.get(Calendar.YEAR) == year && cal.get(Calendar.MONTH) == month) {
+                monthExpected[record.getType()] += record.getAmount();
+            }
+        }
+        assertArrayEquals(monthExpected, RecordStats.monthTotals(columns, year, month + 1));
+    }
+
+    static List<Record> randomRecords(int count, long seed) {
+        Random random = new Random(seed);
+        List<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long amount = 1 + random.nextInt(1_000_000);
+            int type = random.nextInt(4) == 0 ? Record.TYPE_INCOME : Record.TYPE_EXPENSE;
+            long date = START + (long) (random.nextDouble() * 100 * DAY);
+            records.add(new Record(i + 1, amount, type, random.nextInt(8), 1 + random.nextInt(4), date, "note " + i));
+        }
+        return records;
+    }
+
+    static RecordColumns toColumns(List<Record> records) {
+        RecordColumns.Builder builder = new RecordColumns.Builder(records.size());
+        for (Record record : records) {
+            builder.add(record.getId(), record.getDate(), record.getAmount(), record.getType(),
+                    record.getCategoryId(), record.getAccountId(), record.getNote());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,171 @@
+package com.zzj.myapplication.stats;
+
+import com.zzj.myapplication.model.Record;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * 多粒度汇总的本地单元测试：与用 Calendar 逐条分桶的结果比较
+ */
+public class TimeRollupsTest {
+
+    private static final long START = 1_600_000_000_000L;
+    private static final long DAY = LocalDays.DAY_MILLIS;
+    private static final TimeZone ZONE = TimeZone.getTimeZone("Europe/Berlin");
+
+    @Test
+    public void localDays_matchCalendar() {
+        Calendar cal = Calendar.getInstance(ZONE);
+        for (long time = START - 20_000 * DAY; time < START + 20_000 * DAY; time += DAY / 3 + 12345) {
+            cal.setTimeInMillis(time);
+            int day = LocalDays.dayOf(time, ZONE);
+            int month = LocalDays.monthOf(day);
+            assertEquals(cal.get(Calendar.YEAR) * 12 + cal.get(Calendar.MONTH), month);
+            assertEquals(cal.get(Calendar.DAY_OF_MONTH), day - LocalDays.firstDayOfMonth(month) + 1);
+            assertEquals(startOfBucket(cal, time, TimeSeries.Resolution.DAY), LocalDays.startOf(day, ZONE));
+            assertEquals(startOfBucket(cal, time, TimeSeries.Resolution.WEEK),
+                    LocalDays.startOf(LocalDays.firstDayOfWeek(LocalDays.weekOf(day)), ZONE));
+        }
+    }
+
+    @Test
+    public void series_matchBruteForceAtEveryResolution() {
+        Random random = new Random(20);
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) records.add(randomRecord(random, 0, 3000));
+        TimeRollups rollups = build(records);
+
+        for (TimeSeries.Resolution resolution : TimeSeries.Resolution.values()) {
+            check(records, rollups, resolution, START + 100 * DAY, START + 2500 * DAY);
+            check(records, rollups, resolution, 0, Long.MAX_VALUE);
+        }
+
+        // 增量删除/新增 (包括原范围之前和之后的日期) 后仍与逐条统计一致
+        for (int i = 0; i < 5000; i++) {
+            Record record = records.remove(random.nextInt(records.size()));
+            rollups.remove(record.getDate(), record.getType(), record.getAmount());
+        }
+        for (int i = 0; i < 5000; i++) {
+            Record record = randomRecord(random, -1000, 5000);
+            records.add(record);
+            rollups.add(record.getDate(), record.getType(), record.getAmount());
+        }
+        for (TimeSeries.Resolution resolution : TimeSeries.Resolution.values()) {
+            check(records, rollups, resolution, 0, Long.MAX_VALUE);
+            check(records, rollups, resolution, START + 321 * DAY, START + 4321 * DAY);
+        }
+    }
+
+    @Test
+    public void series_forAllTimeStaysWithinPointBudget() {
+        Random random = new Random(3);
+        List<Record> oneYear = new ArrayList<>();
+        List<Record> tenYears = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            oneYear.add(randomRecord(random, 0, 365));
+            tenYears.add(randomRecord(random, 0, 3650));
+        }
+        TimeSeries shortSeries = build(oneYear).series(0, Long.MAX_VALUE, 60);
+        TimeSeries longSeries = build(tenYears).series(0, Long.MAX_VALUE, 60);
+        assertEquals(TimeSeries.Resolution.WEEK, shortSeries.resolution);
+        assertEquals(TimeSeries.Resolution.YEAR, longSeries.resolution);
+        assertTrue(shortSeries.size() <= 60);
+        assertTrue(longSeries.size() <= 60);
+        assertEquals(TimeSeries.Resolution.MONTH, build(tenYears).resolutionFor(0, Long.MAX_VALUE, 200));
+
+        // 近 7 天按天
+        assertEquals(TimeSeries.Resolution.DAY, build(tenYears).resolutionFor(START + 100 * DAY, START + 106 * DAY, 60));
+        // 删光所有记录后为空序列
+        TimeRollups rollups = build(oneYear);
+        for (Record record : oneYear) rollups.remove(record.getDate(), record.getType(), record.getAmount());
+        assertTrue(rollups.series(0, Long.MAX_VALUE, 60).isEmpty());
+    }
+
+    @Test
+    public void series_clampsDatesOutsideSupportedRange() {
+        // 相距超过 2^30 天的日期曾使扩展时的数组长度计算溢出
+        TimeRollups rollups = new TimeRollups(ZONE);
+        rollups.add(START, Record.TYPE_EXPENSE, 250);
+        rollups.add(Long.MAX_VALUE, Record.TYPE_INCOME, 900);
+        rollups.add(Long.MIN_VALUE, Record.TYPE_EXPENSE, 100);
+
+        TimeSeries all = rollups.series(Long.MIN_VALUE, Long.MAX_VALUE, 60);
+        assertEquals(TimeSeries.Resolution.YEAR, all.resolution);
+        assertEquals(3, all.size());
+        assertEquals(900, all.totalIncome());
+        assertEquals(350, all.totalExpense());
+
+        TimeSeries recent = rollups.series(START - 3 * DAY, START + 3 * DAY, 60);
+        assertEquals(TimeSeries.Resolution.DAY, recent.resolution);
+        assertEquals(1, recent.size());
+        assertEquals(250, recent.totalExpense());
+    }
+
+    private static void check(List<Record> records, TimeRollups rollups, TimeSeries.Resolution resolution,
+                              long start, long end) {
+        Calendar cal = Calendar.getInstance(ZONE);
+        long from = startOfBucket(cal, start, resolution);
+        TreeMap<Long, long[]> expected = new TreeMap<>();
+        for (Record record : records) {
+            long bucket = startOfBucket(cal, record.getDate(), resolution);
+            if (bucket < from || record.getDate() > end && bucket > startOfBucket(cal, end, resolution)) continue;
+            long[] totals = expected.get(bucket);
+            if (totals == null) expected.put(bucket, totals = new long[2]);
+            totals[record.getType()] += record.getAmount();
+        }
+
+        TimeSeries series = rollups.series(start, end, resolution);
+        assertEquals(resolution, series.resolution);
+        assertEquals(expected.size(), series.size());
+        int i = 0;
+        for (java.util.Map.Entry<Long, long[]> entry : expected.entrySet()) {
+            assertEquals(entry.getKey().longValue(), series.starts[i]);
+            assertEquals(entry.getValue()[Record.TYPE_INCOME], series.income[i]);
+            assertEquals(entry.getValue()[Record.TYPE_EXPENSE], series.expense[i]);
+            i++;
+        }
+    }
+
+    private static long startOfBucket(Calendar cal, long time, TimeSeries.Resolution resolution) {
+        cal.setTimeInMillis(time);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        switch (resolution) {
+            case WEEK:
+                cal.add(Calendar.DAY_OF_MONTH, -((cal.get(Calendar.DAY_OF_WEEK) + 5) % 7));
+                break;
+            case MONTH:
+                cal.set(Calendar.DAY_OF_MONTH, 1);
+                break;
+            case YEAR:
+                cal.set(Calendar.DAY_OF_YEAR, 1);
+                break;
+            default:
+                break;
+        }
+        return cal.getTimeInMillis();
+    }
+
+    private static Record randomRecord(Random random, int fromDay, int toDay) {
+        long date = START + (long) ((fromDay + random.nextDouble() * (toDay - fromDay)) * DAY);
+        int type = random.nextInt(3) == 0 ? Record.TYPE_INCOME : Record.TYPE_EXPENSE;
+        return new Record(1 + random.nextInt(100_000), type, 1, 1, date, null);
+    }
+
+    private static TimeRollups build(List<Record> records) {
+        TimeRollups rollups = new TimeRollups(ZONE);
+        for (Record record : records) rollups.add(record.getDate(), record.getType(), record.getAmount());
+        return rollups;
+    }
+}
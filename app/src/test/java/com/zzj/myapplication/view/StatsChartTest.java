@@ -0,0 +1,208 @@
+package com.zzj.myapplication.view;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 自定义折线图的绘制测试：onDraw 和拖动不分配对象、静态层位图在各帧之间复用、绘制的点数与序列长度无关
+ * (在 JVM 上运行，画布为只计数的空实现；只检查这些不变量，不检查耗时)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class StatsChartTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 600;
+
+    @Test
+    public void onDraw_allocatesNothingPerFrame() {
+        StatsChart chart = chart(10_000);
+        CountingCanvas canvas = new CountingCanvas();
+        for (int i = 0; i < 200; i++) chart.onDraw(canvas); // 预热
+
+        int frames = 1000;
+        canvas.reset();
+        long before = allocatedBytes();
+        for (int i = 0; i < frames; i++) chart.onDraw(canvas);
+        long allocated = allocatedBytes() - before;
+
+        // 平均每帧不到一个字节，即没有任何一帧分配了对象
+        assertTrue(allocated + " bytes in " + frames + " frames", allocated < frames);
+        // 静态层每帧只贴一次位图，且始终是同一个位图；逐帧绘制的文字只有几个日期标签
+        assertEquals(frames, canvas.bitmaps);
+        assertEquals(1, canvas.distinctBitmaps);
+        assertTrue(canvas.texts + " texts", canvas.texts <= frames * 7);
+        assertTrue(canvas.lastPointCount > 0);
+        assertTrue("points " + canvas.lastPointCount, canvas.lastPointCount <= WIDTH);
+    }
+
+    /**
+     * 放大后只绘制可见区间内的点 (两侧各多一个)，拖动和绘制都不分配对象，开销与序列总长度无关
+     */
+    @Test
+    public void viewport_drawsOnlyVisibleWindow() {
+        int size = 100_000;
+        StatsChart chart = chart(size);
+        CountingCanvas canvas = new CountingCanvas();
+        chart.onDraw(canvas);
+        assertTrue("points " + canvas.lastPointCount, canvas.lastPointCount <= WIDTH);
+
+        // 放大到绘图区内约 100 个点
+        chart.zoomBy((size - 1) / 99f, 500);
+        chart.onDraw(canvas);
+        assertTrue("points " + canvas.lastPointCount, canvas.lastPointCount <= 101);
+        assertTrue("points " + canvas.lastPointCount, canvas.lastPointCount >= 100);
+
+        // 拖动：折线延伸到绘图区两侧之外，点数保持不变
+        for (int i = 0; i < 200; i++) {
+            chart.panBy(37.5f);
+            chart.onDraw(canvas);
+        }
+        assertTrue("points " + canvas.lastPointCount, canvas.lastPointCount <= 101);
+        assertTrue("first x " + canvas.firstX, canvas.firstX <= 80);
+        assertTrue("last x " + canvas.lastX, canvas.lastX >= WIDTH - 40);
+
+        int frames = 1000;
+        long before = allocatedBytes();
+        for (int i = 0; i < frames; i++) {
+            chart.panBy(i % 2 == 0 ? 3.5f : -2f);
+            chart.onDraw(canvas);
+        }
+        long allocated = allocatedBytes() - before;
+        assertTrue(allocated + " bytes in " + frames + " frames", allocated < frames);
+        assertTrue("points " + canvas.lastPointCount, canvas.lastPointCount <= 101);
+
+        // 放大到最大时仍至少显示 7 个点，拖动不会越过序列两端
+        chart.zoomBy(Float.MAX_VALUE, 500);
+        chart.panBy(Float.MAX_VALUE);
+        chart.onDraw(canvas);
+        assertTrue("points " + canvas.lastPointCount, canvas.lastPointCount >= 7);
+        assertEquals(WIDTH - 40, canvas.lastX, 0.5f);
+        chart.panBy(-Float.MAX_VALUE);
+        chart.onDraw(canvas);
+        assertEquals(80, canvas.firstX, 0.5f);
+    }
+
+    /**
+     * 绘制的点数由图表宽度决定：10k 个点的序列压缩到不超过像素宽度，100 个点的序列全部绘制；
+     * 重新 setData 时静态层画在原来的位图上，不重新创建
+     */
+    @Test
+    public void setData_reusesStaticLayerAndBoundsPointsByWidth() {
+        StatsChart chart = chart(10_000);
+        CountingCanvas canvas = new CountingCanvas();
+        chart.onDraw(canvas);
+        assertTrue(canvas.lastPointCount > 0);
+        assertTrue("points " + canvas.lastPointCount, canvas.lastPointCount <= WIDTH);
+
+        chart.setData(data(100));
+        chart.onDraw(canvas);
+        assertEquals(100, canvas.lastPointCount);
+        chart.setData(data(10_000));
+        chart.onDraw(canvas);
+        assertTrue("points " + canvas.lastPointCount, canvas.lastPointCount <= WIDTH);
+        assertEquals(3, canvas.bitmaps);
+        assertEquals(1, canvas.distinctBitmaps);
+    }
+
+    private static StatsChart chart(int size) {
+        StatsChart chart = new StatsChart(RuntimeEnvironment.getApplication());
+        chart.setData(data(size));
+        chart.layout(0, 0, WIDTH, HEIGHT);
+        return chart;
+    }
+
+    private static List<StatsChart.ChartData> data(int size) {
+        Random random = new Random(size);
+        List<StatsChart.ChartData> data = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            data.add(new StatsChart.ChartData("d" + i, 100 + random.nextGaussian() * 30));
+        }
+        return data;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * 只记录调用次数的画布，排除真实绘制本身的开销和分配
+     */
+    private static final class CountingCanvas extends Canvas {
+        int bitmaps;
+        int distinctBitmaps; // 贴过的不同位图个数
+        int texts;
+        int lastPointCount;
+        float firstX;
+        float lastX;
+
+        private Bitmap lastBitmap;
+
+        void reset() {
+            bitmaps = 0;
+            distinctBitmaps = 0;
+            lastBitmap = null;
+            texts = 0;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            bitmaps++;
+            if (bitmap != lastBitmap) {
+                distinctBitmaps++;
+                lastBitmap = bitmap;
+            }
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+            texts++;
+        }
+
+        @Override
+        public void drawLines(float[] pts, int offset, int count, Paint paint) {
+        }
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        }
+
+        @Override
+        public int save() {
+            return 1;
+        }
+
+        @Override
+        public boolean clipRect(float left, float top, float right, float bottom) {
+            return true;
+        }
+
+        @Override
+        public void restoreToCount(int saveCount) {
+        }
+
+        @Override
+        public void drawPoints(float[] pts, int offset, int count, Paint paint) {
+            lastPointCount = count / 2;
+            if (count > 0) {
+                firstX = pts[offset];
+                lastX = pts[offset + count - 2];
+            }
+        }
+    }
+}